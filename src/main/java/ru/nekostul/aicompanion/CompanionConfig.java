@@ -50,6 +50,11 @@ public final class CompanionConfig {
                     "Increasing this limit above 5 is VERY UNSTABLE and may cause tunneling/path issues.")
             .defineInRange("limits.maxOccludedOreBlocks", 5, 0, 64);
 
+    public static final ForgeConfigSpec.BooleanValue ASYNC_RESOURCE_SCAN = BUILDER
+            .comment("Run long-range resource scans on background threads over copied chunk data.",
+                    "Found targets are re-checked on the server thread before the NPC uses them.")
+            .define("performance.asyncResourceScan", true);
+
     public static final ForgeConfigSpec.BooleanValue OREHARVESTER_INTEGRATION = BUILDER
             .comment("Enable integration with oreharvester mod (modid: oreharvester).",
                     "If enabled and oreharvester is installed, NPC uses oreharvester for full ore mining.",
@@ -93,6 +98,10 @@ public final class CompanionConfig {
             .comment("HTTP read timeout for YandexGPT requests (ms).")
             .defineInRange("ai.yandexgpt.readTimeoutMs", 10000, 500, 120000);
 
+    public static final ForgeConfigSpec.BooleanValue YANDEX_GPT_STREAM = BUILDER
+            .comment("Stream YandexGPT chat replies and show them sentence by sentence.")
+            .define("ai.yandexgpt.stream", true);
+
     public static final ForgeConfigSpec SPEC = BUILDER.build();
 
     private CompanionConfig() {
@@ -126,6 +135,10 @@ public final class CompanionConfig {
         return MAX_OCCLUDED_ORE_BLOCKS.get();
     }
 
+    public static boolean isAsyncResourceScanEnabled() {
+        return ASYNC_RESOURCE_SCAN.get();
+    }
+
     public static boolean isOreHarvesterIntegrationEnabled() {
         return OREHARVESTER_INTEGRATION.get();
     }
@@ -166,6 +179,10 @@ public final class CompanionConfig {
         return YANDEX_GPT_READ_TIMEOUT_MS.get();
     }
 
+    public static boolean isYandexGptStreamEnabled() {
+        return YANDEX_GPT_STREAM.get();
+    }
+
     public static void setFullTreeChopEnabled(boolean enabled) {
         FULL_TREE_CHOP.set(enabled);
         persistValue(enabled);
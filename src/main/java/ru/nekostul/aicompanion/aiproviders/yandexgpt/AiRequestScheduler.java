@@ -0,0 +1,194 @@
+package ru.nekostul.aicompanion.aiproviders.yandexgpt;
+
+import net.minecraft.network.chat.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public final class AiRequestScheduler {
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final String REPORT_KEY = "entity.aicompanion.companion.perf.ai_scheduler";
+    private static final String REPORT_LANE_KEY = "entity.aicompanion.companion.perf.ai_scheduler.lane";
+    private static final Object LOCK = new Object();
+    private static final YandexGptSingleFlight.Kind[] LANES = YandexGptSingleFlight.Kind.values();
+    private static final List<ArrayDeque<Task>> QUEUES = createQueues();
+    private static final LaneStats[] STATS = createStats();
+    private static final int[] LANE_IN_FLIGHT = new int[LANES.length];
+
+    private static int inFlight;
+
+    private AiRequestScheduler() {
+    }
+
+    static CompletableFuture<String> submit(YandexGptSingleFlight.Kind kind, Supplier<CompletableFuture<String>> call) {
+        Task task = new Task(kind, call);
+        synchronized (LOCK) {
+            LaneStats stats = STATS[kind.ordinal()];
+            if (!canStart(kind)) {
+                ArrayDeque<Task> queue = QUEUES.get(kind.ordinal());
+                if (queue.size() >= queueLimit(kind)) {
+                    stats.rejected++;
+                    return CompletableFuture.failedFuture(new BusyException());
+                }
+                queue.addLast(task);
+                return task.result;
+            }
+            acquire(kind);
+        }
+        start(task);
+        return task.result;
+    }
+
+    public static List<Component> report() {
+        List<Component> lines = new ArrayList<>();
+        synchronized (LOCK) {
+            lines.add(Component.translatable(REPORT_KEY, inFlight, MAX_IN_FLIGHT));
+            for (YandexGptSingleFlight.Kind kind : LANES) {
+                LaneStats stats = STATS[kind.ordinal()];
+                if (stats.completed == 0L && stats.rejected == 0L && QUEUES.get(kind.ordinal()).isEmpty()) {
+                    continue;
+                }
+                lines.add(Component.translatable(REPORT_LANE_KEY,
+                        kind.name().toLowerCase(Locale.ROOT),
+                        LANE_IN_FLIGHT[kind.ordinal()],
+                        laneLimit(kind),
+                        QUEUES.get(kind.ordinal()).size(),
+                        queueLimit(kind),
+                        stats.completed,
+                        stats.rejected,
+                        millis(stats.completed == 0L ? 0L : stats.waitNanos / stats.completed),
+                        millis(stats.maxWaitNanos),
+                        millis(stats.completed == 0L ? 0L : stats.serviceNanos / stats.completed),
+                        millis(stats.maxServiceNanos)));
+            }
+        }
+        return lines;
+    }
+
+    private static void start(Task task) {
+        task.startedNanos = System.nanoTime();
+        CompletableFuture<String> upstream;
+        try {
+            upstream = task.call.get();
+        } catch (RuntimeException exception) {
+            upstream = CompletableFuture.failedFuture(exception);
+        }
+        upstream.whenComplete((answer, error) -> finish(task, answer, error));
+    }
+
+    private static void finish(Task task, String answer, Throwable error) {
+        long now = System.nanoTime();
+        Task next;
+        synchronized (LOCK) {
+            LaneStats stats = STATS[task.kind.ordinal()];
+            long wait = task.startedNanos - task.submittedNanos;
+            long service = now - task.startedNanos;
+            stats.completed++;
+            stats.waitNanos += wait;
+            stats.serviceNanos += service;
+            stats.maxWaitNanos = Math.max(stats.maxWaitNanos, wait);
+            stats.maxServiceNanos = Math.max(stats.maxServiceNanos, service);
+            inFlight--;
+            LANE_IN_FLIGHT[task.kind.ordinal()]--;
+            next = pollNext();
+        }
+        if (error != null) {
+            task.result.completeExceptionally(error);
+        } else {
+            task.result.complete(answer);
+        }
+        if (next != null) {
+            start(next);
+        }
+    }
+
+    private static Task pollNext() {
+        for (YandexGptSingleFlight.Kind kind : LANES) {
+            if (!canStart(kind)) {
+                continue;
+            }
+            Task next = QUEUES.get(kind.ordinal()).pollFirst();
+            if (next != null) {
+                acquire(kind);
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private static boolean canStart(YandexGptSingleFlight.Kind kind) {
+        return inFlight < MAX_IN_FLIGHT && LANE_IN_FLIGHT[kind.ordinal()] < laneLimit(kind);
+    }
+
+    private static void acquire(YandexGptSingleFlight.Kind kind) {
+        inFlight++;
+        LANE_IN_FLIGHT[kind.ordinal()]++;
+    }
+
+    private static int laneLimit(YandexGptSingleFlight.Kind kind) {
+        return switch (kind) {
+            case CHAT, COMMAND -> MAX_IN_FLIGHT;
+            case HOME_REVIEW, HOME_BUILD -> 1;
+        };
+    }
+
+    private static int queueLimit(YandexGptSingleFlight.Kind kind) {
+        return switch (kind) {
+            case CHAT, COMMAND -> 32;
+            case HOME_REVIEW -> 8;
+            case HOME_BUILD -> 4;
+        };
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.0f", nanos / 1_000_000.0D);
+    }
+
+    private static List<ArrayDeque<Task>> createQueues() {
+        List<ArrayDeque<Task>> queues = new ArrayList<>(LANES.length);
+        for (int i = 0; i < LANES.length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+        return queues;
+    }
+
+    private static LaneStats[] createStats() {
+        LaneStats[] stats = new LaneStats[LANES.length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new LaneStats();
+        }
+        return stats;
+    }
+
+    static final class BusyException extends RuntimeException {
+        private BusyException() {
+            super("AI request queue is full", null, false, false);
+        }
+    }
+
+    private static final class Task {
+        private final YandexGptSingleFlight.Kind kind;
+        private final Supplier<CompletableFuture<String>> call;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final long submittedNanos = System.nanoTime();
+        private long startedNanos;
+
+        private Task(YandexGptSingleFlight.Kind kind, Supplier<CompletableFuture<String>> call) {
+            this.kind = kind;
+            this.call = call;
+        }
+    }
+
+    private static final class LaneStats {
+        private long completed;
+        private long rejected;
+        private long waitNanos;
+        private long serviceNanos;
+        private long maxWaitNanos;
+        private long maxServiceNanos;
+    }
+}
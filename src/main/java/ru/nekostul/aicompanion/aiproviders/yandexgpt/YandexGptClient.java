@@ -1,20 +1,22 @@
 package ru.nekostul.aicompanion.aiproviders.yandexgpt;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.mojang.logging.LogUtils;
 import net.minecraft.server.level.ServerPlayer;
 import org.slf4j.Logger;
 import ru.nekostul.aicompanion.CompanionConfig;
 
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.net.URI;
+import java.net.http.HttpResponse;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public final class YandexGptClient {
     public enum Status {
@@ -22,6 +24,7 @@ public final class YandexGptClient {
         DISABLED,
         NOT_CONFIGURED,
         DAILY_LIMIT,
+        BUSY,
         ERROR
     }
 
@@ -50,66 +53,82 @@ public final class YandexGptClient {
     }
 
     private static final Logger LOGGER = LogUtils.getLogger();
-    private static final String ENDPOINT =
-            "https://llm.api.cloud.yandex.net/foundationModels/v1/completion";
+    private static final URI ENDPOINT =
+            URI.create("https://llm.api.cloud.yandex.net/foundationModels/v1/completion");
     private static final int MAX_REPLY_LENGTH = 256;
     private static final int BUILD_PLAN_MIN_TOKENS = 2048;
 
     private YandexGptClient() {
     }
 
-    public static Result ask(ServerPlayer player, String playerMessage) {
+    public static CompletableFuture<Result> askAsync(ServerPlayer player, String playerMessage) {
+        return askAsync(player, playerMessage, null);
+    }
+
+    public static CompletableFuture<Result> askAsync(ServerPlayer player, String playerMessage,
+                                                     Consumer<String> onPartialReply) {
         if (player == null || !isNotBlank(playerMessage)) {
-            return error();
+            return completedError();
         }
         UUID playerId = player.getUUID();
         String userPrompt = YandexGptPrompts.userPrompt(player.getName().getString(), playerMessage);
-        Result result = requestWithPrompts(
+        return requestWithPrompts(
                 player,
                 YandexGptPrompts.system(),
                 userPrompt,
                 CompanionConfig.getYandexGptMaxTokens(),
                 true,
-                YandexGptConversationMemory.snapshot(playerId)
-        );
-        if (result.status() == Status.SUCCESS && isNotBlank(result.text())) {
-            YandexGptConversationMemory.appendUser(playerId, userPrompt);
-            YandexGptConversationMemory.appendAssistant(playerId, result.text());
-        }
-        return result;
+                YandexGptConversationMemory.snapshot(playerId),
+                onPartialReply,
+                YandexGptSingleFlight.Kind.CHAT,
+                null
+        ).thenApply(result -> {
+            if (result.status() == Status.SUCCESS && isNotBlank(result.text())) {
+                YandexGptConversationMemory.appendUser(playerId, userPrompt);
+                YandexGptConversationMemory.appendAssistant(playerId, result.text());
+            }
+            return result;
+        });
     }
 
-    public static Result interpretCommand(ServerPlayer player, String playerMessage) {
+    public static CompletableFuture<Result> interpretCommandAsync(ServerPlayer player, String playerMessage) {
         if (player == null || !isNotBlank(playerMessage)) {
-            return error();
+            return completedError();
         }
         return requestWithPrompts(
                 player,
                 YandexGptPrompts.commandSystemPrompt(),
-                YandexGptPrompts.commandUserPrompt(player.getName().getString(), playerMessage),
+                YandexGptPrompts.commandUserPrompt(playerMessage),
                 CompanionConfig.getYandexGptMaxTokens(),
                 true,
-                List.of()
+                List.of(),
+                null,
+                YandexGptSingleFlight.Kind.COMMAND,
+                playerMessage
         );
     }
 
-    public static Result reviewHomeAssessment(ServerPlayer player, String assessmentPayload) {
+    public static CompletableFuture<Result> reviewHomeAssessmentAsync(ServerPlayer player, String assessmentPayload) {
         if (player == null || !isNotBlank(assessmentPayload)) {
-            return error();
+            return completedError();
         }
         return requestWithPrompts(
                 player,
                 YandexGptPrompts.homeReviewSystemPrompt(),
-                YandexGptPrompts.homeReviewUserPrompt(player.getName().getString(), assessmentPayload),
+                YandexGptPrompts.homeReviewUserPrompt(assessmentPayload),
                 CompanionConfig.getYandexGptMaxTokens(),
                 true,
-                List.of()
+                List.of(),
+                null,
+                YandexGptSingleFlight.Kind.HOME_REVIEW,
+                assessmentPayload
         );
     }
 
-    public static Result generateHomeBuildPlan(ServerPlayer player, String buildRequest, String buildPointContext) {
+    public static CompletableFuture<Result> generateHomeBuildPlanAsync(ServerPlayer player, String buildRequest,
+                                                                       String buildPointContext) {
         if (player == null || !isNotBlank(buildRequest)) {
-            return error();
+            return completedError();
         }
         int maxTokens = Math.max(CompanionConfig.getYandexGptMaxTokens(), BUILD_PLAN_MIN_TOKENS);
         return requestWithPrompts(
@@ -118,39 +137,66 @@ public final class YandexGptClient {
                 YandexGptPrompts.homeBuildUserPrompt(player.getName().getString(), buildRequest, buildPointContext),
                 maxTokens,
                 false,
-                List.of()
+                List.of(),
+                null,
+                YandexGptSingleFlight.Kind.HOME_BUILD,
+                null
         );
     }
 
-    private static Result requestWithPrompts(ServerPlayer player,
-                                             String systemPrompt,
-                                             String userPrompt,
-                                             int maxTokens,
-                                             boolean shortTextMode,
-                                             List<YandexGptConversationMemory.Message> historyMessages) {
+    private static CompletableFuture<Result> requestWithPrompts(ServerPlayer player,
+                                                                String systemPrompt,
+                                                                String userPrompt,
+                                                                int maxTokens,
+                                                                boolean shortTextMode,
+                                                                List<YandexGptConversationMemory.Message> historyMessages,
+                                                                Consumer<String> onPartialReply,
+                                                                YandexGptSingleFlight.Kind kind,
+                                                                String coalesceSubject) {
         if (player == null || !isNotBlank(systemPrompt) || !isNotBlank(userPrompt)) {
-            return error();
+            return completedError();
         }
         if (!CompanionConfig.isYandexGptEnabled()) {
-            return new Result(Status.DISABLED, "", 0);
+            return CompletableFuture.completedFuture(new Result(Status.DISABLED, "", 0));
         }
 
         String apiKey = CompanionConfig.getYandexGptApiKey();
         String folderId = CompanionConfig.getYandexGptFolderId();
         String model = CompanionConfig.getYandexGptModel();
         if (!isNotBlank(apiKey) || !isNotBlank(folderId) || !isNotBlank(model)) {
-            return new Result(Status.NOT_CONFIGURED, "", 0);
+            return CompletableFuture.completedFuture(new Result(Status.NOT_CONFIGURED, "", 0));
         }
 
         UUID playerId = player.getUUID();
         int dailyLimit = CompanionConfig.getYandexGptDailyLimit();
         if (!YandexGptDailyUsageTracker.canUse(playerId, dailyLimit)) {
             int remaining = YandexGptDailyUsageTracker.remaining(playerId, dailyLimit);
-            return new Result(Status.DAILY_LIMIT, "", remaining);
+            return CompletableFuture.completedFuture(new Result(Status.DAILY_LIMIT, "", remaining));
         }
 
+        YandexGptSingleFlight.Key coalesceKey = coalesceSubject != null && onPartialReply == null
+                ? YandexGptSingleFlight.key(kind, systemPrompt, coalesceSubject, maxTokens)
+                : null;
+        CompletableFuture<String> answerFuture;
         try {
-            String answer = requestCompletion(apiKey, folderId, model, systemPrompt, userPrompt, maxTokens, historyMessages);
+            answerFuture = YandexGptSingleFlight.run(coalesceKey, () -> AiRequestScheduler.submit(kind,
+                    () -> requestCompletion(apiKey, folderId, model, systemPrompt, userPrompt, maxTokens,
+                            historyMessages, onPartialReply)));
+        } catch (Exception exception) {
+            LOGGER.debug("yandexgpt request failed: player={} error={}", playerId, exception.toString());
+            return completedError();
+        }
+        return answerFuture.handle((answer, exception) -> {
+            Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                    ? exception.getCause()
+                    : exception;
+            if (cause instanceof AiRequestScheduler.BusyException) {
+                return new Result(Status.BUSY, "", YandexGptDailyUsageTracker.remaining(playerId, dailyLimit));
+            }
+            if (exception != null) {
+                LOGGER.debug("yandexgpt request failed: player={} error={}", playerId, exception.toString());
+                return error();
+            }
             if (!isNotBlank(answer)) {
                 return error();
             }
@@ -159,33 +205,26 @@ public final class YandexGptClient {
             return new Result(Status.SUCCESS,
                     finalText,
                     YandexGptDailyUsageTracker.remaining(playerId, dailyLimit));
-        } catch (Exception exception) {
-            LOGGER.debug("yandexgpt request failed: player={} error={}", playerId, exception.toString());
-            return error();
-        }
+        });
     }
 
-    private static String requestCompletion(String apiKey,
-                                            String folderId,
-                                            String model,
-                                            String systemPrompt,
-                                            String userPrompt,
-                                            int maxTokens,
-                                            List<YandexGptConversationMemory.Message> historyMessages) throws Exception {
-        HttpURLConnection connection = (HttpURLConnection) new URL(ENDPOINT).openConnection();
-        connection.setRequestMethod("POST");
-        connection.setDoOutput(true);
-        connection.setConnectTimeout(CompanionConfig.getYandexGptConnectTimeoutMs());
-        connection.setReadTimeout(CompanionConfig.getYandexGptReadTimeoutMs());
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setRequestProperty("Authorization", "Api-Key " + apiKey);
-
+    private static CompletableFuture<String> requestCompletion(String apiKey,
+                                                               String folderId,
+                                                               String model,
+                                                               String systemPrompt,
+                                                               String userPrompt,
+                                                               int maxTokens,
+                                                               List<YandexGptConversationMemory.Message> historyMessages,
+                                                               Consumer<String> onPartialReply) {
         JsonObject body = new JsonObject();
         body.addProperty("modelUri", "gpt://" + folderId + "/" + model);
 
         JsonObject options = new JsonObject();
         options.addProperty("temperature", CompanionConfig.getYandexGptTemperature());
         options.addProperty("maxTokens", Math.max(16, maxTokens));
+        if (onPartialReply != null) {
+            options.addProperty("stream", true);
+        }
         body.add("completionOptions", options);
 
         JsonArray messages = new JsonArray();
@@ -201,27 +240,57 @@ public final class YandexGptClient {
         appendMessage(messages, "user", userPrompt);
         body.add("messages", messages);
 
-        try (OutputStream output = connection.getOutputStream()) {
-            output.write(body.toString().getBytes(StandardCharsets.UTF_8));
+        if (onPartialReply != null) {
+            YandexGptCompletionStream stream = new YandexGptCompletionStream(onPartialReply, MAX_REPLY_LENGTH);
+            return YandexGptTransport.postLines(
+                    ENDPOINT,
+                    apiKey,
+                    body,
+                    CompanionConfig.getYandexGptConnectTimeoutMs(),
+                    CompanionConfig.getYandexGptReadTimeoutMs(),
+                    stream
+            ).thenApply(response -> {
+                if (response.statusCode() >= 400) {
+                    LOGGER.debug("yandexgpt http error: code={} streamed={}", response.statusCode(), stream.text());
+                    return null;
+                }
+                stream.deliverRemainder();
+                return stream.text();
+            });
         }
+        return YandexGptTransport.post(
+                ENDPOINT,
+                apiKey,
+                body,
+                CompanionConfig.getYandexGptConnectTimeoutMs(),
+                CompanionConfig.getYandexGptReadTimeoutMs()
+        ).thenApply(YandexGptClient::parseCompletion);
+    }
 
-        int responseCode = connection.getResponseCode();
-        InputStream stream = responseCode >= 400
-                ? connection.getErrorStream()
-                : connection.getInputStream();
-        if (stream == null) {
+    private static String parseCompletion(HttpResponse<String> response) {
+        int responseCode = response.statusCode();
+        String responseText = response.body();
+        if (responseText == null) {
             return null;
         }
-        String responseText;
-        try (InputStream input = stream) {
-            responseText = new String(input.readAllBytes(), StandardCharsets.UTF_8);
-        }
         if (responseCode >= 400) {
             LOGGER.debug("yandexgpt http error: code={} body={}", responseCode, responseText);
             return null;
         }
+        return extractCompletionText(responseText);
+    }
 
-        JsonObject root = JsonParser.parseString(responseText).getAsJsonObject();
+    static String extractCompletionText(String responseText) {
+        JsonElement parsed;
+        try {
+            parsed = JsonParser.parseString(responseText);
+        } catch (JsonParseException exception) {
+            return null;
+        }
+        if (!parsed.isJsonObject()) {
+            return null;
+        }
+        JsonObject root = parsed.getAsJsonObject();
         JsonObject result = root.getAsJsonObject("result");
         if (result == null) {
             return null;
@@ -242,6 +311,10 @@ public final class YandexGptClient {
         return new Result(Status.ERROR, "", 0);
     }
 
+    private static CompletableFuture<Result> completedError() {
+        return CompletableFuture.completedFuture(error());
+    }
+
     private static void appendMessage(JsonArray messages, String role, String text) {
         if (messages == null || !isNotBlank(role) || !isNotBlank(text)) {
             return;
@@ -252,15 +325,19 @@ public final class YandexGptClient {
         messages.add(message);
     }
 
-    private static String sanitizeReply(String raw) {
+    static String normalizeReply(String raw) {
         if (raw == null) {
             return "";
         }
-        String cleaned = raw
+        return raw
                 .replace('\r', ' ')
                 .replace('\n', ' ')
                 .replaceAll("\\s{2,}", " ")
                 .trim();
+    }
+
+    static String sanitizeReply(String raw) {
+        String cleaned = normalizeReply(raw);
         if (cleaned.length() <= MAX_REPLY_LENGTH) {
             return cleaned;
         }
@@ -0,0 +1,80 @@
+package ru.nekostul.aicompanion.aiproviders.yandexgpt;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+final class YandexGptCompletionStream implements Flow.Subscriber<String> {
+    private final Consumer<String> onChunk;
+    private final int maxLength;
+    private String rawText = "";
+    private int deliveredLength;
+
+    YandexGptCompletionStream(Consumer<String> onChunk, int maxLength) {
+        this.onChunk = onChunk;
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+        if (line == null || line.isBlank()) {
+            return;
+        }
+        String text = YandexGptClient.extractCompletionText(line);
+        if (text == null) {
+            return;
+        }
+        rawText = text.startsWith(rawText) ? text : rawText + text;
+        deliverSentences();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    String text() {
+        return rawText;
+    }
+
+    void deliverRemainder() {
+        String reply = YandexGptClient.sanitizeReply(rawText);
+        if (deliveredLength < reply.length()) {
+            deliver(reply.substring(deliveredLength));
+        }
+        deliveredLength = Math.max(deliveredLength, reply.length());
+    }
+
+    private void deliverSentences() {
+        String normalized = YandexGptClient.normalizeReply(rawText);
+        int limit = Math.min(normalized.length() - 1, maxLength);
+        int boundary = -1;
+        for (int i = deliveredLength; i < limit; i++) {
+            if (isSentenceEnd(normalized.charAt(i)) && Character.isWhitespace(normalized.charAt(i + 1))) {
+                boundary = i + 1;
+            }
+        }
+        if (boundary > deliveredLength) {
+            deliver(normalized.substring(deliveredLength, boundary));
+            deliveredLength = boundary;
+        }
+    }
+
+    private void deliver(String chunk) {
+        String trimmed = chunk.trim();
+        if (!trimmed.isEmpty() && onChunk != null) {
+            onChunk.accept(trimmed);
+        }
+    }
+
+    private static boolean isSentenceEnd(char value) {
+        return value == '.' || value == '!' || value == '?' || value == '\u2026';
+    }
+}
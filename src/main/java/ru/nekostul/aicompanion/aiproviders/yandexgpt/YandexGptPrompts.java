@@ -90,10 +90,9 @@ final class YandexGptPrompts {
         return system() + " " + COMMAND_TASK_SYSTEM_PROMPT;
     }
 
-    static String commandUserPrompt(String playerName, String playerMessage) {
-        String safeName = playerName == null || playerName.isBlank() ? "Игрок" : playerName.trim();
+    static String commandUserPrompt(String playerMessage) {
         String safeMessage = playerMessage == null ? "" : playerMessage.trim();
-        return "Игрок " + safeName + " написал: \"" + safeMessage + "\". "
+        return "Игрок написал: \"" + safeMessage + "\". "
                 + "Преобразуй это в исполняемую команду NPC.";
     }
 
@@ -101,10 +100,9 @@ final class YandexGptPrompts {
         return system() + " " + HOME_REVIEW_SYSTEM_PROMPT;
     }
 
-    static String homeReviewUserPrompt(String playerName, String assessmentPayload) {
-        String safeName = playerName == null || playerName.isBlank() ? "Игрок" : playerName.trim();
+    static String homeReviewUserPrompt(String assessmentPayload) {
         String safePayload = assessmentPayload == null ? "" : assessmentPayload.trim();
-        return "Игрок " + safeName + " завершил осмотр дома. "
+        return "Игрок завершил осмотр дома. "
                 + "Сделай итоговую оценку по данным ниже:\n"
                 + safePayload;
     }
@@ -0,0 +1,66 @@
+package ru.nekostul.aicompanion.aiproviders.yandexgpt;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+final class YandexGptSingleFlight {
+    enum Kind {
+        CHAT,
+        COMMAND,
+        HOME_REVIEW,
+        HOME_BUILD
+    }
+
+    record Key(Kind kind, String systemPrompt, String subject, int maxTokens) {
+    }
+
+    private static final Map<Key, CompletableFuture<String>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private YandexGptSingleFlight() {
+    }
+
+    static Key key(Kind kind, String systemPrompt, String subject, int maxTokens) {
+        return new Key(kind, systemPrompt, normalize(subject), maxTokens);
+    }
+
+    static CompletableFuture<String> run(Key key, Supplier<CompletableFuture<String>> call) {
+        if (key == null) {
+            return call.get();
+        }
+        CompletableFuture<String> shared = new CompletableFuture<>();
+        CompletableFuture<String> existing = IN_FLIGHT.putIfAbsent(key, shared);
+        if (existing != null) {
+            return existing.thenApply(answer -> answer);
+        }
+        CompletableFuture<String> upstream;
+        try {
+            upstream = call.get();
+        } catch (RuntimeException exception) {
+            IN_FLIGHT.remove(key, shared);
+            shared.completeExceptionally(exception);
+            return shared;
+        }
+        upstream.whenComplete((answer, error) -> {
+            IN_FLIGHT.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(answer);
+            }
+        });
+        return shared.thenApply(answer -> answer);
+    }
+
+    private static String normalize(String subject) {
+        if (subject == null) {
+            return "";
+        }
+        return subject.trim()
+                .toLowerCase(Locale.ROOT)
+                .replace('\u0451', '\u0435')
+                .replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,97 @@
+package ru.nekostul.aicompanion.aiproviders.yandexgpt;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class YandexGptTransport {
+    private static final int WORKER_COUNT = 2;
+    private static final int MAX_RETAINED_BUFFER_CHARS = 64 * 1024;
+    private static final int INITIAL_BUFFER_CHARS = 4 * 1024;
+    private static final Gson GSON = new Gson();
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(WORKER_COUNT, runnable -> {
+        Thread thread = new Thread(runnable, "AICompanion-Http-" + THREAD_ID.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ThreadLocal<StringBuilder> BODY_BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_CHARS));
+
+    private static HttpClient client;
+    private static int clientConnectTimeoutMs = -1;
+
+    private YandexGptTransport() {
+    }
+
+    static CompletableFuture<HttpResponse<String>> post(URI endpoint, String apiKey, JsonElement body,
+                                                        int connectTimeoutMs, int readTimeoutMs) {
+        return withDeadline(client(connectTimeoutMs).sendAsync(buildRequest(endpoint, apiKey, body, readTimeoutMs),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8)), connectTimeoutMs, readTimeoutMs);
+    }
+
+    static CompletableFuture<HttpResponse<Void>> postLines(URI endpoint, String apiKey, JsonElement body,
+                                                           int connectTimeoutMs, int readTimeoutMs,
+                                                           Flow.Subscriber<? super String> lineSubscriber) {
+        return withDeadline(client(connectTimeoutMs).sendAsync(buildRequest(endpoint, apiKey, body, readTimeoutMs),
+                HttpResponse.BodyHandlers.fromLineSubscriber(lineSubscriber)), connectTimeoutMs, readTimeoutMs);
+    }
+
+    private static <T> CompletableFuture<T> withDeadline(CompletableFuture<T> exchange, int connectTimeoutMs,
+                                                         int readTimeoutMs) {
+        long deadlineMs = (long) Math.max(1, connectTimeoutMs) + Math.max(1, readTimeoutMs);
+        CompletableFuture<T> result = exchange.copy().orTimeout(deadlineMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((response, exception) -> {
+            if (exception != null) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static HttpRequest buildRequest(URI endpoint, String apiKey, JsonElement body, int readTimeoutMs) {
+        return HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofMillis(Math.max(1, readTimeoutMs)))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Api-Key " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(encode(body)))
+                .build();
+    }
+
+    private static byte[] encode(JsonElement body) {
+        StringBuilder buffer = BODY_BUFFER.get();
+        buffer.setLength(0);
+        GSON.toJson(body, buffer);
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_CHARS) {
+            BODY_BUFFER.remove();
+        } else {
+            buffer.setLength(0);
+        }
+        return bytes;
+    }
+
+    private static synchronized HttpClient client(int connectTimeoutMs) {
+        if (client == null || clientConnectTimeoutMs != connectTimeoutMs) {
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(Math.max(1, connectTimeoutMs)))
+                    .executor(EXECUTOR)
+                    .build();
+            clientConnectTimeoutMs = connectTimeoutMs;
+        }
+        return client;
+    }
+}
@@ -3,12 +3,12 @@ package ru.nekostul.aicompanion.entity;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Player;
+import ru.nekostul.aicompanion.CompanionConfig;
 import ru.nekostul.aicompanion.aiproviders.yandexgpt.YandexGptClient;
 
 import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 final class CompanionAiChatController {
@@ -18,6 +18,7 @@ final class CompanionAiChatController {
     private static final String AI_NOT_CONFIGURED_KEY = "entity.aicompanion.companion.ai.not_configured";
     private static final String AI_DAILY_LIMIT_KEY = "entity.aicompanion.companion.ai.daily_limit";
     private static final String AI_FAILED_KEY = "entity.aicompanion.companion.ai.failed";
+    private static final String AI_BUSY_KEY = "entity.aicompanion.companion.ai.busy";
 
     private final CompanionEntity owner;
     private final Set<UUID> inFlightByPlayer = ConcurrentHashMap.newKeySet();
@@ -43,17 +44,30 @@ final class CompanionAiChatController {
             owner.sendReply(player, Component.translatable(AI_WAIT_KEY));
             return true;
         }
-        CompletableFuture
-                .supplyAsync(() -> YandexGptClient.ask(player, prompt))
-                .thenAccept(result -> completeOnServerThread(playerId, result))
+        boolean streamed = CompanionConfig.isYandexGptStreamEnabled();
+        YandexGptClient.askAsync(player, prompt,
+                        streamed ? chunk -> deliverPartialOnServerThread(playerId, chunk) : null)
+                .thenAccept(result -> completeOnServerThread(playerId, result, streamed))
                 .exceptionally(error -> {
-                    completeOnServerThread(playerId, null);
+                    completeOnServerThread(playerId, null, streamed);
                     return null;
                 });
         return true;
     }
 
-    private void completeOnServerThread(UUID playerId, YandexGptClient.Result result) {
+    private void deliverPartialOnServerThread(UUID playerId, String chunk) {
+        if (owner.getServer() == null) {
+            return;
+        }
+        owner.getServer().execute(() -> {
+            Player player = owner.getPlayerById(playerId);
+            if (player instanceof ServerPlayer serverPlayer && !serverPlayer.isSpectator()) {
+                owner.sendReply(serverPlayer, Component.literal(chunk));
+            }
+        });
+    }
+
+    private void completeOnServerThread(UUID playerId, YandexGptClient.Result result, boolean streamed) {
         if (owner.getServer() == null) {
             inFlightByPlayer.remove(playerId);
             return;
@@ -69,11 +83,16 @@ final class CompanionAiChatController {
                     return;
                 }
                 switch (result.status()) {
-                    case SUCCESS -> owner.sendReply(serverPlayer, Component.literal(result.text()));
+                    case SUCCESS -> {
+                        if (!streamed) {
+                            owner.sendReply(serverPlayer, Component.literal(result.text()));
+                        }
+                    }
                     case DISABLED -> owner.sendReply(serverPlayer, Component.translatable(AI_DISABLED_KEY));
                     case NOT_CONFIGURED -> owner.sendReply(serverPlayer, Component.translatable(AI_NOT_CONFIGURED_KEY));
                     case DAILY_LIMIT -> owner.sendReply(serverPlayer,
                             Component.translatable(AI_DAILY_LIMIT_KEY, result.remainingLimit()));
+                    case BUSY -> owner.sendReply(serverPlayer, Component.translatable(AI_BUSY_KEY));
                     case ERROR -> owner.sendReply(serverPlayer, Component.translatable(AI_FAILED_KEY));
                 }
             } finally {
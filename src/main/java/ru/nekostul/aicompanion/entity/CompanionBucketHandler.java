@@ -1,6 +1,7 @@
 package ru.nekostul.aicompanion.entity;
 
 import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.InteractionHand;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.ItemStack;
@@ -11,8 +12,14 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.HitResult;
 import net.minecraft.world.phys.Vec3;
+
+import java.util.List;
+
 import ru.nekostul.aicompanion.entity.inventory.CompanionInventory;
 import ru.nekostul.aicompanion.entity.movement.CompanionMovementSpeed;
+import ru.nekostul.aicompanion.entity.perf.CompanionTickProfiler;
+import ru.nekostul.aicompanion.entity.resource.CompanionFluidSources;
+import ru.nekostul.aicompanion.entity.resource.CompanionResourceIndex;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceRequest;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
 
@@ -33,11 +40,11 @@ final class CompanionBucketHandler {
     private static final int CHUNK_RADIUS = 6;
     private static final int FLUID_SCAN_RADIUS = CHUNK_RADIUS * 16;
     private static final int FLUID_SCAN_COOLDOWN_TICKS = 80;
-    private static final float FLUID_FOV_DOT = -1.0F;
     private static final double FLUID_USE_RANGE_SQR = 6.0D;
     private static final double MOVE_SPEED_BLOCKS_PER_TICK = 0.35D;
     private static final int FILL_COOLDOWN_TICKS = 10;
     private static final int HIDDEN_RESCAN_TICKS = 20;
+    private static final int INDEX_CANDIDATE_LIMIT = 16;
 
     private final CompanionEntity owner;
     private final CompanionInventory inventory;
@@ -49,6 +56,7 @@ final class CompanionBucketHandler {
     private boolean lastScanFound = true;
     private BlockPos lastMoveTarget;
     private long lastMoveAttemptTick = -1L;
+    private CompanionFluidSources.Search fluidSearch;
 
     CompanionBucketHandler(CompanionEntity owner, CompanionInventory inventory) {
         this.owner = owner;
@@ -87,7 +95,9 @@ final class CompanionBucketHandler {
             resetMoveTracking();
             return FillResult.IN_PROGRESS;
         }
+        long scanStart = CompanionTickProfiler.begin();
         BlockPos target = findFluidSource(request.getResourceType(), gameTime);
+        CompanionTickProfiler.end(CompanionTickProfiler.Section.SCAN, scanStart);
         if (target == null) {
             resetMoveTracking();
             if (gameTime == lastScanTick && !lastScanFound) {
@@ -171,51 +181,52 @@ final class CompanionBucketHandler {
         if (gameTime < nextScanTick) {
             return null;
         }
-        lastScanTick = gameTime;
-        lastScanFound = false;
         Vec3 eye = owner.getEyePosition();
-        Vec3 look = owner.getLookAngle().normalize();
         BlockPos origin = owner.blockPosition();
-        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
-        BlockPos bestVisible = null;
-        BlockPos bestHidden = null;
-        double bestVisibleDistance = Double.MAX_VALUE;
-        double bestHiddenDistance = Double.MAX_VALUE;
-
-        for (int dx = -FLUID_SCAN_RADIUS; dx <= FLUID_SCAN_RADIUS; dx++) {
-            for (int dy = -FLUID_SCAN_RADIUS; dy <= FLUID_SCAN_RADIUS; dy++) {
-                for (int dz = -FLUID_SCAN_RADIUS; dz <= FLUID_SCAN_RADIUS; dz++) {
-                    pos.set(origin.getX() + dx, origin.getY() + dy, origin.getZ() + dz);
-                    BlockState state = owner.level().getBlockState(pos);
-                    if (!type.matchesBlock(state)) {
-                        continue;
-                    }
-                    Vec3 targetCenter = Vec3.atCenterOf(pos);
-                    Vec3 toTarget = targetCenter.subtract(eye);
-                    double distanceSqr = owner.distanceToSqr(targetCenter);
-                    if (distanceSqr > (double) FLUID_SCAN_RADIUS * FLUID_SCAN_RADIUS) {
-                        continue;
-                    }
-                    if (look.dot(toTarget.normalize()) < FLUID_FOV_DOT) {
-                        continue;
-                    }
-                    boolean visible = hasLineOfSight(eye, targetCenter, pos);
-                    if (visible) {
-                        if (distanceSqr < bestVisibleDistance) {
-                            bestVisibleDistance = distanceSqr;
-                            bestVisible = pos.immutable();
-                        }
-                    } else if (distanceSqr < bestHiddenDistance) {
-                        bestHiddenDistance = distanceSqr;
-                        bestHidden = pos.immutable();
-                    }
-                }
+        if (CompanionResourceIndex.isIndexed(type) && owner.level() instanceof ServerLevel serverLevel) {
+            CompanionResourceIndex.Lookup lookup = CompanionResourceIndex.findNearest(serverLevel, type, origin,
+                    FLUID_SCAN_RADIUS, INDEX_CANDIDATE_LIMIT);
+            if (!lookup.isComplete()) {
+                return null;
             }
+            return finishFluidScan(selectIndexedFluidSource(lookup.getPositions(), eye), gameTime);
+        }
+        if (!(owner.level() instanceof ServerLevel serverLevel)) {
+            return finishFluidScan(null, gameTime);
         }
-        BlockPos best = bestVisible != null ? bestVisible : bestHidden;
-        if (best != null) {
-            lastScanFound = true;
+        if (fluidSearch == null || !fluidSearch.matches(serverLevel, type)) {
+            fluidSearch = CompanionFluidSources.start(serverLevel, type, origin, FLUID_SCAN_RADIUS,
+                    INDEX_CANDIDATE_LIMIT);
         }
+        if (!fluidSearch.step()) {
+            return null;
+        }
+        List<BlockPos> sources = fluidSearch.getResult();
+        fluidSearch = null;
+        return finishFluidScan(selectIndexedFluidSource(sources, eye), gameTime);
+    }
+
+    private BlockPos selectIndexedFluidSource(List<BlockPos> positions, Vec3 eye) {
+        BlockPos bestHidden = null;
+        double maxDistanceSqr = (double) FLUID_SCAN_RADIUS * FLUID_SCAN_RADIUS;
+        for (BlockPos pos : positions) {
+            Vec3 targetCenter = Vec3.atCenterOf(pos);
+            if (owner.distanceToSqr(targetCenter) > maxDistanceSqr) {
+                continue;
+            }
+            if (hasLineOfSight(eye, targetCenter, pos)) {
+                return pos;
+            }
+            if (bestHidden == null) {
+                bestHidden = pos;
+            }
+        }
+        return bestHidden;
+    }
+
+    private BlockPos finishFluidScan(BlockPos best, long gameTime) {
+        lastScanTick = gameTime;
+        lastScanFound = best != null;
         nextScanTick = gameTime + FLUID_SCAN_COOLDOWN_TICKS;
         cachedFluidPos = best;
         return best;
@@ -170,7 +170,7 @@ final class CompanionCombatController {
         AABB range = owner.getBoundingBox().inflate(DEFENSE_RADIUS);
         Monster nearest = null;
         double nearestDistance = Double.MAX_VALUE;
-        for (Monster monster : owner.level().getEntitiesOfClass(Monster.class, range)) {
+        for (Monster monster : owner.getEntitySnapshot().getEntitiesOfClass(Monster.class, range)) {
             if (!monster.isAlive()) {
                 continue;
             }
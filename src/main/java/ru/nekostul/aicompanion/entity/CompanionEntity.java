@@ -35,6 +35,9 @@ import net.minecraft.world.entity.ai.goal.OpenDoorGoal;
 import net.minecraft.world.entity.ai.goal.RandomLookAroundGoal;
 import net.minecraft.world.entity.ai.goal.WaterAvoidingRandomStrollGoal;
 import net.minecraft.world.entity.ai.navigation.GroundPathNavigation;
+import net.minecraft.world.entity.animal.Animal;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.entity.monster.Monster;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.entity.vehicle.Boat;
@@ -53,9 +56,7 @@ import net.minecraft.world.level.ClipContext;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.chunk.ChunkStatus;
 import net.minecraft.world.level.block.Blocks;
-import net.minecraft.world.level.block.DoorBlock;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.block.state.properties.DoubleBlockHalf;
 import net.minecraft.world.level.portal.PortalInfo;
 import net.minecraft.world.phys.BlockHitResult;
 import net.minecraft.world.phys.AABB;
@@ -76,9 +77,14 @@ import ru.nekostul.aicompanion.entity.inventory.CompanionDropTracker;
 import ru.nekostul.aicompanion.entity.inventory.CompanionEquipment;
 import ru.nekostul.aicompanion.entity.inventory.CompanionInventory;
 import ru.nekostul.aicompanion.entity.inventory.CompanionInventoryExchange;
+import ru.nekostul.aicompanion.entity.movement.CompanionDoorTracker;
 import ru.nekostul.aicompanion.entity.movement.CompanionMovementSpeed;
 import ru.nekostul.aicompanion.entity.movement.CompanionTeleportPositioning;
 import ru.nekostul.aicompanion.entity.mining.CompanionGatheringController;
+import ru.nekostul.aicompanion.entity.perf.CompanionTickProfiler;
+import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
+import ru.nekostul.aicompanion.entity.scan.CompanionEntitySnapshot;
+import ru.nekostul.aicompanion.entity.timer.CompanionCountdown;
 import ru.nekostul.aicompanion.entity.tool.CompanionToolHandler;
 import ru.nekostul.aicompanion.entity.tool.CompanionToolSlot;
 import ru.nekostul.aicompanion.entity.tree.CompanionTreeHarvestController;
@@ -87,7 +93,6 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -201,6 +206,9 @@ public class CompanionEntity extends PathfinderMob {
     private static final int TELEPORT_IGNORE_GRACE_TICKS = TELEPORT_MESSAGE_COOLDOWN_TICKS;
     private static final int INVENTORY_SIZE = 36;
     private static final int ITEM_PICKUP_RADIUS = 3;
+    private static final double ENTITY_SNAPSHOT_RADIUS = 16.0D;
+    private static final double TICK_LOD_OWNER_PROMOTE_DISTANCE_SQR = 16.0D * 16.0D;
+    private static final double TICK_LOD_NEAR_PLAYER_DISTANCE = 32.0D;
     private static final int ITEM_PICKUP_COOLDOWN_TICKS = 10;
     private static final int INVENTORY_OPEN_DOUBLE_CLICK_TICKS = 10;
     private static final int HOME_LEAVE_DISTANCE = 96;
@@ -234,9 +242,6 @@ public class CompanionEntity extends PathfinderMob {
     private static final double HOSTILE_PLAYER_CHASE_SPEED = 0.32D;
     private static final int HOSTILE_PLAYER_SECOND_HIT_COUNT = 3;
     private static final int SWING_DURATION_TICKS = 6;
-    private static final int DOUBLE_DOOR_SCAN_RADIUS = 2;
-    private static final double DOUBLE_DOOR_NEAR_DISTANCE_SQR = 9.0D;
-    private static final int DOUBLE_DOOR_CLOSE_DELAY_TICKS = 12;
 
     private static final EntityDataAccessor<ItemStack> TOOL_PICKAXE =
             SynchedEntityData.defineId(CompanionEntity.class, EntityDataSerializers.ITEM_STACK);
@@ -265,18 +270,17 @@ public class CompanionEntity extends PathfinderMob {
         private ChunkPos chunkPos;
         private final long untilTick;
         private final String messageKey;
-        private int lastSeconds;
+        private CompanionCountdown countdown;
 
         private PendingTeleportRequest(UUID companionId, ResourceKey<Level> levelKey, BlockPos originPos,
                                        ChunkPos chunkPos,
-                                       long untilTick, String messageKey, int lastSeconds) {
+                                       long untilTick, String messageKey) {
             this.companionId = companionId;
             this.levelKey = levelKey;
             this.originPos = originPos;
             this.chunkPos = chunkPos;
             this.untilTick = untilTick;
             this.messageKey = messageKey;
-            this.lastSeconds = lastSeconds;
         }
     }
 
@@ -304,18 +308,6 @@ public class CompanionEntity extends PathfinderMob {
         }
     }
 
-    private static final class ManagedDoubleDoor {
-        private final BlockPos firstLower;
-        private final BlockPos secondLower;
-        private long lastNearTick;
-
-        private ManagedDoubleDoor(BlockPos firstLower, BlockPos secondLower, long lastNearTick) {
-            this.firstLower = firstLower;
-            this.secondLower = secondLower;
-            this.lastNearTick = lastNearTick;
-        }
-    }
-
     private static String[] range(String prefix, int from, int to) {
         return java.util.stream.IntStream.rangeClosed(from, to)
                 .mapToObj(i -> prefix + i)
@@ -374,18 +366,14 @@ public class CompanionEntity extends PathfinderMob {
     private boolean stopHomeTriggered;
     private long lastHomeInteractTick = -10000L;
     private UUID pendingHomePlayerId;
-    private long pendingHomeUntilTick = -1L;
-    private int pendingHomeLastSeconds = -1;
+    private CompanionCountdown pendingHomeCountdown;
     private int pendingHomeDistance;
     private UUID pendingWherePlayerId;
-    private long pendingWhereUntilTick = -1L;
-    private int pendingWhereLastSeconds = -1;
+    private CompanionCountdown pendingWhereCountdown;
     private UUID pendingFollowPlayerId;
-    private long pendingFollowUntilTick = -1L;
-    private int pendingFollowLastSeconds = -1;
+    private CompanionCountdown pendingFollowCountdown;
     private UUID pendingBoatPlayerId;
-    private long pendingBoatUntilTick = -1L;
-    private int pendingBoatLastSeconds = -1;
+    private CompanionCountdown pendingBoatCountdown;
     private long nextBoatRequestTick = -1L;
     private final Map<UUID, Long> whereCooldowns = new HashMap<>();
     private final Map<UUID, Long> pendingInventoryOpenClicks = new HashMap<>();
@@ -407,7 +395,10 @@ public class CompanionEntity extends PathfinderMob {
     private long hostilePlayerLastPathTick = -1L;
     private UUID ownerId;
     private final Set<UUID> partyMembers = new HashSet<>();
-    private final Map<String, ManagedDoubleDoor> trackedDoubleDoors = new HashMap<>();
+    private final CompanionDoorTracker doorTracker = new CompanionDoorTracker(this);
+    private final CompanionEntitySnapshot entitySnapshot = new CompanionEntitySnapshot(this, ENTITY_SNAPSHOT_RADIUS,
+            Monster.class, Animal.class, ItemEntity.class);
+    private final CompanionTickLod tickLod = new CompanionTickLod(this.getId());
 
     public CompanionEntity(EntityType<? extends PathfinderMob> type, Level level) {
         super(type, level);
@@ -455,7 +446,7 @@ public class CompanionEntity extends PathfinderMob {
         if (!this.level().isClientSide) {
             ensureOwnerFromNearby();
         }
-        CompanionSingleNpcManager.register(this);
+        CompanionManager.register(this);
     }
 
     @Override
@@ -539,6 +530,30 @@ public class CompanionEntity extends PathfinderMob {
         return isOwnerPlayer(player);
     }
 
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public Set<UUID> getPartyMemberIds() {
+        return Collections.unmodifiableSet(partyMembers);
+    }
+
+    public CompanionEntitySnapshot getEntitySnapshot() {
+        return entitySnapshot;
+    }
+
+    public boolean claimBy(ServerPlayer player) {
+        return !this.level().isClientSide && ensureOwner(player);
+    }
+
+    public boolean startResourceTask(ServerPlayer player, CompanionResourceType type, int amount) {
+        if (!canPlayerControl(player) || recoveringAfterDeathAtHome) {
+            return false;
+        }
+        promoteTickLod();
+        return this.taskCoordinator.startResourceTask(player, type, amount);
+    }
+
     public void onOwnerDeath(ServerPlayer ownerPlayer, BlockPos deathPos) {
         if (this.level().isClientSide || ownerPlayer == null || deathPos == null || !this.isAlive()) {
             return;
@@ -567,6 +582,7 @@ public class CompanionEntity extends PathfinderMob {
         }
         if (ownerId == null) {
             ownerId = player.getUUID();
+            CompanionRegistry.onMembershipChanged(this);
             return true;
         }
         if (ownerId.equals(player.getUUID())) {
@@ -588,6 +604,7 @@ public class CompanionEntity extends PathfinderMob {
         }
         boolean added = partyMembers.add(member.getUUID());
         if (added) {
+            CompanionRegistry.onMembershipChanged(this);
             sendReply(owner, Component.literal("Игрок " + member.getGameProfile().getName() + " добавлен в пати."));
         }
         return added;
@@ -599,6 +616,7 @@ public class CompanionEntity extends PathfinderMob {
         }
         boolean removed = partyMembers.remove(member.getUUID());
         if (removed) {
+            CompanionRegistry.onMembershipChanged(this);
             sendReply(owner, Component.literal("Игрок " + member.getGameProfile().getName() + " удалён из пати."));
         }
         return removed;
@@ -608,6 +626,7 @@ public class CompanionEntity extends PathfinderMob {
         if (!canPlayerControl(player)) {
             return false;
         }
+        promoteTickLod();
         if (recoveringAfterDeathAtHome) {
             return true;
         }
@@ -775,6 +794,7 @@ public class CompanionEntity extends PathfinderMob {
         if (player == null) {
             return false;
         }
+        promoteTickLod();
         if (!canPlayerControl(player)) {
             return true;
         }
@@ -813,6 +833,7 @@ public class CompanionEntity extends PathfinderMob {
         if (player == null) {
             return false;
         }
+        promoteTickLod();
         if (!canPlayerControl(player)) {
             return true;
         }
@@ -837,15 +858,10 @@ public class CompanionEntity extends PathfinderMob {
         if (player == null) {
             return false;
         }
+        promoteTickLod();
         if (pendingHomePlayerId == null || !pendingHomePlayerId.equals(player.getUUID())) {
             return false;
         }
-        long gameTime = getServerTick();
-        if (gameTime >= pendingHomeUntilTick) {
-            sendTimedMessageRemoval(TELEPORT_IGNORE_HOME_KEY, pendingHomePlayerId);
-            clearHomeRequest();
-            return false;
-        }
         sendTimedMessageRemoval(TELEPORT_IGNORE_HOME_KEY, pendingHomePlayerId);
         if (!accepted) {
             clearHomeRequest();
@@ -860,15 +876,11 @@ public class CompanionEntity extends PathfinderMob {
         if (player == null) {
             return false;
         }
+        promoteTickLod();
         if (pendingBoatPlayerId == null || !pendingBoatPlayerId.equals(player.getUUID())) {
             return false;
         }
         long gameTime = this.level().getGameTime();
-        if (gameTime >= pendingBoatUntilTick) {
-            clearBoatRideRequest(true);
-            nextBoatRequestTick = gameTime + BOAT_REQUEST_COOLDOWN_TICKS;
-            return false;
-        }
         clearBoatRideRequest(true);
         nextBoatRequestTick = gameTime + BOAT_REQUEST_COOLDOWN_TICKS;
         if (!accepted || player.level() != this.level()) {
@@ -903,7 +915,7 @@ public class CompanionEntity extends PathfinderMob {
         long gameTime = getServerTick();
         long untilTick = gameTime + DIMENSION_TELEPORT_TICKS;
         int secondsLeft = secondsLeftStatic(untilTick, gameTime);
-        if (!registerPendingTeleportRequest(player, DIMENSION_TELEPORT_REQUEST_KEY, untilTick, secondsLeft)) {
+        if (!registerPendingTeleportRequest(player, DIMENSION_TELEPORT_REQUEST_KEY, untilTick, gameTime)) {
             return;
         }
         sendDimensionTeleportMessage(player, secondsLeft);
@@ -913,6 +925,7 @@ public class CompanionEntity extends PathfinderMob {
         if (player == null) {
             return false;
         }
+        promoteTickLod();
         if (!canPlayerControl(player)) {
             return true;
         }
@@ -942,6 +955,7 @@ public class CompanionEntity extends PathfinderMob {
         if (player == null) {
             return false;
         }
+        promoteTickLod();
         if (!canPlayerControl(player)) {
             return true;
         }
@@ -962,11 +976,14 @@ public class CompanionEntity extends PathfinderMob {
         if (player == null || player.server == null) {
             return false;
         }
-        CompanionSingleNpcManager.ensureLoaded(player.server);
-        UUID companionId = CompanionSingleNpcManager.getActiveId();
-        ResourceKey<Level> levelKey = CompanionSingleNpcManager.getActiveDimension();
-        BlockPos lastPos = CompanionSingleNpcManager.getLastKnownPos();
-        if (companionId == null || levelKey == null || lastPos == null) {
+        CompanionManager.Tracked tracked = CompanionManager.getTrackedFor(player);
+        if (tracked == null) {
+            return false;
+        }
+        UUID companionId = tracked.getCompanionId();
+        ResourceKey<Level> levelKey = tracked.getDimension();
+        BlockPos lastPos = tracked.getLastKnownPos();
+        if (levelKey == null || lastPos == null) {
             return false;
         }
         ServerLevel level = player.server.getLevel(levelKey);
@@ -989,7 +1006,7 @@ public class CompanionEntity extends PathfinderMob {
         PENDING_TELEPORT_REQUESTS.remove(player.getUUID());
         PENDING_TELEPORTS.remove(player.getUUID());
         APPROVED_WHERE_TELEPORTS.remove(player.getUUID());
-        registerPendingTeleportRequest(player, companionId, levelKey, lastPos, WHERE_STATUS_KEY, untilTick, secondsLeft);
+        registerPendingTeleportRequest(player, companionId, levelKey, lastPos, WHERE_STATUS_KEY, untilTick, gameTime);
         sendWhereMessageFallback(player, lastPos, secondsLeft);
         return true;
     }
@@ -1000,6 +1017,7 @@ public class CompanionEntity extends PathfinderMob {
         }
         if (ownerId == null) {
             ownerId = player.getUUID();
+            CompanionRegistry.onMembershipChanged(this);
             return true;
         }
         return ownerId.equals(player.getUUID());
@@ -1012,6 +1030,7 @@ public class CompanionEntity extends PathfinderMob {
         Player nearest = this.level().getNearestPlayer(this, 8.0D);
         if (nearest instanceof ServerPlayer serverPlayer && !serverPlayer.isSpectator()) {
             ownerId = serverPlayer.getUUID();
+            CompanionRegistry.onMembershipChanged(this);
         }
     }
 
@@ -1211,14 +1230,12 @@ public class CompanionEntity extends PathfinderMob {
     }
 
     private void requestHomeConfirmation(ServerPlayer player, int distance) {
-        long gameTime = this.level().getGameTime();
+        clearHomeRequest();
         pendingHomePlayerId = player.getUUID();
-        pendingHomeUntilTick = gameTime + HOME_CONFIRM_TICKS;
-        pendingHomeLastSeconds = -1;
         pendingHomeDistance = distance;
-        int secondsLeft = secondsLeft(pendingHomeUntilTick, gameTime);
-        sendHomeConfirmMessage(player, secondsLeft);
-        pendingHomeLastSeconds = secondsLeft;
+        pendingHomeCountdown = CompanionCountdown.start(HOME_CONFIRM_TICKS, this::onHomeConfirmationSecond,
+                this::onHomeConfirmationExpired);
+        sendHomeConfirmMessage(player, pendingHomeCountdown.getSecondsLeft());
     }
 
     private void sendHomeConfirmMessage(ServerPlayer player, int secondsLeft) {
@@ -1234,11 +1251,9 @@ public class CompanionEntity extends PathfinderMob {
     private void requestFollowConfirmation(ServerPlayer player, long gameTime) {
         clearFollowRequest(false);
         pendingFollowPlayerId = player.getUUID();
-        pendingFollowUntilTick = gameTime + HOME_FOLLOW_TICKS;
-        pendingFollowLastSeconds = -1;
-        int secondsLeft = secondsLeft(pendingFollowUntilTick, gameTime);
-        sendFollowMessage(player, secondsLeft);
-        pendingFollowLastSeconds = secondsLeft;
+        pendingFollowCountdown = CompanionCountdown.start(HOME_FOLLOW_TICKS, this::onFollowRequestSecond,
+                () -> clearFollowRequest(true));
+        sendFollowMessage(player, pendingFollowCountdown.getSecondsLeft());
     }
 
     private void sendFollowMessage(ServerPlayer player, int secondsLeft) {
@@ -1253,11 +1268,9 @@ public class CompanionEntity extends PathfinderMob {
     private void requestBoatRide(ServerPlayer player, long gameTime) {
         clearBoatRideRequest(false);
         pendingBoatPlayerId = player.getUUID();
-        pendingBoatUntilTick = gameTime + BOAT_REQUEST_TICKS;
-        pendingBoatLastSeconds = -1;
-        int secondsLeft = secondsLeft(pendingBoatUntilTick, gameTime);
-        sendBoatRideMessage(player, secondsLeft);
-        pendingBoatLastSeconds = secondsLeft;
+        pendingBoatCountdown = CompanionCountdown.start(BOAT_REQUEST_TICKS, this::onBoatRideRequestSecond,
+                this::onBoatRideRequestExpired);
+        sendBoatRideMessage(player, pendingBoatCountdown.getSecondsLeft());
     }
 
     private void sendBoatRideMessage(ServerPlayer player, int secondsLeft) {
@@ -1274,35 +1287,30 @@ public class CompanionEntity extends PathfinderMob {
             sendTimedMessageRemoval(TELEPORT_IGNORE_BOAT_KEY, pendingBoatPlayerId);
         }
         pendingBoatPlayerId = null;
-        pendingBoatUntilTick = -1L;
-        pendingBoatLastSeconds = -1;
+        CompanionCountdown.cancel(pendingBoatCountdown);
+        pendingBoatCountdown = null;
     }
 
     private void clearHomeRequest() {
         pendingHomePlayerId = null;
-        pendingHomeUntilTick = -1L;
-        pendingHomeLastSeconds = -1;
+        CompanionCountdown.cancel(pendingHomeCountdown);
+        pendingHomeCountdown = null;
         pendingHomeDistance = 0;
     }
 
     private void requestWhereTeleport(ServerPlayer player, long gameTime) {
         clearWhereRequest();
-        pendingWherePlayerId = player.getUUID();
-        pendingWhereUntilTick = gameTime + WHERE_TELEPORT_TICKS;
-        pendingWhereLastSeconds = -1;
         PENDING_TELEPORT_REQUESTS.remove(player.getUUID());
         PENDING_TELEPORTS.remove(player.getUUID());
         APPROVED_DIMENSION_TELEPORTS.remove(player.getUUID());
         APPROVED_WHERE_TELEPORTS.remove(player.getUUID());
-        int secondsLeft = secondsLeft(pendingWhereUntilTick, gameTime);
-        if (!registerPendingTeleportRequest(player, WHERE_STATUS_KEY, pendingWhereUntilTick, secondsLeft)) {
-            pendingWherePlayerId = null;
-            pendingWhereUntilTick = -1L;
-            pendingWhereLastSeconds = -1;
+        if (!registerPendingTeleportRequest(player, WHERE_STATUS_KEY, gameTime + WHERE_TELEPORT_TICKS, gameTime)) {
             return;
         }
-        sendWhereMessage(player, secondsLeft);
-        pendingWhereLastSeconds = secondsLeft;
+        pendingWherePlayerId = player.getUUID();
+        pendingWhereCountdown = CompanionCountdown.start(WHERE_TELEPORT_TICKS, this::onWhereRequestSecond,
+                this::clearWhereRequest);
+        sendWhereMessage(player, pendingWhereCountdown.getSecondsLeft());
     }
 
     private void sendWhereMessage(ServerPlayer player, int secondsLeft) {
@@ -1351,8 +1359,8 @@ public class CompanionEntity extends PathfinderMob {
             sendTimedMessageRemoval(TELEPORT_IGNORE_WHERE_KEY, pendingWherePlayerId);
         }
         pendingWherePlayerId = null;
-        pendingWhereUntilTick = -1L;
-        pendingWhereLastSeconds = -1;
+        CompanionCountdown.cancel(pendingWhereCountdown);
+        pendingWhereCountdown = null;
     }
 
     private void clearFollowRequest(boolean notifyRemove) {
@@ -1360,8 +1368,8 @@ public class CompanionEntity extends PathfinderMob {
             sendTimedMessageRemoval(TELEPORT_IGNORE_FOLLOW_KEY, pendingFollowPlayerId);
         }
         pendingFollowPlayerId = null;
-        pendingFollowUntilTick = -1L;
-        pendingFollowLastSeconds = -1;
+        CompanionCountdown.cancel(pendingFollowCountdown);
+        pendingFollowCountdown = null;
     }
 
     private void sendTimedMessageRemoval(String key, UUID playerId) {
@@ -1375,72 +1383,36 @@ public class CompanionEntity extends PathfinderMob {
     }
 
     private void tickHomeRequests(long gameTime) {
-        tickHomeConfirmation(gameTime);
-        tickWhereRequest(gameTime);
-        tickFollowRequest(gameTime);
         tickStopHomeReturn(gameTime);
     }
 
-    private void tickHomeConfirmation(long gameTime) {
-        if (pendingHomePlayerId == null) {
-            return;
-        }
-        Player player = getPlayerById(pendingHomePlayerId);
-        if (!(player instanceof ServerPlayer serverPlayer)) {
-            clearHomeRequest();
-            return;
-        }
-        if (gameTime >= pendingHomeUntilTick) {
-            sendTimedMessageRemoval(TELEPORT_IGNORE_HOME_KEY, pendingHomePlayerId);
+    private void onHomeConfirmationSecond(int secondsLeft) {
+        if (!(getPlayerById(pendingHomePlayerId) instanceof ServerPlayer serverPlayer) || this.isRemoved()) {
             clearHomeRequest();
             return;
         }
-        int secondsLeft = secondsLeft(pendingHomeUntilTick, gameTime);
-        if (secondsLeft != pendingHomeLastSeconds) {
-            pendingHomeLastSeconds = secondsLeft;
-            sendHomeConfirmMessage(serverPlayer, secondsLeft);
-        }
+        sendHomeConfirmMessage(serverPlayer, secondsLeft);
     }
 
-    private void tickWhereRequest(long gameTime) {
-        if (pendingWherePlayerId == null) {
-            return;
-        }
-        Player player = getPlayerById(pendingWherePlayerId);
-        if (!(player instanceof ServerPlayer serverPlayer)) {
-            clearWhereRequest();
-            return;
-        }
-        long serverTick = getServerTick();
-        if (serverTick >= pendingWhereUntilTick) {
+    private void onHomeConfirmationExpired() {
+        sendTimedMessageRemoval(TELEPORT_IGNORE_HOME_KEY, pendingHomePlayerId);
+        clearHomeRequest();
+    }
+
+    private void onWhereRequestSecond(int secondsLeft) {
+        if (!(getPlayerById(pendingWherePlayerId) instanceof ServerPlayer serverPlayer) || this.isRemoved()) {
             clearWhereRequest();
             return;
         }
-        int secondsLeft = secondsLeft(pendingWhereUntilTick, serverTick);
-        if (secondsLeft != pendingWhereLastSeconds) {
-            pendingWhereLastSeconds = secondsLeft;
-            sendWhereMessage(serverPlayer, secondsLeft);
-        }
+        sendWhereMessage(serverPlayer, secondsLeft);
     }
 
-    private void tickFollowRequest(long gameTime) {
-        if (pendingFollowPlayerId == null) {
-            return;
-        }
-        Player player = getPlayerById(pendingFollowPlayerId);
-        if (!(player instanceof ServerPlayer serverPlayer)) {
+    private void onFollowRequestSecond(int secondsLeft) {
+        if (!(getPlayerById(pendingFollowPlayerId) instanceof ServerPlayer serverPlayer) || this.isRemoved()) {
             clearFollowRequest(false);
             return;
         }
-        if (gameTime >= pendingFollowUntilTick) {
-            clearFollowRequest(true);
-            return;
-        }
-        int secondsLeft = secondsLeft(pendingFollowUntilTick, gameTime);
-        if (secondsLeft != pendingFollowLastSeconds) {
-            pendingFollowLastSeconds = secondsLeft;
-            sendFollowMessage(serverPlayer, secondsLeft);
-        }
+        sendFollowMessage(serverPlayer, secondsLeft);
     }
 
     private void tickBoatRideRequest(long gameTime) {
@@ -1479,7 +1451,7 @@ public class CompanionEntity extends PathfinderMob {
             return;
         }
         if (pendingBoatPlayerId != null) {
-            tickPendingBoatRideRequest(gameTime);
+            tickPendingBoatRideRequest();
             return;
         }
         if (nextBoatRequestTick >= 0L && gameTime < nextBoatRequestTick) {
@@ -1488,7 +1460,7 @@ public class CompanionEntity extends PathfinderMob {
         requestBoatRide(ownerPlayer, gameTime);
     }
 
-    private void tickPendingBoatRideRequest(long gameTime) {
+    private void tickPendingBoatRideRequest() {
         if (pendingBoatPlayerId == null) {
             return;
         }
@@ -1501,18 +1473,20 @@ public class CompanionEntity extends PathfinderMob {
                 || serverPlayer.level() != this.level()
                 || !canBoardBoat(boat)) {
             clearBoatRideRequest(true);
-            return;
         }
-        if (gameTime >= pendingBoatUntilTick) {
-            clearBoatRideRequest(true);
-            nextBoatRequestTick = gameTime + BOAT_REQUEST_COOLDOWN_TICKS;
+    }
+
+    private void onBoatRideRequestSecond(int secondsLeft) {
+        if (!(getPlayerById(pendingBoatPlayerId) instanceof ServerPlayer serverPlayer) || this.isRemoved()) {
+            clearBoatRideRequest(false);
             return;
         }
-        int secondsLeft = secondsLeft(pendingBoatUntilTick, gameTime);
-        if (secondsLeft != pendingBoatLastSeconds) {
-            pendingBoatLastSeconds = secondsLeft;
-            sendBoatRideMessage(serverPlayer, secondsLeft);
-        }
+        sendBoatRideMessage(serverPlayer, secondsLeft);
+    }
+
+    private void onBoatRideRequestExpired() {
+        clearBoatRideRequest(true);
+        nextBoatRequestTick = this.level().getGameTime() + BOAT_REQUEST_COOLDOWN_TICKS;
     }
 
     private ServerPlayer resolveBoatOwner() {
@@ -1985,6 +1959,7 @@ public class CompanionEntity extends PathfinderMob {
             } catch (IllegalArgumentException ignored) {
             }
         }
+        CompanionRegistry.onMembershipChanged(this);
         if (!this.level().isClientSide) {
             restoreToolSlotsFromHand();
             migrateDedicatedItemsFromInventory();
@@ -1999,10 +1974,10 @@ public class CompanionEntity extends PathfinderMob {
             this.deathTime = 0;
         }
         if (!this.level().isClientSide) {
+            long aiStepStart = CompanionTickProfiler.begin();
             long gameTime = this.level().getGameTime();
             Player ownerPlayer = resolveFollowOwnerPlayer();
-            CompanionSingleNpcManager.updateState(this, this.taskCoordinator.isBusy(),
-                    this.lastTeleportCycleTick, this.lastTeleportOriginalTick);
+            CompanionManager.updateState(this, this.taskCoordinator.isBusy());
             tickSetHomeCooldown(gameTime, null);
             boolean atHome = isAtHome();
             boolean wasAtHomeBeforeTick = wasAtHome;
@@ -2034,30 +2009,61 @@ public class CompanionEntity extends PathfinderMob {
                 tickHomeRegen(gameTime);
                 syncHungerFullFlag();
                 tickAmbientChat();
+                CompanionTickProfiler.end(CompanionTickProfiler.Section.AI_STEP, aiStepStart);
                 return;
             }
             tickGreeting();
-            tickItemPickup();
-            inventoryExchange.tickPendingDropAll(gameTime);
-            inventoryExchange.tickToolDropNotice(gameTime);
-            inventoryExchange.tickDropAllCatchup(gameTime);
-            tickHomeRequests(gameTime);
-            boolean urgentOwnerDefense = tryUrgentOwnerDefense(gameTime);
+            updateTickLod(gameTime, ownerPlayer);
+            long sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.STATE, aiStepStart);
+            if (tickLod.shouldRun(CompanionTickLod.Subsystem.ITEM_PICKUP, gameTime)) {
+                tickItemPickup();
+            }
+            sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.ITEM_PICKUP, sectionStart);
+            if (tickLod.shouldRun(CompanionTickLod.Subsystem.INVENTORY_EXCHANGE, gameTime)) {
+                inventoryExchange.tickPendingDropAll(gameTime);
+                inventoryExchange.tickDropAllCatchup(gameTime);
+            }
+            sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.INVENTORY_EXCHANGE, sectionStart);
+            if (tickLod.shouldRun(CompanionTickLod.Subsystem.HOME_REQUESTS, gameTime)) {
+                tickHomeRequests(gameTime);
+            }
+            sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.HOME_REQUESTS, sectionStart);
+            boolean urgentOwnerDefense = tickLod.shouldRun(CompanionTickLod.Subsystem.OWNER_DEFENSE, gameTime)
+                    && tryUrgentOwnerDefense(gameTime);
+            sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.OWNER_DEFENSE, sectionStart);
             if (urgentOwnerDefense) {
                 // Urgent owner protection has priority over any current activity.
+                tickLod.promote(gameTime);
             } else if (returningHome) {
                 tickHomeReturn(gameTime);
-            } else {
+                sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.HOME_RETURN, sectionStart);
+            } else if (tickLod.shouldRun(CompanionTickLod.Subsystem.AUTONOMOUS, gameTime)) {
                 tickAutonomousBehavior();
+                sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.AUTONOMOUS, sectionStart);
+            }
+            if (tickLod.shouldRun(CompanionTickLod.Subsystem.HUNGER, gameTime)) {
+                this.hungerSystem.tick(ownerPlayer, gameTime);
+                sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.HUNGER, sectionStart);
+                tickHomeRegen(gameTime);
+                syncHungerFullFlag();
+                sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.HOME_REGEN, sectionStart);
             }
-            this.hungerSystem.tick(ownerPlayer, gameTime);
-            tickHomeRegen(gameTime);
-            syncHungerFullFlag();
             tickAmbientChat();
-            tickBoatRideRequest(gameTime);
-            hideSwordWhileInBoat();
-            syncAdjacentDoubleDoors();
-            tickTeleportRequest();
+            sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.AMBIENT_CHAT, sectionStart);
+            if (tickLod.shouldRun(CompanionTickLod.Subsystem.BOAT, gameTime)) {
+                tickBoatRideRequest(gameTime);
+                hideSwordWhileInBoat();
+            }
+            sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.BOAT, sectionStart);
+            if (tickLod.shouldRun(CompanionTickLod.Subsystem.DOORS, gameTime)) {
+                syncAdjacentDoubleDoors();
+            }
+            sectionStart = CompanionTickProfiler.lap(CompanionTickProfiler.Section.DOORS, sectionStart);
+            if (tickLod.shouldRun(CompanionTickLod.Subsystem.TELEPORT, gameTime)) {
+                tickTeleportRequest();
+            }
+            CompanionTickProfiler.lap(CompanionTickProfiler.Section.TELEPORT, sectionStart);
+            CompanionTickProfiler.end(CompanionTickProfiler.Section.AI_STEP, aiStepStart);
         }
     }
 
@@ -2120,6 +2126,7 @@ public class CompanionEntity extends PathfinderMob {
     }
 
     public InteractionResult mobInteract(Player player, InteractionHand hand) {
+        promoteTickLod();
         if (hand == InteractionHand.MAIN_HAND && player.isShiftKeyDown()) {
             if (this.level().isClientSide) {
                 return InteractionResult.SUCCESS;
@@ -2186,6 +2193,7 @@ public class CompanionEntity extends PathfinderMob {
         int[] armorBefore = snapshotArmorDamage();
         boolean result = super.hurt(source, amount);
         if (result && !this.level().isClientSide) {
+            promoteTickLod();
             ensureArmorDurability(source, amount, armorBefore);
             if (this.isAlive()
                     && source.getEntity() instanceof Player
@@ -2271,8 +2279,14 @@ public class CompanionEntity extends PathfinderMob {
             clearWhereRequest();
             clearFollowRequest(false);
             clearBoatRideRequest(true);
+        } else {
+            clearHomeRequest();
+            clearFollowRequest(false);
+            clearBoatRideRequest(false);
+            CompanionCountdown.cancel(pendingWhereCountdown);
+            pendingWhereCountdown = null;
         }
-        CompanionSingleNpcManager.unregister(this);
+        CompanionManager.unregister(this, reason);
         super.remove(reason);
     }
 
@@ -2369,7 +2383,7 @@ public class CompanionEntity extends PathfinderMob {
             return;
         }
         for (net.minecraft.world.entity.item.ItemEntity itemEntity
-                : this.level().getEntitiesOfClass(net.minecraft.world.entity.item.ItemEntity.class, range)) {
+                : this.entitySnapshot.getEntitiesOfClass(ItemEntity.class, range)) {
             if (!itemEntity.isAlive()) {
                 continue;
             }
@@ -2706,169 +2720,58 @@ public class CompanionEntity extends PathfinderMob {
         return;
     }
 
-    private void syncAdjacentDoubleDoors() {
-        if (this.level().isClientSide || !this.isAlive()) {
+    private void updateTickLod(long gameTime, Player ownerPlayer) {
+        if (ownerPlayer != null && ownerPlayer.level() == this.level()
+                && this.distanceToSqr(ownerPlayer) <= TICK_LOD_OWNER_PROMOTE_DISTANCE_SQR) {
+            tickLod.promote(gameTime);
             return;
         }
-        long gameTime = this.level().getGameTime();
-        trackAndSyncNearbyDoubleDoors(gameTime);
-        closeTrackedDoubleDoorsWhenFar(gameTime);
-    }
-
-    private void trackAndSyncNearbyDoubleDoors(long gameTime) {
-        BlockPos base = this.blockPosition();
-        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
-        Set<String> seenPairs = new HashSet<>();
-        for (int dy = -1; dy <= 1; dy++) {
-            for (int dx = -DOUBLE_DOOR_SCAN_RADIUS; dx <= DOUBLE_DOOR_SCAN_RADIUS; dx++) {
-                for (int dz = -DOUBLE_DOOR_SCAN_RADIUS; dz <= DOUBLE_DOOR_SCAN_RADIUS; dz++) {
-                    cursor.set(base.getX() + dx, base.getY() + dy, base.getZ() + dz);
-                    BlockState state = this.level().getBlockState(cursor);
-                    if (!isLowerDoorState(state)) {
-                        continue;
-                    }
-                    Direction facing = state.getValue(DoorBlock.FACING);
-                    for (Direction direction : Direction.Plane.HORIZONTAL) {
-                        BlockPos neighborPos = cursor.relative(direction);
-                        BlockState neighborState = this.level().getBlockState(neighborPos);
-                        if (!isLowerDoorState(neighborState)) {
-                            continue;
-                        }
-                        if (neighborState.getValue(DoorBlock.FACING) != facing) {
-                            continue;
-                        }
-                        if (!neighborState.hasProperty(DoorBlock.OPEN)) {
-                            continue;
-                        }
-                        BlockPos first = cursor.immutable();
-                        BlockPos second = neighborPos.immutable();
-                        String key = doubleDoorPairKey(first, second);
-                        if (!seenPairs.add(key)) {
-                            continue;
-                        }
-                        boolean shouldOpen = state.getValue(DoorBlock.OPEN) || neighborState.getValue(DoorBlock.OPEN);
-                        setDoorPairOpenState(first, second, shouldOpen);
-                        ManagedDoubleDoor tracked = trackedDoubleDoors.get(key);
-                        if (tracked == null) {
-                            trackedDoubleDoors.put(key, new ManagedDoubleDoor(canonicalFirst(first, second),
-                                    canonicalSecond(first, second), gameTime));
-                        } else {
-                            tracked.lastNearTick = gameTime;
-                        }
-                    }
-                }
-            }
+        if (tickLod.shouldEvaluate(gameTime)) {
+            tickLod.setLevel(resolveTickLodLevel(gameTime), gameTime);
         }
     }
 
-    private boolean isLowerDoorState(BlockState state) {
-        if (!(state.getBlock() instanceof DoorBlock)) {
-            return false;
+    private CompanionTickLod.Level resolveTickLodLevel(long gameTime) {
+        if (returningHome
+                || this.taskCoordinator.isBusy()
+                || hostilePlayerTargetId != null
+                || treeHarvestController.isTreeChopInProgress()
+                || combatController.isEngaged(gameTime)
+                || hasPendingPlayerRequest()) {
+            return CompanionTickLod.Level.ACTIVE;
         }
-        if (!state.hasProperty(DoorBlock.HALF) || !state.hasProperty(DoorBlock.OPEN)
-                || !state.hasProperty(DoorBlock.FACING)) {
-            return false;
+        if (isHomePositionLocked()) {
+            return CompanionTickLod.Level.HOME_LOCKED;
         }
-        return state.getValue(DoorBlock.HALF) == DoubleBlockHalf.LOWER;
-    }
-
-    private void closeTrackedDoubleDoorsWhenFar(long gameTime) {
-        if (trackedDoubleDoors.isEmpty()) {
-            return;
+        if (this.level().getNearestPlayer(this, TICK_LOD_NEAR_PLAYER_DISTANCE) == null) {
+            return CompanionTickLod.Level.IDLE_FAR;
         }
-        Iterator<Map.Entry<String, ManagedDoubleDoor>> iterator = trackedDoubleDoors.entrySet().iterator();
-        while (iterator.hasNext()) {
-            ManagedDoubleDoor tracked = iterator.next().getValue();
-            if (tracked == null) {
-                iterator.remove();
-                continue;
-            }
-            BlockState firstState = this.level().getBlockState(tracked.firstLower);
-            BlockState secondState = this.level().getBlockState(tracked.secondLower);
-            if (!isLowerDoorState(firstState) || !isLowerDoorState(secondState)) {
-                iterator.remove();
-                continue;
-            }
-            boolean eitherOpen = firstState.getValue(DoorBlock.OPEN) || secondState.getValue(DoorBlock.OPEN);
-            if (!eitherOpen) {
-                iterator.remove();
-                continue;
-            }
-            double distanceToFirst = this.distanceToSqr(
-                    tracked.firstLower.getX() + 0.5D,
-                    tracked.firstLower.getY(),
-                    tracked.firstLower.getZ() + 0.5D
-            );
-            double distanceToSecond = this.distanceToSqr(
-                    tracked.secondLower.getX() + 0.5D,
-                    tracked.secondLower.getY(),
-                    tracked.secondLower.getZ() + 0.5D
-            );
-            double nearestDistance = Math.min(distanceToFirst, distanceToSecond);
-            if (nearestDistance <= DOUBLE_DOOR_NEAR_DISTANCE_SQR) {
-                tracked.lastNearTick = gameTime;
-                continue;
-            }
-            if (gameTime - tracked.lastNearTick < DOUBLE_DOOR_CLOSE_DELAY_TICKS) {
-                continue;
-            }
-            setDoorPairOpenState(tracked.firstLower, tracked.secondLower, false);
-            iterator.remove();
-        }
-    }
-
-    private void setDoorPairOpenState(BlockPos firstLower, BlockPos secondLower, boolean open) {
-        setDoorOpenState(firstLower, open);
-        setDoorOpenState(secondLower, open);
+        return this.mode == CompanionMode.STOPPED ? CompanionTickLod.Level.IDLE_NEAR : CompanionTickLod.Level.ACTIVE;
     }
 
-    private String doubleDoorPairKey(BlockPos first, BlockPos second) {
-        if (first == null || second == null) {
-            return "";
-        }
-        BlockPos canonicalFirst = canonicalFirst(first, second);
-        BlockPos canonicalSecond = canonicalSecond(first, second);
-        return canonicalFirst.asLong() + ":" + canonicalSecond.asLong();
+    private boolean hasPendingPlayerRequest() {
+        return pendingHomePlayerId != null
+                || pendingWherePlayerId != null
+                || pendingFollowPlayerId != null
+                || pendingBoatPlayerId != null
+                || pendingTeleportPlayerId != null;
     }
 
-    private BlockPos canonicalFirst(BlockPos first, BlockPos second) {
-        if (first == null) {
-            return second;
-        }
-        if (second == null) {
-            return first;
+    private void promoteTickLod() {
+        if (!this.level().isClientSide) {
+            tickLod.promote(this.level().getGameTime());
         }
-        return first.asLong() <= second.asLong() ? first : second;
     }
 
-    private BlockPos canonicalSecond(BlockPos first, BlockPos second) {
-        if (first == null) {
-            return second;
-        }
-        if (second == null) {
-            return first;
+    private void syncAdjacentDoubleDoors() {
+        if (this.level().isClientSide || !this.isAlive()) {
+            return;
         }
-        return first.asLong() <= second.asLong() ? second : first;
+        doorTracker.tick(this.level().getGameTime());
     }
 
-    private void setDoorOpenState(BlockPos lowerPos, boolean open) {
-        if (lowerPos == null) {
-            return;
-        }
-        BlockState lower = this.level().getBlockState(lowerPos);
-        if (!isLowerDoorState(lower) || lower.getValue(DoorBlock.OPEN) == open) {
-            return;
-        }
-        this.level().setBlock(lowerPos, lower.setValue(DoorBlock.OPEN, open), 10);
-        BlockPos upperPos = lowerPos.above();
-        BlockState upper = this.level().getBlockState(upperPos);
-        if (!(upper.getBlock() instanceof DoorBlock)
-                || !upper.hasProperty(DoorBlock.HALF)
-                || upper.getValue(DoorBlock.HALF) != DoubleBlockHalf.UPPER
-                || !upper.hasProperty(DoorBlock.OPEN)) {
-            return;
-        }
-        this.level().setBlock(upperPos, upper.setValue(DoorBlock.OPEN, open), 10);
+    public void onNearbyDoorChanged() {
+        doorTracker.markDirty();
     }
 
     private boolean isHungerFullSynced() {
@@ -3112,7 +3015,7 @@ public class CompanionEntity extends PathfinderMob {
     }
 
     private boolean registerPendingTeleportRequest(ServerPlayer player, String messageKey, long untilTick,
-                                                   int secondsLeft) {
+                                                   long gameTime) {
         if (player == null || messageKey == null) {
             return false;
         }
@@ -3122,19 +3025,19 @@ public class CompanionEntity extends PathfinderMob {
                 this.blockPosition(),
                 new ChunkPos(this.blockPosition()),
                 untilTick,
-                messageKey,
-                secondsLeft
+                messageKey
         );
         if (PENDING_TELEPORT_REQUESTS.putIfAbsent(player.getUUID(), request) != null) {
             return false;
         }
         PENDING_TELEPORTS.put(player.getUUID(), this);
+        startPendingTeleportCountdown(player.server, player.getUUID(), request, gameTime);
         return true;
     }
 
     private static boolean registerPendingTeleportRequest(ServerPlayer player, UUID companionId,
                                                           ResourceKey<Level> levelKey, BlockPos position,
-                                                          String messageKey, long untilTick, int secondsLeft) {
+                                                          String messageKey, long untilTick, long gameTime) {
         if (player == null || companionId == null || levelKey == null || position == null || messageKey == null) {
             return false;
         }
@@ -3144,15 +3047,59 @@ public class CompanionEntity extends PathfinderMob {
                 position,
                 new ChunkPos(position),
                 untilTick,
-                messageKey,
-                secondsLeft
+                messageKey
         );
         if (PENDING_TELEPORT_REQUESTS.putIfAbsent(player.getUUID(), request) != null) {
             return false;
         }
+        startPendingTeleportCountdown(player.server, player.getUUID(), request, gameTime);
         return true;
     }
 
+    private static void startPendingTeleportCountdown(MinecraftServer server, UUID playerId,
+                                                      PendingTeleportRequest request, long gameTime) {
+        request.countdown = CompanionCountdown.start(request.untilTick - gameTime,
+                secondsLeft -> onPendingTeleportSecond(server, playerId, request, secondsLeft),
+                () -> onPendingTeleportExpired(server, playerId, request));
+    }
+
+    private static void onPendingTeleportSecond(MinecraftServer server, UUID playerId,
+                                                PendingTeleportRequest request, int secondsLeft) {
+        if (PENDING_TELEPORT_REQUESTS.get(playerId) != request) {
+            CompanionCountdown.cancel(request.countdown);
+            return;
+        }
+        if (server == null || server.getLevel(request.levelKey) == null) {
+            removeExpiredPendingRequest(server, playerId, request);
+            return;
+        }
+        ServerPlayer player = server.getPlayerList().getPlayer(playerId);
+        if (DIMENSION_TELEPORT_REQUEST_KEY.equals(request.messageKey)) {
+            if (player == null || player.isSpectator() || !player.isAlive()) {
+                return;
+            }
+            if (player.level().dimension().equals(request.levelKey)) {
+                removeExpiredPendingRequest(server, playerId, request);
+                return;
+            }
+            if (!APPROVED_DIMENSION_TELEPORTS.contains(playerId)) {
+                sendDimensionTeleportMessageStatic(player, secondsLeft);
+            }
+            return;
+        }
+        if (WHERE_STATUS_KEY.equals(request.messageKey) && request.originPos != null && player != null
+                && !APPROVED_WHERE_TELEPORTS.contains(playerId)) {
+            sendWhereMessageFallback(player, request.originPos, secondsLeft);
+        }
+    }
+
+    private static void onPendingTeleportExpired(MinecraftServer server, UUID playerId,
+                                                 PendingTeleportRequest request) {
+        if (PENDING_TELEPORT_REQUESTS.get(playerId) == request) {
+            removeExpiredPendingRequest(server, playerId, request);
+        }
+    }
+
     private void clearTeleportRequest() {
         if (pendingTeleportPlayerId != null) {
             removePendingTeleportRequest(pendingTeleportPlayerId, this.getUUID());
@@ -3173,6 +3120,7 @@ public class CompanionEntity extends PathfinderMob {
         PendingTeleportRequest request = PENDING_TELEPORT_REQUESTS.get(playerId);
         if (request != null && companionId.equals(request.companionId)) {
             PENDING_TELEPORT_REQUESTS.remove(playerId, request);
+            CompanionCountdown.cancel(request.countdown);
         }
     }
 
@@ -3194,7 +3142,7 @@ public class CompanionEntity extends PathfinderMob {
             }
         }
         if (player instanceof ServerPlayer serverPlayer) {
-            CompanionEntity active = CompanionSingleNpcManager.getActive(serverPlayer);
+            CompanionEntity active = CompanionManager.getActive(serverPlayer);
             if (active != null && active.isPendingTeleportFor(player)) {
                 PENDING_TELEPORTS.put(player.getUUID(), active);
                 return active;
@@ -3432,20 +3380,20 @@ public class CompanionEntity extends PathfinderMob {
         if (companion != null && companion.isAlive()) {
             return companion;
         }
-        CompanionSingleNpcManager.ensureLoaded(server);
-        UUID activeId = CompanionSingleNpcManager.getActiveId();
-        ResourceKey<Level> activeLevelKey = CompanionSingleNpcManager.getActiveDimension();
-        BlockPos lastKnownPos = CompanionSingleNpcManager.getLastKnownPos();
-        if (activeId != null && activeId.equals(request.companionId) && activeLevelKey != null) {
-            ServerLevel activeLevel = server.getLevel(activeLevelKey);
-            ChunkPos activeChunk = lastKnownPos != null ? new ChunkPos(lastKnownPos) : null;
-            companion = findCompanionInLevel(activeLevel, activeId, activeChunk);
+        CompanionManager.ensureLoaded(server);
+        CompanionManager.Tracked tracked = CompanionManager.getTracked(request.companionId);
+        ResourceKey<Level> trackedLevelKey = tracked != null ? tracked.getDimension() : null;
+        if (trackedLevelKey != null) {
+            ServerLevel trackedLevel = server.getLevel(trackedLevelKey);
+            BlockPos lastKnownPos = tracked.getLastKnownPos();
+            ChunkPos trackedChunk = lastKnownPos != null ? new ChunkPos(lastKnownPos) : null;
+            companion = findCompanionInLevel(trackedLevel, request.companionId, trackedChunk);
             if (companion != null && companion.isAlive()) {
                 return companion;
             }
         }
-        ResourceKey<Level> homeLevelKey = CompanionSingleNpcManager.getLastHomeDimension();
-        BlockPos homePos = CompanionSingleNpcManager.getLastHomePos();
+        ResourceKey<Level> homeLevelKey = tracked != null ? tracked.getHomeDimension() : null;
+        BlockPos homePos = tracked != null ? tracked.getHomePos() : null;
         if (homeLevelKey != null && homePos != null) {
             ServerLevel homeLevel = server.getLevel(homeLevelKey);
             companion = findCompanionInLevel(homeLevel, request.companionId, new ChunkPos(homePos));
@@ -3542,6 +3490,7 @@ public class CompanionEntity extends PathfinderMob {
             return;
         }
         PENDING_TELEPORT_REQUESTS.remove(playerId, request);
+        CompanionCountdown.cancel(request.countdown);
         PENDING_TELEPORTS.remove(playerId);
         APPROVED_DIMENSION_TELEPORTS.remove(playerId);
         APPROVED_WHERE_TELEPORTS.remove(playerId);
@@ -3562,10 +3511,15 @@ public class CompanionEntity extends PathfinderMob {
         if (server == null) {
             return;
         }
-        if (PENDING_TELEPORT_REQUESTS.isEmpty()) {
+        if (PENDING_TELEPORT_REQUESTS.isEmpty()
+                || (APPROVED_DIMENSION_TELEPORTS.isEmpty() && APPROVED_WHERE_TELEPORTS.isEmpty())) {
             return;
         }
         for (Map.Entry<UUID, PendingTeleportRequest> entry : PENDING_TELEPORT_REQUESTS.entrySet()) {
+            if (!APPROVED_DIMENSION_TELEPORTS.contains(entry.getKey())
+                    && !APPROVED_WHERE_TELEPORTS.contains(entry.getKey())) {
+                continue;
+            }
             PendingTeleportRequest request = entry.getValue();
             if (request == null) {
                 PENDING_TELEPORT_REQUESTS.remove(entry.getKey());
@@ -3579,14 +3533,6 @@ public class CompanionEntity extends PathfinderMob {
                 removeExpiredPendingRequest(server, entry.getKey(), request);
                 continue;
             }
-            long gameTime = level.getGameTime();
-            if (usesServerTickClock(request.messageKey)) {
-                gameTime = server.getTickCount();
-            }
-            if (gameTime >= request.untilTick) {
-                removeExpiredPendingRequest(server, entry.getKey(), request);
-                continue;
-            }
             if (DIMENSION_TELEPORT_REQUEST_KEY.equals(request.messageKey)) {
                 ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
                 if (player == null || player.isSpectator() || !player.isAlive()) {
@@ -3603,6 +3549,7 @@ public class CompanionEntity extends PathfinderMob {
                     }
                     if (forceTeleportToPlayerDimension(companion, player)) {
                         PENDING_TELEPORT_REQUESTS.remove(entry.getKey(), request);
+                        CompanionCountdown.cancel(request.countdown);
                         PENDING_TELEPORTS.remove(entry.getKey());
                         APPROVED_DIMENSION_TELEPORTS.remove(entry.getKey());
                         APPROVED_WHERE_TELEPORTS.remove(entry.getKey());
@@ -3612,12 +3559,6 @@ public class CompanionEntity extends PathfinderMob {
                         }
                         sendTeleportIgnore(player, TELEPORT_IGNORE_DIMENSION_KEY);
                     }
-                    continue;
-                }
-                int secondsLeft = secondsLeftStatic(request.untilTick, gameTime);
-                if (secondsLeft != request.lastSeconds) {
-                    request.lastSeconds = secondsLeft;
-                    sendDimensionTeleportMessageStatic(player, secondsLeft);
                 }
                 continue;
             }
@@ -3667,6 +3608,7 @@ public class CompanionEntity extends PathfinderMob {
                         }
                     }
                     PENDING_TELEPORT_REQUESTS.remove(entry.getKey(), request);
+                    CompanionCountdown.cancel(request.countdown);
                     PENDING_TELEPORTS.remove(entry.getKey());
                     APPROVED_DIMENSION_TELEPORTS.remove(entry.getKey());
                     APPROVED_WHERE_TELEPORTS.remove(entry.getKey());
@@ -3674,14 +3616,6 @@ public class CompanionEntity extends PathfinderMob {
                     companion.clearTeleportRequestState();
                     companion.clearTeleportReminder();
                     sendTeleportIgnore(player, TELEPORT_IGNORE_WHERE_KEY);
-                    continue;
-                }
-                int secondsLeft = secondsLeftStatic(request.untilTick, gameTime);
-                if (secondsLeft != request.lastSeconds) {
-                    request.lastSeconds = secondsLeft;
-                    if (player != null) {
-                        sendWhereMessageFallback(player, request.originPos, secondsLeft);
-                    }
                 }
             }
         }
@@ -3691,14 +3625,25 @@ public class CompanionEntity extends PathfinderMob {
         if (server == null) {
             return;
         }
-        UUID companionId = CompanionSingleNpcManager.getActiveId();
-        ResourceKey<Level> levelKey = CompanionSingleNpcManager.getActiveDimension();
-        BlockPos lastPos = CompanionSingleNpcManager.getLastKnownPos();
-        if (companionId == null || levelKey == null || lastPos == null) {
+        for (CompanionManager.Tracked tracked : CompanionManager.getAllTracked()) {
+            tickTeleportRequestFallback(server, tracked);
+        }
+    }
+
+    private static void tickTeleportRequestFallback(MinecraftServer server, CompanionManager.Tracked tracked) {
+        UUID companionId = tracked.getCompanionId();
+        ResourceKey<Level> levelKey = tracked.getDimension();
+        BlockPos lastPos = tracked.getLastKnownPos();
+        if (tracked.getOwnerId() == null || levelKey == null || lastPos == null) {
+            return;
+        }
+        if (tracked.getMode() == CompanionMode.STOPPED || tracked.isBusy()) {
             return;
         }
-        if (CompanionSingleNpcManager.getLastMode() == CompanionMode.STOPPED
-                || CompanionSingleNpcManager.isLastBusy()) {
+        ServerPlayer trackedOwner = server.getPlayerList().getPlayer(tracked.getOwnerId());
+        if (trackedOwner == null || !trackedOwner.level().dimension().equals(levelKey)
+                || trackedOwner.distanceToSqr(lastPos.getX() + 0.5D, lastPos.getY() + 0.5D, lastPos.getZ() + 0.5D)
+                <= TELEPORT_REQUEST_DISTANCE_SQR) {
             return;
         }
         ServerLevel level = server.getLevel(levelKey);
@@ -33,6 +33,7 @@ import ru.nekostul.aicompanion.CompanionConfig;
 import ru.nekostul.aicompanion.aiproviders.yandexgpt.YandexGptClient;
 import ru.nekostul.aicompanion.entity.inventory.CompanionInventory;
 import ru.nekostul.aicompanion.entity.movement.CompanionMovementSpeed;
+import ru.nekostul.aicompanion.entity.perf.CompanionTickProfiler;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
 import ru.nekostul.aicompanion.entity.tree.CompanionTreeRequestMode;
 
@@ -48,7 +49,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 final class CompanionHouseBuildController {
     static final class GatherTask {
@@ -125,6 +125,7 @@ final class CompanionHouseBuildController {
     private static final String K_AI_DISABLED = "entity.aicompanion.companion.ai.disabled";
     private static final String K_AI_NOT_CONFIGURED = "entity.aicompanion.companion.ai.not_configured";
     private static final String K_AI_DAILY_LIMIT = "entity.aicompanion.companion.ai.daily_limit";
+    private static final String K_AI_BUSY = "entity.aicompanion.companion.ai.busy";
 
     private static final CompanionResourceType[] RESOURCE_PRIORITY = {
             CompanionResourceType.LOG,
@@ -261,7 +262,9 @@ final class CompanionHouseBuildController {
             ensureNearBuildStartAnchor(gameTime);
         }
         if (state == State.BUILDING) {
+            long placementStart = CompanionTickProfiler.begin();
             tickBuilding(player, gameTime);
+            CompanionTickProfiler.end(CompanionTickProfiler.Section.PLACEMENT, placementStart);
         }
     }
 
@@ -372,8 +375,7 @@ final class CompanionHouseBuildController {
                 + ";game_time=" + gameTime
                 + ";biome=" + resolveBuildBiomeContext();
 
-        CompletableFuture
-                .supplyAsync(() -> YandexGptClient.generateHomeBuildPlan(player, request, pointContext))
+        YandexGptClient.generateHomeBuildPlanAsync(player, request, pointContext)
                 .thenAccept(result -> onPlanReady(playerId, result))
                 .exceptionally(error -> {
                     onPlanReady(playerId, null);
@@ -473,6 +475,7 @@ final class CompanionHouseBuildController {
             case NOT_CONFIGURED -> owner.sendReply(player, Component.translatable(K_AI_NOT_CONFIGURED));
             case DAILY_LIMIT -> owner.sendReply(player,
                     Component.translatable(K_AI_DAILY_LIMIT, result.remainingLimit()));
+            case BUSY -> owner.sendReply(player, Component.translatable(K_AI_BUSY));
             case ERROR -> owner.sendReply(player, Component.translatable(K_PLAN_FAILED));
             case SUCCESS -> {
             }
@@ -0,0 +1,338 @@
+package ru.nekostul.aicompanion.entity;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public final class CompanionManager {
+    private static final Map<UUID, Tracked> TRACKED = new HashMap<>();
+    private static final Map<UUID, UUID> ACTIVE_BY_OWNER = new HashMap<>();
+    private static UUID lastUnownedId;
+    private static MinecraftServer loadedServer;
+    private static MinecraftServer memoryServer;
+    private static CompanionMemoryData memoryData;
+
+    private CompanionManager() {
+    }
+
+    static void register(CompanionEntity entity) {
+        if (entity.level().isClientSide) {
+            return;
+        }
+        ensureLoaded(entity.getServer());
+        rememberCompanionState(entity, false, false);
+    }
+
+    static void unregister(CompanionEntity entity, Entity.RemovalReason reason) {
+        if (entity.level().isClientSide) {
+            return;
+        }
+        Tracked tracked = TRACKED.get(entity.getUUID());
+        if (tracked == null) {
+            return;
+        }
+        if (entity.isAlive() && (reason == null || !reason.shouldDestroy())) {
+            tracked.update(entity, tracked.busy);
+            updatePersistedState(entity, tracked, true);
+            return;
+        }
+        forget(entity.getUUID());
+        CompanionMemoryData data = memoryData(entity.getServer());
+        if (data != null) {
+            data.remove(entity.getUUID());
+        }
+    }
+
+    public static CompanionEntity getActive(ServerPlayer player) {
+        return resolveActive(player, false);
+    }
+
+    public static CompanionEntity getActiveIncludingDead(ServerPlayer player) {
+        return resolveActive(player, true);
+    }
+
+    static void updateState(CompanionEntity entity, boolean busy) {
+        if (entity == null || entity.level().isClientSide) {
+            return;
+        }
+        rememberCompanionState(entity, busy, false);
+    }
+
+    public static Tracked getTracked(UUID companionId) {
+        return companionId != null ? TRACKED.get(companionId) : null;
+    }
+
+    public static Tracked getTrackedFor(ServerPlayer player) {
+        if (player == null) {
+            return null;
+        }
+        ensureLoaded(player.server);
+        Tracked owned = getTracked(ACTIVE_BY_OWNER.get(player.getUUID()));
+        if (owned != null && player.getUUID().equals(owned.ownerId)) {
+            return owned;
+        }
+        Tracked unowned = getTracked(lastUnownedId);
+        return unowned != null && unowned.ownerId == null ? unowned : null;
+    }
+
+    public static Collection<Tracked> getAllTracked() {
+        return List.copyOf(TRACKED.values());
+    }
+
+    public static boolean isHomePos(ResourceKey<Level> dimension, BlockPos pos) {
+        if (dimension == null || pos == null) {
+            return false;
+        }
+        for (Tracked tracked : TRACKED.values()) {
+            if (pos.equals(tracked.homePos) && dimension.equals(tracked.homeDimension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void clear() {
+        TRACKED.clear();
+        ACTIVE_BY_OWNER.clear();
+        lastUnownedId = null;
+        loadedServer = null;
+        memoryServer = null;
+        memoryData = null;
+    }
+
+    private static CompanionEntity resolveActive(ServerPlayer player, boolean includeDead) {
+        if (player == null || player.server == null) {
+            return null;
+        }
+        ensureLoaded(player.server);
+        CompanionEntity tracked = resolveTrackedCompanion(player, includeDead);
+        if (tracked != null && tracked.canPlayerControl(player)) {
+            return tracked;
+        }
+        CompanionEntity owned = findLoadedCompanion(player, includeDead, true);
+        if (owned != null) {
+            rememberCompanionState(owned, false, true);
+            return owned;
+        }
+        CompanionEntity controllable = findLoadedCompanion(player, includeDead, false);
+        if (controllable != null) {
+            rememberCompanionState(controllable, false, true);
+        }
+        return controllable;
+    }
+
+    private static CompanionEntity resolveTrackedCompanion(ServerPlayer player, boolean includeDead) {
+        Tracked tracked = getTrackedFor(player);
+        if (tracked == null || tracked.dimension == null) {
+            return null;
+        }
+        ServerLevel level = player.server.getLevel(tracked.dimension);
+        if (level == null) {
+            return null;
+        }
+        Entity entity = level.getEntity(tracked.companionId);
+        if (entity instanceof CompanionEntity companion) {
+            if (includeDead || companion.isAlive()) {
+                return companion;
+            }
+            return null;
+        }
+        if (tracked.lastKnownPos != null && !level.hasChunkAt(tracked.lastKnownPos)) {
+            return null;
+        }
+        forget(tracked.companionId);
+        return null;
+    }
+
+    private static CompanionEntity findLoadedCompanion(ServerPlayer player, boolean includeDead, boolean ownedOnly) {
+        Collection<CompanionEntity> candidates = ownedOnly
+                ? CompanionRegistry.getOwnedBy(player.getUUID())
+                : CompanionRegistry.getControllableCandidates(player.getUUID());
+        CompanionEntity nearest = null;
+        boolean nearestInPlayerLevel = false;
+        double nearestDistanceSqr = Double.MAX_VALUE;
+        for (CompanionEntity companion : List.copyOf(candidates)) {
+            if (!includeDead && !companion.isAlive()) {
+                continue;
+            }
+            if (ownedOnly ? !companion.isOwnedBy(player) : !companion.canPlayerControl(player)) {
+                continue;
+            }
+            boolean inPlayerLevel = companion.level() == player.level();
+            double distanceSqr = inPlayerLevel
+                    ? player.distanceToSqr(companion.getX(), companion.getY(), companion.getZ())
+                    : Double.MAX_VALUE;
+            if (nearest == null
+                    || (inPlayerLevel && !nearestInPlayerLevel)
+                    || (inPlayerLevel == nearestInPlayerLevel && distanceSqr < nearestDistanceSqr)) {
+                nearest = companion;
+                nearestInPlayerLevel = inPlayerLevel;
+                nearestDistanceSqr = distanceSqr;
+            }
+        }
+        return nearest;
+    }
+
+    private static void rememberCompanionState(CompanionEntity entity, boolean busy, boolean claimActive) {
+        UUID companionId = entity.getUUID();
+        Tracked tracked = TRACKED.computeIfAbsent(companionId, Tracked::new);
+        UUID previousOwner = tracked.ownerId;
+        tracked.update(entity, busy);
+        if (previousOwner != null && !previousOwner.equals(tracked.ownerId)) {
+            ACTIVE_BY_OWNER.remove(previousOwner, companionId);
+        }
+        if (tracked.ownerId != null) {
+            Tracked current = getTracked(ACTIVE_BY_OWNER.get(tracked.ownerId));
+            if (claimActive || current == null || !tracked.ownerId.equals(current.ownerId)) {
+                ACTIVE_BY_OWNER.put(tracked.ownerId, companionId);
+            }
+        } else if (claimActive || getTracked(lastUnownedId) == null) {
+            lastUnownedId = companionId;
+        }
+        updatePersistedState(entity, tracked, false);
+    }
+
+    private static void forget(UUID companionId) {
+        Tracked tracked = TRACKED.remove(companionId);
+        if (tracked != null && tracked.ownerId != null) {
+            ACTIVE_BY_OWNER.remove(tracked.ownerId, companionId);
+        }
+        if (companionId.equals(lastUnownedId)) {
+            lastUnownedId = null;
+        }
+    }
+
+    private static void updatePersistedState(CompanionEntity entity, Tracked tracked, boolean exactPosition) {
+        if (entity == null || entity.getServer() == null) {
+            return;
+        }
+        CompanionMemoryData data = memoryData(entity.getServer());
+        if (data == null) {
+            return;
+        }
+        BlockPos persistedPos = tracked.lastKnownPos;
+        CompanionMemoryData.Entry previous = data.get(tracked.companionId);
+        BlockPos previousPos = previous != null ? previous.getLastKnownPos() : null;
+        if (!exactPosition && persistedPos != null && previousPos != null
+                && tracked.dimension != null && tracked.dimension.equals(previous.getDimension())
+                && isSameChunk(previousPos, persistedPos)) {
+            persistedPos = previousPos;
+        }
+        data.put(tracked.companionId, tracked.ownerId, tracked.dimension, persistedPos,
+                tracked.homePos, tracked.homeDimension);
+    }
+
+    private static boolean isSameChunk(BlockPos first, BlockPos second) {
+        return SectionPos.blockToSectionCoord(first.getX()) == SectionPos.blockToSectionCoord(second.getX())
+                && SectionPos.blockToSectionCoord(first.getZ()) == SectionPos.blockToSectionCoord(second.getZ());
+    }
+
+    private static CompanionMemoryData memoryData(MinecraftServer server) {
+        if (server != memoryServer || memoryData == null) {
+            memoryData = CompanionMemoryData.get(server);
+            memoryServer = memoryData != null ? server : null;
+        }
+        return memoryData;
+    }
+
+    public static void ensureLoaded(MinecraftServer server) {
+        if (server == null || server == loadedServer) {
+            return;
+        }
+        CompanionMemoryData data = memoryData(server);
+        if (data == null) {
+            return;
+        }
+        TRACKED.clear();
+        ACTIVE_BY_OWNER.clear();
+        lastUnownedId = null;
+        loadedServer = server;
+        for (CompanionMemoryData.Entry entry : data.getEntries()) {
+            Tracked tracked = new Tracked(entry.getCompanionId());
+            tracked.ownerId = entry.getOwnerId();
+            tracked.dimension = entry.getDimension();
+            tracked.lastKnownPos = entry.getLastKnownPos();
+            tracked.homePos = entry.getHomePos();
+            tracked.homeDimension = entry.getHomeDimension();
+            TRACKED.put(tracked.companionId, tracked);
+            if (tracked.ownerId != null) {
+                ACTIVE_BY_OWNER.putIfAbsent(tracked.ownerId, tracked.companionId);
+            } else if (lastUnownedId == null) {
+                lastUnownedId = tracked.companionId;
+            }
+        }
+    }
+
+    public static final class Tracked {
+        private final UUID companionId;
+        private UUID ownerId;
+        private ResourceKey<Level> dimension;
+        private BlockPos lastKnownPos;
+        private BlockPos homePos;
+        private ResourceKey<Level> homeDimension;
+        private CompanionEntity.CompanionMode mode = CompanionEntity.CompanionMode.AUTONOMOUS;
+        private boolean busy;
+
+        private Tracked(UUID companionId) {
+            this.companionId = companionId;
+        }
+
+        private void update(CompanionEntity entity, boolean busy) {
+            this.ownerId = entity.getOwnerId();
+            this.dimension = entity.level().dimension();
+            this.lastKnownPos = entity.blockPosition();
+            this.homePos = entity.getHomePos();
+            if (this.homePos == null) {
+                this.homeDimension = null;
+            } else if (entity.getHomeDimensionId() != null) {
+                this.homeDimension = ResourceKey.create(Registries.DIMENSION, entity.getHomeDimensionId());
+            }
+            this.mode = entity.getMode();
+            this.busy = busy;
+        }
+
+        public UUID getCompanionId() {
+            return companionId;
+        }
+
+        public UUID getOwnerId() {
+            return ownerId;
+        }
+
+        public ResourceKey<Level> getDimension() {
+            return dimension;
+        }
+
+        public BlockPos getLastKnownPos() {
+            return lastKnownPos;
+        }
+
+        public BlockPos getHomePos() {
+            return homePos;
+        }
+
+        public ResourceKey<Level> getHomeDimension() {
+            return homeDimension;
+        }
+
+        public CompanionEntity.CompanionMode getMode() {
+            return mode;
+        }
+
+        public boolean isBusy() {
+            return busy;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package ru.nekostul.aicompanion.entity;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
@@ -10,21 +12,27 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.saveddata.SavedData;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 public final class CompanionMemoryData extends SavedData {
     private static final String DATA_NAME = "aicompanion_companion";
+    private static final String KEY_COMPANIONS = "Companions";
+    private static final String KEY_ID = "Id";
+    private static final String KEY_OWNER = "Owner";
+    private static final String KEY_DIM = "Dim";
+    private static final String KEY_POS = "Pos";
     private static final String KEY_ACTIVE_ID = "ActiveId";
     private static final String KEY_ACTIVE_DIM = "ActiveDim";
     private static final String KEY_LAST_POS = "LastPos";
     private static final String KEY_HOME_POS = "HomePos";
     private static final String KEY_HOME_DIM = "HomeDim";
 
-    private UUID activeId;
-    private ResourceLocation activeDimensionId;
-    private BlockPos lastKnownPos;
-    private BlockPos homePos;
-    private ResourceLocation homeDimensionId;
+    private final Map<UUID, Entry> entries = new LinkedHashMap<>();
 
     private CompanionMemoryData() {
     }
@@ -44,80 +52,170 @@ public final class CompanionMemoryData extends SavedData {
         );
     }
 
-    public UUID getActiveId() {
-        return activeId;
+    public Entry get(UUID companionId) {
+        return companionId != null ? entries.get(companionId) : null;
     }
 
-    public ResourceKey<Level> getActiveDimension() {
-        if (activeDimensionId == null) {
-            return null;
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    public void put(UUID companionId, UUID ownerId, ResourceKey<Level> dimension, BlockPos pos,
+                    BlockPos homePos, ResourceKey<Level> homeDimension) {
+        if (companionId == null) {
+            return;
         }
-        return ResourceKey.create(Registries.DIMENSION, activeDimensionId);
+        Entry entry = new Entry(companionId, ownerId, location(dimension), pos, homePos, location(homeDimension));
+        if (entry.equals(entries.get(companionId))) {
+            return;
+        }
+        entries.put(companionId, entry);
+        setDirty();
     }
 
-    public BlockPos getLastKnownPos() {
-        return lastKnownPos;
+    public void remove(UUID companionId) {
+        if (companionId != null && entries.remove(companionId) != null) {
+            setDirty();
+        }
     }
 
-    public BlockPos getHomePos() {
-        return homePos;
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        ListTag list = new ListTag();
+        for (Entry entry : entries.values()) {
+            CompoundTag entryTag = new CompoundTag();
+            entryTag.putUUID(KEY_ID, entry.companionId);
+            if (entry.ownerId != null) {
+                entryTag.putUUID(KEY_OWNER, entry.ownerId);
+            }
+            if (entry.dimensionId != null) {
+                entryTag.putString(KEY_DIM, entry.dimensionId.toString());
+            }
+            if (entry.lastKnownPos != null) {
+                entryTag.putLong(KEY_POS, entry.lastKnownPos.asLong());
+            }
+            if (entry.homePos != null) {
+                entryTag.putLong(KEY_HOME_POS, entry.homePos.asLong());
+            }
+            if (entry.homeDimensionId != null) {
+                entryTag.putString(KEY_HOME_DIM, entry.homeDimensionId.toString());
+            }
+            list.add(entryTag);
+        }
+        tag.put(KEY_COMPANIONS, list);
+        return tag;
     }
 
-    public ResourceKey<Level> getHomeDimension() {
-        if (homeDimensionId == null) {
-            return null;
+    private static CompanionMemoryData load(CompoundTag tag) {
+        CompanionMemoryData data = new CompanionMemoryData();
+        ListTag list = tag.getList(KEY_COMPANIONS, Tag.TAG_COMPOUND);
+        for (int i = 0; i < list.size(); i++) {
+            CompoundTag entryTag = list.getCompound(i);
+            if (!entryTag.hasUUID(KEY_ID)) {
+                continue;
+            }
+            UUID companionId = entryTag.getUUID(KEY_ID);
+            data.entries.put(companionId, new Entry(
+                    companionId,
+                    entryTag.hasUUID(KEY_OWNER) ? entryTag.getUUID(KEY_OWNER) : null,
+                    readLocation(entryTag, KEY_DIM),
+                    readPos(entryTag, KEY_POS),
+                    readPos(entryTag, KEY_HOME_POS),
+                    readLocation(entryTag, KEY_HOME_DIM)
+            ));
+        }
+        if (tag.hasUUID(KEY_ACTIVE_ID) && !data.entries.containsKey(tag.getUUID(KEY_ACTIVE_ID))) {
+            UUID legacyId = tag.getUUID(KEY_ACTIVE_ID);
+            data.entries.put(legacyId, new Entry(
+                    legacyId,
+                    null,
+                    readLocation(tag, KEY_ACTIVE_DIM),
+                    readPos(tag, KEY_LAST_POS),
+                    readPos(tag, KEY_HOME_POS),
+                    readLocation(tag, KEY_HOME_DIM)
+            ));
+            data.setDirty();
         }
-        return ResourceKey.create(Registries.DIMENSION, homeDimensionId);
+        return data;
     }
 
-    public void setActive(UUID id, ResourceKey<Level> dimension, BlockPos pos) {
-        activeId = id;
-        activeDimensionId = dimension != null ? dimension.location() : null;
-        lastKnownPos = pos;
+    private static ResourceLocation location(ResourceKey<Level> dimension) {
+        return dimension != null ? dimension.location() : null;
     }
 
-    public void setHome(BlockPos pos, ResourceKey<Level> dimension) {
-        homePos = pos;
-        homeDimensionId = dimension != null ? dimension.location() : null;
+    private static ResourceLocation readLocation(CompoundTag tag, String key) {
+        return tag.contains(key) ? ResourceLocation.tryParse(tag.getString(key)) : null;
     }
 
-    @Override
-    public CompoundTag save(CompoundTag tag) {
-        if (activeId != null) {
-            tag.putUUID(KEY_ACTIVE_ID, activeId);
-        }
-        if (activeDimensionId != null) {
-            tag.putString(KEY_ACTIVE_DIM, activeDimensionId.toString());
+    private static BlockPos readPos(CompoundTag tag, String key) {
+        return tag.contains(key) ? BlockPos.of(tag.getLong(key)) : null;
+    }
+
+    private static ResourceKey<Level> dimensionKey(ResourceLocation dimensionId) {
+        return dimensionId != null ? ResourceKey.create(Registries.DIMENSION, dimensionId) : null;
+    }
+
+    public static final class Entry {
+        private final UUID companionId;
+        private final UUID ownerId;
+        private final ResourceLocation dimensionId;
+        private final BlockPos lastKnownPos;
+        private final BlockPos homePos;
+        private final ResourceLocation homeDimensionId;
+
+        private Entry(UUID companionId, UUID ownerId, ResourceLocation dimensionId, BlockPos lastKnownPos,
+                      BlockPos homePos, ResourceLocation homeDimensionId) {
+            this.companionId = companionId;
+            this.ownerId = ownerId;
+            this.dimensionId = dimensionId;
+            this.lastKnownPos = lastKnownPos != null ? lastKnownPos.immutable() : null;
+            this.homePos = homePos != null ? homePos.immutable() : null;
+            this.homeDimensionId = homeDimensionId;
         }
-        if (lastKnownPos != null) {
-            tag.putLong(KEY_LAST_POS, lastKnownPos.asLong());
+
+        public UUID getCompanionId() {
+            return companionId;
         }
-        if (homePos != null) {
-            tag.putLong(KEY_HOME_POS, homePos.asLong());
+
+        public UUID getOwnerId() {
+            return ownerId;
         }
-        if (homeDimensionId != null) {
-            tag.putString(KEY_HOME_DIM, homeDimensionId.toString());
+
+        public ResourceKey<Level> getDimension() {
+            return dimensionKey(dimensionId);
         }
-        return tag;
-    }
 
-    private static CompanionMemoryData load(CompoundTag tag) {
-        CompanionMemoryData data = new CompanionMemoryData();
-        if (tag.hasUUID(KEY_ACTIVE_ID)) {
-            data.activeId = tag.getUUID(KEY_ACTIVE_ID);
+        public BlockPos getLastKnownPos() {
+            return lastKnownPos;
         }
-        if (tag.contains(KEY_ACTIVE_DIM)) {
-            data.activeDimensionId = new ResourceLocation(tag.getString(KEY_ACTIVE_DIM));
+
+        public BlockPos getHomePos() {
+            return homePos;
         }
-        if (tag.contains(KEY_LAST_POS)) {
-            data.lastKnownPos = BlockPos.of(tag.getLong(KEY_LAST_POS));
+
+        public ResourceKey<Level> getHomeDimension() {
+            return dimensionKey(homeDimensionId);
         }
-        if (tag.contains(KEY_HOME_POS)) {
-            data.homePos = BlockPos.of(tag.getLong(KEY_HOME_POS));
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Entry entry)) {
+                return false;
+            }
+            return companionId.equals(entry.companionId)
+                    && Objects.equals(ownerId, entry.ownerId)
+                    && Objects.equals(dimensionId, entry.dimensionId)
+                    && Objects.equals(lastKnownPos, entry.lastKnownPos)
+                    && Objects.equals(homePos, entry.homePos)
+                    && Objects.equals(homeDimensionId, entry.homeDimensionId);
         }
-        if (tag.contains(KEY_HOME_DIM)) {
-            data.homeDimensionId = new ResourceLocation(tag.getString(KEY_HOME_DIM));
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(companionId, ownerId, dimensionId, lastKnownPos, homePos, homeDimensionId);
         }
-        return data;
     }
 }
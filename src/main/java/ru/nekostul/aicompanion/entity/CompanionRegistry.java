@@ -0,0 +1,145 @@
+package ru.nekostul.aicompanion.entity;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public final class CompanionRegistry {
+    private static final Map<CompanionEntity, Entry> ENTRIES = new IdentityHashMap<>();
+    private static final Map<UUID, Set<CompanionEntity>> BY_OWNER = new HashMap<>();
+    private static final Map<UUID, Set<CompanionEntity>> BY_MEMBER = new HashMap<>();
+    private static final Map<ResourceKey<Level>, Set<CompanionEntity>> BY_DIMENSION = new HashMap<>();
+    private static final Set<CompanionEntity> UNOWNED = new LinkedHashSet<>();
+
+    private CompanionRegistry() {
+    }
+
+    public static void onJoin(CompanionEntity companion) {
+        if (companion == null || companion.level().isClientSide) {
+            return;
+        }
+        onLeave(companion);
+        Entry entry = new Entry(companion.level().dimension(), companion.getOwnerId(),
+                List.copyOf(companion.getPartyMemberIds()));
+        ENTRIES.put(companion, entry);
+        index(companion, entry);
+    }
+
+    public static void onLeave(CompanionEntity companion) {
+        Entry entry = ENTRIES.remove(companion);
+        if (entry != null) {
+            unindex(companion, entry);
+        }
+    }
+
+    static void onMembershipChanged(CompanionEntity companion) {
+        if (companion != null && ENTRIES.containsKey(companion)) {
+            onJoin(companion);
+        }
+    }
+
+    public static void clear() {
+        ENTRIES.clear();
+        BY_OWNER.clear();
+        BY_MEMBER.clear();
+        BY_DIMENSION.clear();
+        UNOWNED.clear();
+    }
+
+    public static Collection<CompanionEntity> getOwnedBy(UUID playerId) {
+        Set<CompanionEntity> owned = playerId != null ? BY_OWNER.get(playerId) : null;
+        return owned != null ? Collections.unmodifiableSet(owned) : Set.of();
+    }
+
+    public static Collection<CompanionEntity> getControllableCandidates(UUID playerId) {
+        Set<CompanionEntity> candidates = new LinkedHashSet<>(getOwnedBy(playerId));
+        Set<CompanionEntity> member = playerId != null ? BY_MEMBER.get(playerId) : null;
+        if (member != null) {
+            candidates.addAll(member);
+        }
+        candidates.addAll(UNOWNED);
+        return candidates;
+    }
+
+    public static CompanionEntity findNearestInRange(ServerPlayer player, double range) {
+        if (player == null) {
+            return null;
+        }
+        Set<CompanionEntity> companions = BY_DIMENSION.get(player.level().dimension());
+        if (companions == null || companions.isEmpty()) {
+            return null;
+        }
+        AABB bounds = player.getBoundingBox().inflate(range);
+        CompanionEntity nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (CompanionEntity companion : companions) {
+            if (!bounds.intersects(companion.getBoundingBox())) {
+                continue;
+            }
+            double distance = player.distanceToSqr(companion);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = companion;
+            }
+        }
+        return nearest;
+    }
+
+    private static void index(CompanionEntity companion, Entry entry) {
+        BY_DIMENSION.computeIfAbsent(entry.dimension, key -> new LinkedHashSet<>()).add(companion);
+        if (entry.ownerId == null) {
+            UNOWNED.add(companion);
+        } else {
+            BY_OWNER.computeIfAbsent(entry.ownerId, key -> new LinkedHashSet<>()).add(companion);
+        }
+        for (UUID memberId : entry.memberIds) {
+            BY_MEMBER.computeIfAbsent(memberId, key -> new LinkedHashSet<>()).add(companion);
+        }
+    }
+
+    private static void unindex(CompanionEntity companion, Entry entry) {
+        removeFrom(BY_DIMENSION, entry.dimension, companion);
+        if (entry.ownerId == null) {
+            UNOWNED.remove(companion);
+        } else {
+            removeFrom(BY_OWNER, entry.ownerId, companion);
+        }
+        for (UUID memberId : entry.memberIds) {
+            removeFrom(BY_MEMBER, memberId, companion);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<CompanionEntity>> index, K key, CompanionEntity companion) {
+        Set<CompanionEntity> companions = index.get(key);
+        if (companions == null) {
+            return;
+        }
+        companions.remove(companion);
+        if (companions.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static final class Entry {
+        private final ResourceKey<Level> dimension;
+        private final UUID ownerId;
+        private final List<UUID> memberIds;
+
+        private Entry(ResourceKey<Level> dimension, UUID ownerId, List<UUID> memberIds) {
+            this.dimension = dimension;
+            this.ownerId = ownerId;
+            this.memberIds = memberIds;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import net.minecraft.world.item.ItemStack;
 import org.slf4j.Logger;
 import ru.nekostul.aicompanion.CompanionConfig;
 import ru.nekostul.aicompanion.aiproviders.yandexgpt.YandexGptClient;
+import ru.nekostul.aicompanion.entity.command.CompanionCommandCache;
 import ru.nekostul.aicompanion.entity.command.CompanionCommandParser;
 import ru.nekostul.aicompanion.entity.home.CompanionHomeAssessmentController;
 import ru.nekostul.aicompanion.entity.inventory.CompanionDeliveryController;
@@ -26,6 +27,7 @@ import ru.nekostul.aicompanion.entity.inventory.CompanionInventoryExchange;
 import ru.nekostul.aicompanion.entity.mining.CompanionGatheringController;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceRequest;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
+import ru.nekostul.aicompanion.entity.timer.CompanionCountdown;
 import ru.nekostul.aicompanion.entity.tree.CompanionTreeHarvestController;
 import ru.nekostul.aicompanion.entity.tree.CompanionTreeRequestMode;
 
@@ -36,7 +38,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 final class CompanionTaskCoordinator {
@@ -85,6 +86,7 @@ final class CompanionTaskCoordinator {
     private static final String AI_NOT_CONFIGURED_KEY = "entity.aicompanion.companion.ai.not_configured";
     private static final String AI_DAILY_LIMIT_KEY = "entity.aicompanion.companion.ai.daily_limit";
     private static final String AI_FAILED_KEY = "entity.aicompanion.companion.ai.failed";
+    private static final String AI_BUSY_KEY = "entity.aicompanion.companion.ai.busy";
     private static final String AI_COMMAND_UNRECOGNIZED_KEY =
             "entity.aicompanion.companion.ai.command.unrecognized";
     private static final String AI_NO_COMMAND_TOKEN = "__NO_COMMAND__";
@@ -121,8 +123,7 @@ final class CompanionTaskCoordinator {
     private boolean sequenceDelivering;
     private final List<ItemStack> sequencePendingDrops = new ArrayList<>();
     private UUID pendingTreeRetryPlayerId;
-    private long pendingTreeRetryUntilTick = -1L;
-    private int pendingTreeRetryLastSeconds = -1;
+    private CompanionCountdown pendingTreeRetryCountdown;
     private CompanionResourceType pendingTreeRetryType;
     private int pendingTreeRetryAmount;
     private CompanionTreeRequestMode pendingTreeRetryTreeMode = CompanionTreeRequestMode.NONE;
@@ -229,7 +230,6 @@ final class CompanionTaskCoordinator {
     }
 
     void tick(CompanionEntity.CompanionMode mode, long gameTime) {
-        tickTreeRetryPrompt(gameTime);
         houseBuildController.tick(gameTime);
         startPendingHouseGathering();
         if (taskState == TaskState.HOME_ASSESSING) {
@@ -386,6 +386,18 @@ final class CompanionTaskCoordinator {
         return true;
     }
 
+    boolean startResourceTask(ServerPlayer player, CompanionResourceType type, int amount) {
+        if (player == null || type == null || amount <= 0 || isBusy()) {
+            return false;
+        }
+        clearTreeRetryPrompt(player, true);
+        clearTaskSequence();
+        activeRequest = new CompanionResourceRequest(player.getUUID(), type, amount, CompanionTreeRequestMode.NONE);
+        taskState = TaskState.GATHERING;
+        delivery.startDelivery();
+        return true;
+    }
+
     private boolean handleParsedCommandRequest(ServerPlayer player, CompanionCommandParser.CommandRequest parsed) {
         if (player == null || parsed == null) {
             return false;
@@ -404,13 +416,18 @@ final class CompanionTaskCoordinator {
         if (player == null || rawMessage == null || !looksLikeTaskIntent(rawMessage)) {
             return false;
         }
+        CompanionCommandCache cache = CompanionCommandCache.get(owner.getServer());
+        String cached = cache != null ? cache.lookup(rawMessage) : null;
+        if (cached != null) {
+            applyInterpretedCommand(player, rawMessage, cached);
+            return true;
+        }
         UUID playerId = player.getUUID();
         if (!aiCommandInFlightByPlayer.add(playerId)) {
             owner.sendReply(player, Component.translatable(AI_WAIT_KEY));
             return true;
         }
-        CompletableFuture
-                .supplyAsync(() -> YandexGptClient.interpretCommand(player, rawMessage))
+        YandexGptClient.interpretCommandAsync(player, rawMessage)
                 .thenAccept(result -> completeAiCommandInterpretationOnServerThread(playerId, rawMessage, result))
                 .exceptionally(error -> {
                     completeAiCommandInterpretationOnServerThread(playerId, rawMessage, null);
@@ -506,17 +523,15 @@ final class CompanionTaskCoordinator {
                     return;
                 }
                 String interpreted = normalizeInterpretedCommand(result.text());
-                if (interpreted.isBlank() || interpreted.equalsIgnoreCase(AI_NO_COMMAND_TOKEN)) {
+                if (interpreted.isBlank()) {
                     owner.sendReply(serverPlayer, Component.translatable(AI_COMMAND_UNRECOGNIZED_KEY));
                     return;
                 }
-                if (!handleInterpretedCommand(serverPlayer, interpreted)) {
-                    owner.sendReply(serverPlayer, Component.translatable(AI_COMMAND_UNRECOGNIZED_KEY));
-                    LOGGER.debug("ai command interpretation rejected by parser: npc={} player={} raw='{}' interpreted='{}'",
-                            owner.getUUID(),
-                            playerId,
-                            originalMessage,
-                            interpreted);
+                if (applyInterpretedCommand(serverPlayer, originalMessage, interpreted)) {
+                    CompanionCommandCache cache = CompanionCommandCache.get(owner.getServer());
+                    if (cache != null) {
+                        cache.store(originalMessage, interpreted);
+                    }
                 }
             } finally {
                 aiCommandInFlightByPlayer.remove(playerId);
@@ -524,6 +539,23 @@ final class CompanionTaskCoordinator {
         });
     }
 
+    private boolean applyInterpretedCommand(ServerPlayer player, String originalMessage, String interpreted) {
+        if (interpreted.equalsIgnoreCase(AI_NO_COMMAND_TOKEN)) {
+            owner.sendReply(player, Component.translatable(AI_COMMAND_UNRECOGNIZED_KEY));
+            return true;
+        }
+        if (!handleInterpretedCommand(player, interpreted)) {
+            owner.sendReply(player, Component.translatable(AI_COMMAND_UNRECOGNIZED_KEY));
+            LOGGER.debug("ai command interpretation rejected by parser: npc={} player={} raw='{}' interpreted='{}'",
+                    owner.getUUID(),
+                    player.getUUID(),
+                    originalMessage,
+                    interpreted);
+            return false;
+        }
+        return true;
+    }
+
     private boolean handleInterpretedCommand(ServerPlayer player, String interpretedMessage) {
         if (player == null || interpretedMessage == null || interpretedMessage.isBlank()) {
             return false;
@@ -581,8 +613,7 @@ final class CompanionTaskCoordinator {
             owner.sendReply(player, Component.translatable(AI_HOME_REVIEW_IN_PROGRESS_KEY));
             return;
         }
-        CompletableFuture
-                .supplyAsync(() -> YandexGptClient.reviewHomeAssessment(player, payloadAfterFollowUp))
+        YandexGptClient.reviewHomeAssessmentAsync(player, payloadAfterFollowUp)
                 .thenAccept(result -> completeAiHomeReviewOnServerThread(playerId, payloadAfterFollowUp, result))
                 .exceptionally(error -> {
                     completeAiHomeReviewOnServerThread(playerId, payloadAfterFollowUp, null);
@@ -634,6 +665,7 @@ final class CompanionTaskCoordinator {
             case DISABLED -> owner.sendReply(player, Component.translatable(AI_DISABLED_KEY));
             case NOT_CONFIGURED -> owner.sendReply(player, Component.translatable(AI_NOT_CONFIGURED_KEY));
             case DAILY_LIMIT -> owner.sendReply(player, Component.translatable(AI_DAILY_LIMIT_KEY, result.remainingLimit()));
+            case BUSY -> owner.sendReply(player, Component.translatable(AI_BUSY_KEY));
             case ERROR -> owner.sendReply(player, Component.translatable(fallbackErrorKey));
             case SUCCESS -> {
             }
@@ -821,7 +853,7 @@ final class CompanionTaskCoordinator {
                 owner.setMode(CompanionEntity.CompanionMode.FOLLOW);
                 boolean offeredRetry = false;
                 if (player instanceof ServerPlayer serverPlayer && sequencePlayerId == null) {
-                    offeredRetry = offerTreeRetry(serverPlayer, failedTreeRequest, gameTime);
+                    offeredRetry = offerTreeRetry(serverPlayer, failedTreeRequest);
                 }
                 if (!offeredRetry) {
                     owner.sendReply(player, Component.translatable(TREE_FAIL_KEY));
@@ -874,7 +906,7 @@ final class CompanionTaskCoordinator {
             failActiveTask(player, "gather_failed");
             boolean offeredRetry = false;
             if (player instanceof ServerPlayer serverPlayer && sequencePlayerId == null) {
-                offeredRetry = offerTreeRetry(serverPlayer, failedGatherRequest, gameTime);
+                offeredRetry = offerTreeRetry(serverPlayer, failedGatherRequest);
             }
             if (!offeredRetry) {
                 owner.sendReply(player, Component.translatable(GATHER_FAIL_KEY));
@@ -1046,8 +1078,7 @@ final class CompanionTaskCoordinator {
         if (pendingTreeRetryPlayerId == null || !pendingTreeRetryPlayerId.equals(player.getUUID())) {
             return true;
         }
-        long gameTime = owner.level().getGameTime();
-        if (gameTime >= pendingTreeRetryUntilTick || !hasPendingTreeRetryRequest()) {
+        if (!hasPendingTreeRetryRequest()) {
             clearTreeRetryPrompt(player, true);
             return true;
         }
@@ -1082,40 +1113,41 @@ final class CompanionTaskCoordinator {
         return true;
     }
 
-    private boolean offerTreeRetry(ServerPlayer player, CompanionResourceRequest failedRequest, long gameTime) {
+    private boolean offerTreeRetry(ServerPlayer player, CompanionResourceRequest failedRequest) {
         if (player == null || failedRequest == null) {
             return false;
         }
+        clearTreeRetryState();
         pendingTreeRetryPlayerId = player.getUUID();
         pendingTreeRetryType = failedRequest.getResourceType();
         pendingTreeRetryAmount = failedRequest.getAmount();
         pendingTreeRetryTreeMode = failedRequest.getTreeMode();
-        pendingTreeRetryUntilTick = gameTime + TREE_RETRY_TICKS;
-        pendingTreeRetryLastSeconds = -1;
-        int secondsLeft = secondsLeft(pendingTreeRetryUntilTick, gameTime);
-        sendTreeRetryMessage(player, secondsLeft);
-        pendingTreeRetryLastSeconds = secondsLeft;
+        pendingTreeRetryCountdown = CompanionCountdown.start(TREE_RETRY_TICKS, this::onTreeRetrySecond,
+                this::onTreeRetryExpired);
+        sendTreeRetryMessage(player, pendingTreeRetryCountdown.getSecondsLeft());
         return true;
     }
 
-    private void tickTreeRetryPrompt(long gameTime) {
-        if (pendingTreeRetryPlayerId == null) {
-            return;
-        }
-        Player player = owner.getPlayerById(pendingTreeRetryPlayerId);
-        if (!(player instanceof ServerPlayer serverPlayer)) {
+    private void onTreeRetrySecond(int secondsLeft) {
+        if (!(owner.getPlayerById(pendingTreeRetryPlayerId) instanceof ServerPlayer serverPlayer)
+                || owner.isRemoved()) {
             clearTreeRetryState();
             return;
         }
-        if (gameTime >= pendingTreeRetryUntilTick || !hasPendingTreeRetryRequest()) {
+        if (!hasPendingTreeRetryRequest()) {
             clearTreeRetryPrompt(serverPlayer, true);
             return;
         }
-        int secondsLeft = secondsLeft(pendingTreeRetryUntilTick, gameTime);
-        if (secondsLeft != pendingTreeRetryLastSeconds) {
-            pendingTreeRetryLastSeconds = secondsLeft;
-            sendTreeRetryMessage(serverPlayer, secondsLeft);
+        sendTreeRetryMessage(serverPlayer, secondsLeft);
+    }
+
+    private void onTreeRetryExpired() {
+        if (!(owner.getPlayerById(pendingTreeRetryPlayerId) instanceof ServerPlayer serverPlayer)
+                || owner.isRemoved()) {
+            clearTreeRetryState();
+            return;
         }
+        clearTreeRetryPrompt(serverPlayer, true);
     }
 
     private boolean hasPendingTreeRetryRequest() {
@@ -1133,8 +1165,8 @@ final class CompanionTaskCoordinator {
 
     private void clearTreeRetryState() {
         pendingTreeRetryPlayerId = null;
-        pendingTreeRetryUntilTick = -1L;
-        pendingTreeRetryLastSeconds = -1;
+        CompanionCountdown.cancel(pendingTreeRetryCountdown);
+        pendingTreeRetryCountdown = null;
         pendingTreeRetryType = null;
         pendingTreeRetryAmount = 0;
         pendingTreeRetryTreeMode = CompanionTreeRequestMode.NONE;
@@ -1154,11 +1186,6 @@ final class CompanionTaskCoordinator {
         owner.sendReply(player, base.append(Component.literal(" ")).append(button));
     }
 
-    private int secondsLeft(long untilTick, long gameTime) {
-        long diff = Math.max(0L, untilTick - gameTime);
-        return (int) ((diff + 19L) / 20L);
-    }
-
     private void finishGatheringStep(Player player, List<ItemStack> extraDrops) {
         if (!isSequenceGatherPhaseActive()) {
             taskState = TaskState.DELIVERING;
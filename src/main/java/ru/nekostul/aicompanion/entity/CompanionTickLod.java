@@ -0,0 +1,62 @@
+package ru.nekostul.aicompanion.entity;
+
+final class CompanionTickLod {
+    private static final int EVALUATE_INTERVAL_TICKS = 20;
+    private static final int PROMOTION_TICKS = 200;
+
+    enum Level {
+        ACTIVE(1, 1, 1, 1, 1, 1, 1, 1, 1),
+        IDLE_NEAR(1, 1, 1, 1, 1, 5, 1, 2, 5),
+        IDLE_FAR(20, 10, 10, 5, 5, 20, 20, 10, 10),
+        HOME_LOCKED(40, 10, 20, 20, 5, 20, 40, 20, 40);
+
+        private final int[] intervals;
+
+        Level(int itemPickup, int inventoryExchange, int homeRequests, int autonomous, int ownerDefense,
+              int hunger, int boat, int doors, int teleport) {
+            this.intervals = new int[]{itemPickup, inventoryExchange, homeRequests, autonomous, ownerDefense,
+                    hunger, boat, doors, teleport};
+        }
+    }
+
+    enum Subsystem {
+        ITEM_PICKUP,
+        INVENTORY_EXCHANGE,
+        HOME_REQUESTS,
+        AUTONOMOUS,
+        OWNER_DEFENSE,
+        HUNGER,
+        BOAT,
+        DOORS,
+        TELEPORT
+    }
+
+    private final int phase;
+    private Level level = Level.ACTIVE;
+    private long promotedUntilTick = -1L;
+    private long nextEvaluateTick = -1L;
+
+    CompanionTickLod(int phase) {
+        this.phase = phase;
+    }
+
+    void promote(long gameTime) {
+        promotedUntilTick = gameTime + PROMOTION_TICKS;
+        level = Level.ACTIVE;
+        nextEvaluateTick = promotedUntilTick;
+    }
+
+    boolean shouldEvaluate(long gameTime) {
+        return nextEvaluateTick < 0L || gameTime >= nextEvaluateTick;
+    }
+
+    void setLevel(Level resolved, long gameTime) {
+        nextEvaluateTick = gameTime + EVALUATE_INTERVAL_TICKS;
+        level = gameTime < promotedUntilTick || resolved == null ? Level.ACTIVE : resolved;
+    }
+
+    boolean shouldRun(Subsystem subsystem, long gameTime) {
+        int interval = level.intervals[subsystem.ordinal()];
+        return interval <= 1 || Math.floorMod(gameTime + phase, interval) == 0;
+    }
+}
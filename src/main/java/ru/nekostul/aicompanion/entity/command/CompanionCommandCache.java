@@ -0,0 +1,147 @@
+package ru.nekostul.aicompanion.entity.command;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public final class CompanionCommandCache extends SavedData {
+    private static final String DATA_NAME = "aicompanion_command_cache";
+    private static final String KEY_ENTRIES = "Entries";
+    private static final String KEY_MESSAGE = "Message";
+    private static final String KEY_COMMAND = "Command";
+    private static final String KEY_STORED_AT = "StoredAt";
+    private static final String DESCRIBE_KEY = "entity.aicompanion.companion.perf.command_cache";
+    private static final int MAX_ENTRIES = 512;
+    private static final int MAX_MESSAGE_LENGTH = 256;
+    private static final long TTL_MILLIS = TimeUnit.DAYS.toMillis(3L);
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private long hits;
+    private long misses;
+
+    private CompanionCommandCache() {
+    }
+
+    public static CompanionCommandCache get(MinecraftServer server) {
+        if (server == null) {
+            return null;
+        }
+        ServerLevel overworld = server.getLevel(Level.OVERWORLD);
+        if (overworld == null) {
+            return null;
+        }
+        return overworld.getDataStorage().computeIfAbsent(
+                CompanionCommandCache::load,
+                CompanionCommandCache::new,
+                DATA_NAME
+        );
+    }
+
+    public String lookup(String message) {
+        String key = key(message);
+        if (key == null) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            setDirty();
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.command;
+    }
+
+    public void store(String message, String command) {
+        String key = key(message);
+        if (key == null || command == null || command.isBlank()) {
+            return;
+        }
+        entries.put(key, new Entry(command, System.currentTimeMillis()));
+        setDirty();
+    }
+
+    public Component describe() {
+        long total = hits + misses;
+        return Component.translatable(DESCRIBE_KEY, entries.size(), hits, misses,
+                String.format(Locale.ROOT, "%.1f", total == 0L ? 0.0D : hits * 100.0D / total));
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        long now = System.currentTimeMillis();
+        ListTag list = new ListTag();
+        for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            if (isExpired(entry, now)) {
+                continue;
+            }
+            CompoundTag entryTag = new CompoundTag();
+            entryTag.putString(KEY_MESSAGE, mapEntry.getKey());
+            entryTag.putString(KEY_COMMAND, entry.command);
+            entryTag.putLong(KEY_STORED_AT, entry.storedAt);
+            list.add(entryTag);
+        }
+        tag.put(KEY_ENTRIES, list);
+        return tag;
+    }
+
+    private static CompanionCommandCache load(CompoundTag tag) {
+        CompanionCommandCache cache = new CompanionCommandCache();
+        long now = System.currentTimeMillis();
+        ListTag list = tag.getList(KEY_ENTRIES, Tag.TAG_COMPOUND);
+        for (int i = 0; i < list.size(); i++) {
+            CompoundTag entryTag = list.getCompound(i);
+            String message = entryTag.getString(KEY_MESSAGE);
+            String command = entryTag.getString(KEY_COMMAND);
+            Entry entry = new Entry(command, entryTag.getLong(KEY_STORED_AT));
+            if (message.isEmpty() || command.isEmpty() || isExpired(entry, now)) {
+                continue;
+            }
+            cache.entries.put(message, entry);
+        }
+        return cache;
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        return now - entry.storedAt > TTL_MILLIS || entry.storedAt > now;
+    }
+
+    private static String key(String message) {
+        String normalized = CompanionRussianNormalizer.normalize(message).replaceAll("\\s+", " ");
+        if (normalized.isEmpty() || normalized.length() > MAX_MESSAGE_LENGTH) {
+            return null;
+        }
+        return normalized;
+    }
+
+    private static final class Entry {
+        private final String command;
+        private final long storedAt;
+
+        private Entry(String command, long storedAt) {
+            this.command = command;
+            this.storedAt = storedAt;
+        }
+    }
+}
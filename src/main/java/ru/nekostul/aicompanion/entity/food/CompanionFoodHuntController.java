@@ -1,5 +1,6 @@
 package ru.nekostul.aicompanion.entity.food;
 
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.animal.Animal;
 import net.minecraft.world.entity.animal.Chicken;
 import net.minecraft.world.entity.animal.Cow;
@@ -114,20 +115,19 @@ public final class CompanionFoodHuntController {
         if (id == null) {
             return null;
         }
-        AABB range = owner.getBoundingBox().inflate(HUNT_RADIUS);
-        for (Animal animal : owner.level().getEntitiesOfClass(Animal.class, range)) {
-            if (animal.getUUID().equals(id)) {
-                return animal;
-            }
+        if (!(owner.level() instanceof ServerLevel serverLevel)
+                || !(serverLevel.getEntity(id) instanceof Animal animal)) {
+            return null;
         }
-        return null;
+        AABB range = owner.getBoundingBox().inflate(HUNT_RADIUS);
+        return range.intersects(animal.getBoundingBox()) ? animal : null;
     }
 
     private Animal findNearestFoodAnimal() {
         AABB range = owner.getBoundingBox().inflate(HUNT_RADIUS);
         Animal nearest = null;
         double nearestDistance = Double.MAX_VALUE;
-        for (Animal animal : owner.level().getEntitiesOfClass(Animal.class, range)) {
+        for (Animal animal : owner.getEntitySnapshot().getEntitiesOfClass(Animal.class, range)) {
             if (!isValidTarget(animal)) {
                 continue;
             }
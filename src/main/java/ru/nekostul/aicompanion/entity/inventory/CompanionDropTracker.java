@@ -1,8 +1,13 @@
 package ru.nekostul.aicompanion.entity.inventory;
 
+import com.google.common.collect.MapMaker;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.entity.item.ItemEntity;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
 import java.util.UUID;
 
 public final class CompanionDropTracker {
@@ -13,10 +18,9 @@ public final class CompanionDropTracker {
     private static final String PLAYER_DROPPER_TAG = "aicompanionPlayerDropper";
     private static final String PLAYER_TOSS_DROP_TAG = "aicompanionPlayerTossDrop";
     private static final String PLAYER_BLOCK_DROP_TAG = "aicompanionPlayerBlockDrop";
-    private static Method ownerMethod;
-    private static Method throwerMethod;
-    private static boolean ownerResolved;
-    private static boolean throwerResolved;
+    private static final Map<ItemEntity, DropProvenance> PROVENANCE = new MapMaker().weakKeys().makeMap();
+    private static final MethodHandle OWNER_ACCESSOR = findUuidAccessor("getOwner");
+    private static final MethodHandle THROWER_ACCESSOR = findUuidAccessor("getThrower");
 
     private CompanionDropTracker() {
     }
@@ -25,6 +29,7 @@ public final class CompanionDropTracker {
         if (entity == null || dropperId == null) {
             return;
         }
+        provenance(entity).dropper = dropperId;
         entity.getPersistentData().putUUID(DROPPER_TAG, dropperId);
     }
 
@@ -32,18 +37,18 @@ public final class CompanionDropTracker {
         if (entity == null || dropperId == null) {
             return false;
         }
-        if (!entity.getPersistentData().hasUUID(DROPPER_TAG)) {
-            return false;
-        }
-        return dropperId.equals(entity.getPersistentData().getUUID(DROPPER_TAG));
+        return dropperId.equals(provenance(entity).dropper);
     }
 
     public static void markMobDrop(ItemEntity entity, UUID dropperId) {
         if (entity == null) {
             return;
         }
+        DropProvenance provenance = provenance(entity);
+        provenance.set(DropProvenance.MOB_DROP, true);
         entity.getPersistentData().putBoolean(MOB_DROP_TAG, true);
         if (dropperId != null) {
+            provenance.mobDropper = dropperId;
             entity.getPersistentData().putUUID(MOB_DROPPER_TAG, dropperId);
         }
     }
@@ -52,30 +57,30 @@ public final class CompanionDropTracker {
         if (entity == null) {
             return false;
         }
-        return entity.getPersistentData().getBoolean(MOB_DROP_TAG);
+        return provenance(entity).has(DropProvenance.MOB_DROP);
     }
 
     public static boolean isMobDropFrom(ItemEntity entity, UUID dropperId) {
         if (entity == null || dropperId == null) {
             return false;
         }
-        if (!isMobDrop(entity)) {
-            return false;
-        }
-        if (!entity.getPersistentData().hasUUID(MOB_DROPPER_TAG)) {
-            return false;
-        }
-        return dropperId.equals(entity.getPersistentData().getUUID(MOB_DROPPER_TAG));
+        DropProvenance provenance = provenance(entity);
+        return provenance.has(DropProvenance.MOB_DROP) && dropperId.equals(provenance.mobDropper);
     }
 
     public static void markPlayerDrop(ItemEntity entity, UUID dropperId) {
         if (entity == null) {
             return;
         }
+        DropProvenance provenance = provenance(entity);
+        provenance.set(DropProvenance.PLAYER_DROP, true);
+        provenance.set(DropProvenance.PLAYER_TOSS_DROP, true);
+        provenance.set(DropProvenance.PLAYER_BLOCK_DROP, false);
         entity.getPersistentData().putBoolean(PLAYER_DROP_TAG, true);
         entity.getPersistentData().putBoolean(PLAYER_TOSS_DROP_TAG, true);
         entity.getPersistentData().remove(PLAYER_BLOCK_DROP_TAG);
         if (dropperId != null) {
+            provenance.playerDropper = dropperId;
             entity.getPersistentData().putUUID(PLAYER_DROPPER_TAG, dropperId);
         }
     }
@@ -84,10 +89,15 @@ public final class CompanionDropTracker {
         if (entity == null) {
             return;
         }
+        DropProvenance provenance = provenance(entity);
+        provenance.set(DropProvenance.PLAYER_DROP, true);
+        provenance.set(DropProvenance.PLAYER_TOSS_DROP, false);
+        provenance.set(DropProvenance.PLAYER_BLOCK_DROP, true);
         entity.getPersistentData().putBoolean(PLAYER_DROP_TAG, true);
         entity.getPersistentData().remove(PLAYER_TOSS_DROP_TAG);
         entity.getPersistentData().putBoolean(PLAYER_BLOCK_DROP_TAG, true);
         if (dropperId != null) {
+            provenance.playerDropper = dropperId;
             entity.getPersistentData().putUUID(PLAYER_DROPPER_TAG, dropperId);
         }
     }
@@ -96,79 +106,98 @@ public final class CompanionDropTracker {
         if (entity == null) {
             return null;
         }
-        if (!entity.getPersistentData().getBoolean(PLAYER_DROP_TAG)) {
-            return null;
-        }
-        if (!entity.getPersistentData().hasUUID(PLAYER_DROPPER_TAG)) {
-            return null;
-        }
-        return entity.getPersistentData().getUUID(PLAYER_DROPPER_TAG);
+        DropProvenance provenance = provenance(entity);
+        return provenance.has(DropProvenance.PLAYER_DROP) ? provenance.playerDropper : null;
     }
 
     public static boolean isPlayerBlockDrop(ItemEntity entity) {
         if (entity == null) {
             return false;
         }
-        return entity.getPersistentData().getBoolean(PLAYER_BLOCK_DROP_TAG);
+        return provenance(entity).has(DropProvenance.PLAYER_BLOCK_DROP);
     }
 
     public static boolean isPlayerTossDrop(ItemEntity entity) {
         if (entity == null) {
             return false;
         }
-        return entity.getPersistentData().getBoolean(PLAYER_TOSS_DROP_TAG);
+        return provenance(entity).has(DropProvenance.PLAYER_TOSS_DROP);
     }
 
     public static UUID getVanillaDropper(ItemEntity entity) {
         if (entity == null) {
             return null;
         }
-        UUID ownerId = invokeUuid(entity, ownerMethod, "getOwner");
+        UUID ownerId = invokeUuid(OWNER_ACCESSOR, entity);
         if (ownerId != null) {
             return ownerId;
         }
-        return invokeUuid(entity, throwerMethod, "getThrower");
-    }
-
-    private static UUID invokeUuid(ItemEntity entity, Method cached, String methodName) {
-        Method method = cached;
-        if (method == null) {
-            if ("getOwner".equals(methodName)) {
-                if (ownerResolved) {
-                    return null;
-                }
-                method = findMethod(entity, methodName);
-                ownerMethod = method;
-                ownerResolved = true;
-            } else {
-                if (throwerResolved) {
-                    return null;
-                }
-                method = findMethod(entity, methodName);
-                throwerMethod = method;
-                throwerResolved = true;
+        return invokeUuid(THROWER_ACCESSOR, entity);
+    }
+
+    private static DropProvenance provenance(ItemEntity entity) {
+        DropProvenance provenance = PROVENANCE.get(entity);
+        if (provenance == null) {
+            provenance = DropProvenance.read(entity.getPersistentData());
+            DropProvenance existing = PROVENANCE.putIfAbsent(entity, provenance);
+            if (existing != null) {
+                provenance = existing;
             }
         }
-        if (method == null) {
+        return provenance;
+    }
+
+    private static UUID invokeUuid(MethodHandle accessor, ItemEntity entity) {
+        if (accessor == null) {
             return null;
         }
         try {
-            Object result = method.invoke(entity);
-            if (result instanceof UUID uuid) {
-                return uuid;
-            }
-        } catch (Exception ignored) {
+            return (UUID) accessor.invokeExact(entity);
+        } catch (Throwable ignored) {
             return null;
         }
-        return null;
     }
 
-    private static Method findMethod(ItemEntity entity, String name) {
+    private static MethodHandle findUuidAccessor(String name) {
         try {
-            return entity.getClass().getMethod(name);
-        } catch (NoSuchMethodException ignored) {
+            return MethodHandles.publicLookup().findVirtual(ItemEntity.class, name, MethodType.methodType(UUID.class));
+        } catch (ReflectiveOperationException ignored) {
             return null;
         }
     }
-}
 
+    private static final class DropProvenance {
+        private static final int MOB_DROP = 1;
+        private static final int PLAYER_DROP = 1 << 1;
+        private static final int PLAYER_TOSS_DROP = 1 << 2;
+        private static final int PLAYER_BLOCK_DROP = 1 << 3;
+
+        private int flags;
+        private UUID dropper;
+        private UUID mobDropper;
+        private UUID playerDropper;
+
+        private boolean has(int flag) {
+            return (flags & flag) != 0;
+        }
+
+        private void set(int flag, boolean value) {
+            flags = value ? flags | flag : flags & ~flag;
+        }
+
+        private static DropProvenance read(CompoundTag data) {
+            DropProvenance provenance = new DropProvenance();
+            if (data.isEmpty()) {
+                return provenance;
+            }
+            provenance.set(MOB_DROP, data.getBoolean(MOB_DROP_TAG));
+            provenance.set(PLAYER_DROP, data.getBoolean(PLAYER_DROP_TAG));
+            provenance.set(PLAYER_TOSS_DROP, data.getBoolean(PLAYER_TOSS_DROP_TAG));
+            provenance.set(PLAYER_BLOCK_DROP, data.getBoolean(PLAYER_BLOCK_DROP_TAG));
+            provenance.dropper = data.hasUUID(DROPPER_TAG) ? data.getUUID(DROPPER_TAG) : null;
+            provenance.mobDropper = data.hasUUID(MOB_DROPPER_TAG) ? data.getUUID(MOB_DROPPER_TAG) : null;
+            provenance.playerDropper = data.hasUUID(PLAYER_DROPPER_TAG) ? data.getUUID(PLAYER_DROPPER_TAG) : null;
+            return provenance;
+        }
+    }
+}
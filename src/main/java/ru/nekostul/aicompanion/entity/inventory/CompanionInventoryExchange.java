@@ -13,6 +13,7 @@ import net.minecraft.world.item.Items;
 import net.minecraft.world.phys.AABB;
 
 import ru.nekostul.aicompanion.entity.CompanionEntity;
+import ru.nekostul.aicompanion.entity.timer.CompanionCountdown;
 import ru.nekostul.aicompanion.entity.tool.CompanionToolSlot;
 
 import java.lang.reflect.Method;
@@ -60,8 +61,7 @@ public final class CompanionInventoryExchange {
     private UUID pendingDropPlayerId;
     private boolean pendingDropKeepToolsAndFood;
     private UUID pendingToolDropPlayerId;
-    private long pendingToolDropUntilTick = -1L;
-    private int pendingToolDropLastSeconds = -1;
+    private CompanionCountdown pendingToolDropCountdown;
     private UUID pendingDropAllPlayerId;
     private long pendingDropAllExecuteTick = -1L;
     private boolean pendingDropAllKeepToolsAndFood;
@@ -84,12 +84,11 @@ public final class CompanionInventoryExchange {
             return false;
         }
         long gameTime = owner.level().getGameTime();
-        expireToolDropIfNeeded(gameTime);
         if (isConfirmCommand(normalized)) {
             return handleConfirm(player, gameTime);
         }
         if (isToolDropCommand(normalized)) {
-            return handleToolDrop(player, gameTime);
+            return handleToolDrop(player);
         }
         if (isDropAllCommand(normalized)) {
             handleDropAll(player, shouldKeepToolsAndFood(normalized), gameTime);
@@ -352,7 +351,7 @@ public final class CompanionInventoryExchange {
             owner.sendReply(player, Component.literal("[DEBUG dropAll] kept items: " + describeNpcStoredStacks()));
         }
         if (keepToolsAndFood && hasFood) {
-            sendToolDropNotice(player, gameTime);
+            sendToolDropNotice(player);
         }
     }
 
@@ -364,7 +363,7 @@ public final class CompanionInventoryExchange {
         AABB playerArea = player.getBoundingBox().inflate(OWNER_DROP_COLLECT_RADIUS);
         AABB ownerArea = owner.getBoundingBox().inflate(OWNER_DROP_COLLECT_RADIUS);
         AABB area = playerArea.minmax(ownerArea);
-        List<ItemEntity> nearby = owner.level().getEntitiesOfClass(ItemEntity.class, area);
+        List<ItemEntity> nearby = owner.getEntitySnapshot().getEntitiesOfClass(ItemEntity.class, area);
         for (ItemEntity entity : nearby) {
             if (entity == null || !entity.isAlive()) {
                 continue;
@@ -424,7 +423,7 @@ public final class CompanionInventoryExchange {
         AABB playerArea = player.getBoundingBox().inflate(OWNER_DROP_MATCHING_SWEEP_RADIUS);
         AABB ownerArea = owner.getBoundingBox().inflate(OWNER_DROP_MATCHING_SWEEP_RADIUS);
         AABB area = playerArea.minmax(ownerArea);
-        List<ItemEntity> nearby = owner.level().getEntitiesOfClass(ItemEntity.class, area);
+        List<ItemEntity> nearby = owner.getEntitySnapshot().getEntitiesOfClass(ItemEntity.class, area);
         for (ItemEntity entity : nearby) {
             if (entity == null || !entity.isAlive()) {
                 continue;
@@ -737,16 +736,15 @@ public final class CompanionInventoryExchange {
         owner.sendReply(player, message);
     }
 
-    private void sendToolDropNotice(Player player, long gameTime) {
+    private void sendToolDropNotice(Player player) {
         if (player == null) {
             return;
         }
+        clearToolDropRequest();
         pendingToolDropPlayerId = player.getUUID();
-        pendingToolDropUntilTick = gameTime + TOOL_DROP_WINDOW_TICKS;
-        pendingToolDropLastSeconds = -1;
-        int secondsLeft = secondsLeft(pendingToolDropUntilTick, gameTime);
-        sendToolDropMessage(player, secondsLeft);
-        pendingToolDropLastSeconds = secondsLeft;
+        pendingToolDropCountdown = CompanionCountdown.start(TOOL_DROP_WINDOW_TICKS, this::onToolDropSecond,
+                this::onToolDropExpired);
+        sendToolDropMessage(player, pendingToolDropCountdown.getSecondsLeft());
     }
 
     private int countOccupiedSlots() {
@@ -820,11 +818,11 @@ public final class CompanionInventoryExchange {
                 .replace('\u0451', '\u0435');
     }
 
-    private boolean handleToolDrop(Player player, long gameTime) {
+    private boolean handleToolDrop(Player player) {
         if (pendingToolDropPlayerId == null || !pendingToolDropPlayerId.equals(player.getUUID())) {
             return false;
         }
-        if (gameTime >= pendingToolDropUntilTick) {
+        if (pendingToolDropCountdown == null || !pendingToolDropCountdown.isActive()) {
             clearToolDropRequest(true);
             return false;
         }
@@ -842,37 +840,21 @@ public final class CompanionInventoryExchange {
             sendToolDropRemoval(pendingToolDropPlayerId);
         }
         pendingToolDropPlayerId = null;
-        pendingToolDropUntilTick = -1L;
-        pendingToolDropLastSeconds = -1;
-    }
-
-    private void expireToolDropIfNeeded(long gameTime) {
-        if (pendingToolDropPlayerId == null) {
-            return;
-        }
-        if (gameTime >= pendingToolDropUntilTick) {
-            clearToolDropRequest(true);
-        }
+        CompanionCountdown.cancel(pendingToolDropCountdown);
+        pendingToolDropCountdown = null;
     }
 
-    public void tickToolDropNotice(long gameTime) {
-        if (pendingToolDropPlayerId == null) {
-            return;
-        }
+    private void onToolDropSecond(int secondsLeft) {
         Player player = owner.getPlayerById(pendingToolDropPlayerId);
-        if (player == null) {
+        if (player == null || owner.isRemoved()) {
             clearToolDropRequest(false);
             return;
         }
-        if (gameTime >= pendingToolDropUntilTick) {
-            clearToolDropRequest(true);
-            return;
-        }
-        int secondsLeft = secondsLeft(pendingToolDropUntilTick, gameTime);
-        if (secondsLeft != pendingToolDropLastSeconds) {
-            pendingToolDropLastSeconds = secondsLeft;
-            sendToolDropMessage(player, secondsLeft);
-        }
+        sendToolDropMessage(player, secondsLeft);
+    }
+
+    private void onToolDropExpired() {
+        clearToolDropRequest(!owner.isRemoved());
     }
 
     public void tickPendingDropAll(long gameTime) {
@@ -930,11 +912,6 @@ public final class CompanionInventoryExchange {
         pendingDropAllCatchupKeepToolsAndFood = false;
     }
 
-    private int secondsLeft(long untilTick, long gameTime) {
-        long remaining = Math.max(0L, untilTick - gameTime);
-        return (int) Math.ceil(remaining / 20.0D);
-    }
-
     private void sendToolDropRemoval(UUID playerId) {
         Player player = owner.getPlayerById(playerId);
         if (player == null) {
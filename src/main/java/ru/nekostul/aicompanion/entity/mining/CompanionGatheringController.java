@@ -2,6 +2,7 @@ package ru.nekostul.aicompanion.entity.mining;
 
 import com.mojang.authlib.GameProfile;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.tags.BlockTags;
 import net.minecraft.tags.ItemTags;
@@ -13,13 +14,13 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
-import net.minecraft.world.level.ClipContext;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.levelgen.Heightmap;
-import net.minecraft.world.phys.BlockHitResult;
-import net.minecraft.world.phys.HitResult;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 import net.minecraftforge.common.util.FakePlayer;
@@ -27,6 +28,8 @@ import net.minecraftforge.common.util.FakePlayerFactory;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 import ru.nekostul.aicompanion.CompanionConfig;
 import ru.nekostul.aicompanion.entity.CompanionEntity;
@@ -34,9 +37,16 @@ import ru.nekostul.aicompanion.entity.inventory.CompanionEquipment;
 import ru.nekostul.aicompanion.entity.inventory.CompanionInventory;
 import ru.nekostul.aicompanion.entity.inventory.CompanionDropTracker;
 import ru.nekostul.aicompanion.entity.movement.CompanionMovementSpeed;
+import ru.nekostul.aicompanion.entity.perf.CompanionTickProfiler;
 import ru.nekostul.aicompanion.entity.resource.CompanionBlockRegistry;
+import ru.nekostul.aicompanion.entity.resource.CompanionResourceIndex;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceRequest;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
+import ru.nekostul.aicompanion.entity.scan.CompanionAsyncScan;
+import ru.nekostul.aicompanion.entity.scan.CompanionBlockSnapshot;
+import ru.nekostul.aicompanion.entity.scan.CompanionChunkSections;
+import ru.nekostul.aicompanion.entity.scan.CompanionObstructionResolver;
+import ru.nekostul.aicompanion.entity.scan.CompanionScanScheduler;
 import ru.nekostul.aicompanion.entity.tool.CompanionOreToolGate;
 import ru.nekostul.aicompanion.entity.tool.CompanionToolHandler;
 import ru.nekostul.aicompanion.entity.tool.CompanionToolWear;
@@ -64,7 +74,10 @@ public final class CompanionGatheringController {
     private static final float RESOURCE_FOV_DOT = -1.0F;
     private static final float VISIBLE_FOV_DOT = RESOURCE_FOV_DOT;
     private static final int MAX_SCAN_BLOCKS_PER_TICK = 200000;
-    private static final int MAX_STONE_SCAN_COLUMNS_PER_TICK = 64;
+    private static final int MAX_STONE_SCAN_COLUMNS_PER_TICK = 256;
+    private static final int SCAN_CLOCK_INTERVAL = 256;
+    private static final int STONE_SCAN_CLOCK_INTERVAL = 8;
+    private static final int INDEX_CANDIDATE_LIMIT = 24;
     private static final int NEAR_SCAN_RADIUS = 12;
     private static final int NEAR_SCAN_HEIGHT = 8;
     private static final int LOCAL_RADIUS = 3;
@@ -123,6 +136,9 @@ public final class CompanionGatheringController {
     private ScanPhase scanPhase;
     private ScanState scanState;
     private StoneDigScanState stoneDigScanState;
+    private CompanionAsyncScan<TargetSelection> asyncScan;
+    private CompanionObstructionResolver obstructionResolver;
+    private long obstructionResolverTick = -1L;
 
     public CompanionGatheringController(CompanionEntity owner,
                                CompanionInventory inventory,
@@ -185,7 +201,9 @@ public final class CompanionGatheringController {
                 }
                 return finalizeResult(Result.IN_PROGRESS, gameTime);
             }
+            long scanStart = CompanionTickProfiler.begin();
             TargetSelection selection = findTarget(activeType, gameTime);
+            CompanionTickProfiler.end(CompanionTickProfiler.Section.SCAN, scanStart);
             if (selection == null) {
                 if (requestTargetOrigin != null) {
                     return finalizeResult(Result.NOT_FOUND, gameTime);
@@ -198,7 +216,10 @@ public final class CompanionGatheringController {
             applySelection(selection);
             resetMiningProgress();
         }
-        return finalizeResult(tickMining(gameTime), gameTime);
+        long miningStart = CompanionTickProfiler.begin();
+        Result result = tickMining(gameTime);
+        CompanionTickProfiler.end(CompanionTickProfiler.Section.MINING, miningStart);
+        return finalizeResult(result, gameTime);
     }
 
     private Result finalizeResult(Result result, long gameTime) {
@@ -246,7 +267,7 @@ public final class CompanionGatheringController {
     }
 
     private boolean isScanInProgress() {
-        return scanPhase != null || scanState != null || stoneDigScanState != null;
+        return scanPhase != null || scanState != null || stoneDigScanState != null || asyncScan != null;
     }
 
     private boolean hasMovementGoal() {
@@ -495,12 +516,34 @@ public final class CompanionGatheringController {
         }
         BlockPos origin = owner.blockPosition();
         if (!isScanCompatible(type, origin)) {
-            startVisibleScan(type, origin, scanRadius);
+            if (CompanionResourceIndex.isIndexed(type) && owner.level() instanceof ServerLevel serverLevel) {
+                CompanionResourceIndex.Lookup lookup = CompanionResourceIndex.findNearest(serverLevel, type, origin,
+                        scanRadius, INDEX_CANDIDATE_LIMIT);
+                if (!lookup.isComplete()) {
+                    return null;
+                }
+                TargetSelection indexed = selectIndexedTarget(type, lookup.getPositions(), scanRadius);
+                if (indexed != null) {
+                    finishScan(indexed, gameTime, true);
+                    return indexed;
+                }
+            }
+            if (isAsyncScanAvailable()) {
+                startAsyncScan(type, origin, scanRadius);
+            } else {
+                startVisibleScan(type, origin, scanRadius);
+            }
+        }
+        if (asyncScan != null) {
+            return tickAsyncScan(type, origin, scanRadius, gameTime);
         }
         if (scanPhase == ScanPhase.STONE_DIG) {
+            CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_STONE_SCAN_COLUMNS_PER_TICK,
+                    STONE_SCAN_CLOCK_INTERVAL);
             TargetSelection selection = stoneDigScanState != null
-                    ? stoneDigScanState.step(this, MAX_STONE_SCAN_COLUMNS_PER_TICK)
+                    ? stoneDigScanState.step(this, slice)
                     : null;
+            slice.finish();
             if (selection != null) {
                 finishScan(selection, gameTime, true);
                 return selection;
@@ -511,9 +554,11 @@ public final class CompanionGatheringController {
             finishScan(null, gameTime, false);
             return null;
         }
+        CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_SCAN_BLOCKS_PER_TICK, SCAN_CLOCK_INTERVAL);
         TargetSelection selection = scanState != null
-                ? scanState.step(this, MAX_SCAN_BLOCKS_PER_TICK)
+                ? scanState.step(liveScanContext(), CompanionChunkSections.liveSections(owner.level()), slice::tryConsume)
                 : null;
+        slice.finish();
         if (selection != null) {
             finishScan(selection, gameTime, true);
             return selection;
@@ -533,12 +578,111 @@ public final class CompanionGatheringController {
         return null;
     }
 
+    private TargetSelection selectIndexedTarget(CompanionResourceType type, List<BlockPos> positions, int scanRadius) {
+        boolean requireLineOfSight = type == CompanionResourceType.LOG;
+        ScanContext context = liveScanContext();
+        double maxDistanceSqr = (double) scanRadius * scanRadius;
+        for (BlockPos pos : positions) {
+            TargetSelection selection = resolveTargetSelection(context, type, pos, owner.level().getBlockState(pos));
+            if (selection == null) {
+                continue;
+            }
+            Vec3 toTarget = Vec3.atCenterOf(selection.sightPos).subtract(context.eye);
+            if (toTarget.lengthSqr() > maxDistanceSqr || context.look.dot(toTarget.normalize()) < VISIBLE_FOV_DOT) {
+                continue;
+            }
+            TargetSelection raySelection = resolveObstruction(context, selection.resourcePos, selection.sightPos);
+            if (raySelection != null && (!requireLineOfSight || raySelection.pendingResource == null)) {
+                return raySelection;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAsyncScanAvailable() {
+        return CompanionConfig.isAsyncResourceScanEnabled() && owner.level() instanceof ServerLevel;
+    }
+
+    private void startAsyncScan(CompanionResourceType type, BlockPos origin, int scanRadius) {
+        startVisibleScan(type, origin, scanRadius);
+        ScanState state = scanState;
+        ScanContext context = snapshotScanContext();
+        asyncScan = CompanionAsyncScan.start(owner.level(), origin, scanRadius, scanRadius,
+                (snapshot, active) -> state.step(context.withSnapshot(snapshot), snapshot, active));
+    }
+
+    private TargetSelection tickAsyncScan(CompanionResourceType type, BlockPos origin, int scanRadius, long gameTime) {
+        if (!asyncScan.tick()) {
+            return null;
+        }
+        boolean failed = asyncScan.isFailed();
+        TargetSelection found = asyncScan.getResult();
+        asyncScan = null;
+        if (failed) {
+            startVisibleScan(type, origin, scanRadius);
+            return null;
+        }
+        if (found == null) {
+            finishScan(null, gameTime, false);
+            return null;
+        }
+        TargetSelection selection = revalidateSelection(type, found);
+        if (selection == null) {
+            startVisibleScan(type, origin, scanRadius);
+            return null;
+        }
+        finishScan(selection, gameTime, true);
+        return selection;
+    }
+
+    private TargetSelection revalidateSelection(CompanionResourceType type, TargetSelection selection) {
+        ScanContext context = liveScanContext();
+        BlockPos probe = selection.sightPos;
+        TargetSelection live = resolveTargetSelection(context, type, probe, owner.level().getBlockState(probe));
+        if (live == null || !live.resourcePos.equals(selection.resourcePos)) {
+            return null;
+        }
+        TargetSelection raySelection = resolveObstruction(context, live.resourcePos, live.sightPos);
+        if (raySelection == null || (type == CompanionResourceType.LOG && raySelection.pendingResource != null)) {
+            return null;
+        }
+        return raySelection;
+    }
+
+    private void cancelAsyncScan() {
+        if (asyncScan != null) {
+            asyncScan.cancel();
+            asyncScan = null;
+        }
+    }
+
+    private ScanContext liveScanContext() {
+        return new ScanContext(owner.level(), liveObstructionResolver(), owner.getEyePosition(),
+                owner.getLookAngle().normalize(), oreToolGate::isBlockBlocked, isOreRequest(activeType),
+                CompanionConfig.getMaxOccludedOreBlocks());
+    }
+
+    private ScanContext snapshotScanContext() {
+        return new ScanContext(null, null, owner.getEyePosition(), owner.getLookAngle().normalize(),
+                oreToolGate.snapshotBlockFilter(), isOreRequest(activeType), CompanionConfig.getMaxOccludedOreBlocks());
+    }
+
+    private CompanionObstructionResolver liveObstructionResolver() {
+        long gameTime = owner.level().getGameTime();
+        if (obstructionResolver == null || obstructionResolverTick != gameTime) {
+            obstructionResolver = new CompanionObstructionResolver(owner.level());
+            obstructionResolverTick = gameTime;
+        }
+        return obstructionResolver;
+    }
+
     private TargetSelection findTargetAroundRequestedOrigin(CompanionResourceType type, BlockPos origin) {
         if (type == null || origin == null || type == CompanionResourceType.LOG) {
             return null;
         }
+        ScanContext context = liveScanContext();
         BlockState exactState = owner.level().getBlockState(origin);
-        TargetSelection exactSelection = resolveTargetSelection(type, origin, exactState);
+        TargetSelection exactSelection = resolveTargetSelection(context, type, origin, exactState);
         if (exactSelection != null) {
             return exactSelection;
         }
@@ -551,7 +695,7 @@ public final class CompanionGatheringController {
             for (int dy = -height; dy <= height; dy++) {
                 for (int dz = -radius; dz <= radius; dz++) {
                     cursor.set(origin.getX() + dx, origin.getY() + dy, origin.getZ() + dz);
-                    TargetSelection candidate = resolveTargetSelection(type, cursor.immutable(),
+                    TargetSelection candidate = resolveTargetSelection(context, type, cursor.immutable(),
                             owner.level().getBlockState(cursor));
                     if (candidate == null) {
                         continue;
@@ -613,8 +757,9 @@ public final class CompanionGatheringController {
                                      double maxDistance,
                                      boolean scoreByTarget) {
         boolean allowOccluded = type != CompanionResourceType.LOG;
-        Vec3 eye = owner.getEyePosition();
-        Vec3 look = owner.getLookAngle().normalize();
+        ScanContext context = liveScanContext();
+        Vec3 eye = context.eye;
+        Vec3 look = context.look;
         BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
         TargetSelection best = null;
         double bestDistance = Double.MAX_VALUE;
@@ -625,7 +770,7 @@ public final class CompanionGatheringController {
                 for (int dz = -radius; dz <= radius; dz++) {
                     pos.set(origin.getX() + dx, origin.getY() + dy, origin.getZ() + dz);
                     BlockState state = owner.level().getBlockState(pos);
-                    TargetSelection selection = resolveTargetSelection(type, pos.immutable(), state);
+                    TargetSelection selection = resolveTargetSelection(context, type, pos.immutable(), state);
                     if (selection == null) {
                         continue;
                     }
@@ -638,7 +783,7 @@ public final class CompanionGatheringController {
                     if (look.dot(toTarget.normalize()) < RESOURCE_FOV_DOT) {
                         continue;
                     }
-                    TargetSelection raySelection = resolveObstruction(selection.resourcePos, selection.sightPos);
+                    TargetSelection raySelection = resolveObstruction(context, selection.resourcePos, selection.sightPos);
                     if (raySelection == null) {
                         continue;
                     }
@@ -665,8 +810,9 @@ public final class CompanionGatheringController {
                                             double maxDistance,
                                             boolean scoreByTarget) {
         boolean allowOccluded = type != CompanionResourceType.LOG;
-        Vec3 eye = owner.getEyePosition();
-        Vec3 look = owner.getLookAngle().normalize();
+        ScanContext context = liveScanContext();
+        Vec3 eye = context.eye;
+        Vec3 look = context.look;
         BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
         TargetSelection best = null;
         double bestDistance = Double.MAX_VALUE;
@@ -677,7 +823,7 @@ public final class CompanionGatheringController {
                 for (int dz = -radius; dz <= radius; dz++) {
                     pos.set(origin.getX() + dx, origin.getY() + dy, origin.getZ() + dz);
                     BlockState state = owner.level().getBlockState(pos);
-                    TargetSelection selection = resolveTargetSelection(type, pos.immutable(), state);
+                    TargetSelection selection = resolveTargetSelection(context, type, pos.immutable(), state);
                     if (selection == null) {
                         continue;
                     }
@@ -690,7 +836,7 @@ public final class CompanionGatheringController {
                     if (look.dot(toTarget.normalize()) < VISIBLE_FOV_DOT) {
                         continue;
                     }
-                    TargetSelection raySelection = resolveObstruction(selection.resourcePos, selection.sightPos);
+                    TargetSelection raySelection = resolveObstruction(context, selection.resourcePos, selection.sightPos);
                     if (raySelection == null || (raySelection.pendingResource != null && !allowOccluded)) {
                         continue;
                     }
@@ -706,13 +852,14 @@ public final class CompanionGatheringController {
         return best;
     }
 
-    private TargetSelection resolveTargetSelection(CompanionResourceType type, BlockPos pos, BlockState state) {
+    private static TargetSelection resolveTargetSelection(ScanContext context, CompanionResourceType type, BlockPos pos,
+                                                          BlockState state) {
         if (type == CompanionResourceType.LOG) {
             if (CompanionBlockRegistry.isLog(state)) {
                 return new TargetSelection(pos, pos, pos, null);
             }
             if (CompanionBlockRegistry.isLeaves(state)) {
-                BlockPos logPos = resolveLogFromLeaves(pos);
+                BlockPos logPos = resolveLogFromLeaves(context.level, pos);
                 if (logPos != null) {
                     return new TargetSelection(logPos, logPos, pos, null);
                 }
@@ -720,7 +867,7 @@ public final class CompanionGatheringController {
             return null;
         }
         if (type.matchesBlock(state)) {
-            if (oreToolGate.isBlockBlocked(state)) {
+            if (context.blockedOres.test(state)) {
                 return null;
             }
             return new TargetSelection(pos, pos, pos, null);
@@ -729,34 +876,33 @@ public final class CompanionGatheringController {
     }
 
     private TargetSelection resolveObstruction(BlockPos resourcePos, BlockPos sightPos) {
-        Vec3 eye = owner.getEyePosition();
-        Vec3 targetCenter = Vec3.atCenterOf(resourcePos);
-        BlockHitResult hit = owner.level().clip(new ClipContext(eye, targetCenter, ClipContext.Block.COLLIDER,
-                ClipContext.Fluid.NONE, owner));
-        if (hit.getType() == HitResult.Type.MISS) {
+        return resolveObstruction(liveScanContext(), resourcePos, sightPos);
+    }
+
+    private static TargetSelection resolveObstruction(ScanContext context, BlockPos resourcePos, BlockPos sightPos) {
+        CompanionObstructionResolver.Result hit = context.obstructions.trace(context.eye, resourcePos);
+        if (hit.isClear()) {
             return new TargetSelection(resourcePos, resourcePos, sightPos, null, null);
         }
-        if (hit.getType() != HitResult.Type.BLOCK) {
-            return null;
-        }
         BlockPos hitPos = hit.getBlockPos();
         if (hitPos.equals(resourcePos) || hitPos.equals(sightPos)) {
             return new TargetSelection(resourcePos, resourcePos, sightPos, null, null);
         }
-        BlockState hitState = owner.level().getBlockState(hitPos);
-        if (!isBreakable(hitState, hitPos)) {
+        BlockState hitState = context.level.getBlockState(hitPos);
+        if (!isBreakable(context.level, hitState, hitPos)) {
             return null;
         }
-        if (isOreRequest(activeType) && exceedsOccludedOreDepth(hitPos, resourcePos)) {
+        if (context.oreRequest && hit.getOccludedDepth() > context.maxOccludedOreBlocks) {
             return null;
         }
         return new TargetSelection(hitPos, resourcePos, sightPos, null, resourcePos);
     }
 
     private void startVisibleScan(CompanionResourceType type, BlockPos origin, int scanRadius) {
+        cancelAsyncScan();
         scanPhase = ScanPhase.VISIBLE;
         boolean requireLineOfSight = type == CompanionResourceType.LOG;
-        scanState = new ScanState(type, origin, scanRadius, scanRadius, origin,
+        scanState = new ScanState(owner.level(), type, origin, scanRadius, scanRadius, origin,
                 scanRadius, false, requireLineOfSight, VISIBLE_FOV_DOT, true);
         stoneDigScanState = null;
     }
@@ -797,15 +943,15 @@ public final class CompanionGatheringController {
         return null;
     }
 
-    private BlockPos resolveLogFromLeaves(BlockPos leafPos) {
+    private static BlockPos resolveLogFromLeaves(BlockGetter level, BlockPos leafPos) {
         BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
         for (int dy = 0; dy <= LOG_FROM_LEAVES_MAX_DEPTH; dy++) {
             int y = leafPos.getY() - dy;
             for (int dx = -LOG_FROM_LEAVES_RADIUS; dx <= LOG_FROM_LEAVES_RADIUS; dx++) {
                 for (int dz = -LOG_FROM_LEAVES_RADIUS; dz <= LOG_FROM_LEAVES_RADIUS; dz++) {
                     pos.set(leafPos.getX() + dx, y, leafPos.getZ() + dz);
-                    if (CompanionBlockRegistry.isLog(owner.level().getBlockState(pos))) {
-                        return resolveLogTarget(pos.immutable());
+                    if (CompanionBlockRegistry.isLog(level.getBlockState(pos))) {
+                        return resolveLogTarget(level, pos.immutable());
                     }
                 }
             }
@@ -813,10 +959,10 @@ public final class CompanionGatheringController {
         return null;
     }
 
-    private BlockPos resolveLogTarget(BlockPos pos) {
+    private static BlockPos resolveLogTarget(BlockGetter level, BlockPos pos) {
         BlockPos current = pos;
         BlockPos below = current.below();
-        while (CompanionBlockRegistry.isLog(owner.level().getBlockState(below))) {
+        while (CompanionBlockRegistry.isLog(level.getBlockState(below))) {
             current = below;
             below = current.below();
         }
@@ -843,13 +989,17 @@ public final class CompanionGatheringController {
     }
 
     private boolean isBreakable(BlockState state, BlockPos pos) {
+        return isBreakable(owner.level(), state, pos);
+    }
+
+    private static boolean isBreakable(BlockGetter level, BlockState state, BlockPos pos) {
         if (state.isAir()) {
             return false;
         }
         if (state.is(Blocks.BEDROCK) || state.is(Blocks.BARRIER)) {
             return false;
         }
-        return state.getDestroySpeed(owner.level(), pos) >= 0.0F;
+        return state.getDestroySpeed(level, pos) >= 0.0F;
     }
 
     private boolean isOreRequest(CompanionResourceType type) {
@@ -896,6 +1046,7 @@ public final class CompanionGatheringController {
         }
         owner.setItemInHand(InteractionHand.MAIN_HAND, fakePlayer.getMainHandItem().copy());
         int collectedFromFakeInventory = collectFakePlayerOreDrops(fakePlayer);
+        owner.getEntitySnapshot().invalidate();
         collectNearbyRequestDrops(pos);
         int afterCount = inventory.countMatching(activeType::matchesItem);
         if (afterCount > beforeCount || collectedFromFakeInventory > 0) {
@@ -910,7 +1061,7 @@ public final class CompanionGatheringController {
             return;
         }
         AABB area = new AABB(center).inflate(12.0D, 8.0D, 12.0D);
-        List<ItemEntity> drops = owner.level().getEntitiesOfClass(ItemEntity.class, area);
+        List<ItemEntity> drops = owner.getEntitySnapshot().getEntitiesOfClass(ItemEntity.class, area);
         for (ItemEntity entity : drops) {
             if (!entity.isAlive()) {
                 continue;
@@ -1171,6 +1322,7 @@ public final class CompanionGatheringController {
         }
         oreDropCollectCenter = center.immutable();
         oreDropCollectUntilTick = gameTime + ORE_DROP_COLLECT_WINDOW_TICKS;
+        owner.getEntitySnapshot().invalidate();
         collectNearbyRequestDrops(oreDropCollectCenter);
     }
 
@@ -1187,6 +1339,7 @@ public final class CompanionGatheringController {
     }
 
     private void resetScanState() {
+        cancelAsyncScan();
         scanPhase = null;
         scanState = null;
         stoneDigScanState = null;
@@ -1258,16 +1411,11 @@ public final class CompanionGatheringController {
         return first.equals(second);
     }
 
-    private boolean exceedsOccludedOreDepth(BlockPos blockerPos, BlockPos resourcePos) {
-        if (blockerPos == null || resourcePos == null) {
-            return false;
+    private static Predicate<BlockState> sectionFilterFor(CompanionResourceType type) {
+        if (type == CompanionResourceType.LOG) {
+            return state -> CompanionBlockRegistry.isLog(state) || CompanionBlockRegistry.isLeaves(state);
         }
-        int maxOccluded = CompanionConfig.getMaxOccludedOreBlocks();
-        int dx = Math.abs(blockerPos.getX() - resourcePos.getX());
-        int dy = Math.abs(blockerPos.getY() - resourcePos.getY());
-        int dz = Math.abs(blockerPos.getZ() - resourcePos.getZ());
-        int depth = Math.max(dx, Math.max(dy, dz));
-        return depth > maxOccluded;
+        return type::matchesBlock;
     }
 
     private static int[] buildOffsets(int radius) {
@@ -1295,17 +1443,41 @@ public final class CompanionGatheringController {
         private final boolean requireLineOfSight;
         private final float minDot;
         private final boolean returnOnFirstMatch;
-        private final int[] xOffsets;
-        private final int[] yOffsets;
-        private final int[] zOffsets;
-        private int ix;
-        private int iy;
-        private int iz;
+        private final Predicate<BlockState> sectionFilter;
+        private final int minX;
+        private final int maxX;
+        private final int minY;
+        private final int maxY;
+        private final int minZ;
+        private final int maxZ;
+        private final int originSectionX;
+        private final int originSectionY;
+        private final int originSectionZ;
+        private final int minSectionX;
+        private final int maxSectionX;
+        private final int minSectionY;
+        private final int maxSectionY;
+        private final int minSectionZ;
+        private final int maxSectionZ;
+        private final int[] shellOrder;
+        private final boolean pruneByDistance;
+        private int shellIndex;
+        private PalettedContainer<BlockState> section;
+        private int sectionMinX;
+        private int sectionMaxX;
+        private int sectionMinY;
+        private int sectionMaxY;
+        private int sectionMinZ;
+        private int sectionMaxZ;
+        private int x;
+        private int y;
+        private int z;
         private double bestScore = Double.MAX_VALUE;
         private TargetSelection best;
         private boolean finished;
 
-        private ScanState(CompanionResourceType type,
+        private ScanState(Level level,
+                          CompanionResourceType type,
                           BlockPos origin,
                           int radius,
                           int height,
@@ -1323,9 +1495,25 @@ public final class CompanionGatheringController {
             this.requireLineOfSight = requireLineOfSight;
             this.minDot = minDot;
             this.returnOnFirstMatch = returnOnFirstMatch;
-            this.xOffsets = buildOffsets(radius);
-            this.yOffsets = buildOffsets(height);
-            this.zOffsets = buildOffsets(radius);
+            this.sectionFilter = sectionFilterFor(type);
+            this.minX = origin.getX() - radius;
+            this.maxX = origin.getX() + radius;
+            this.minY = Math.max(level.getMinBuildHeight(), origin.getY() - height);
+            this.maxY = Math.min(level.getMaxBuildHeight() - 1, origin.getY() + height);
+            this.minZ = origin.getZ() - radius;
+            this.maxZ = origin.getZ() + radius;
+            this.originSectionX = SectionPos.blockToSectionCoord(origin.getX());
+            this.originSectionY = SectionPos.blockToSectionCoord(origin.getY());
+            this.originSectionZ = SectionPos.blockToSectionCoord(origin.getZ());
+            this.minSectionX = SectionPos.blockToSectionCoord(minX);
+            this.maxSectionX = SectionPos.blockToSectionCoord(maxX);
+            this.minSectionY = SectionPos.blockToSectionCoord(minY);
+            this.maxSectionY = SectionPos.blockToSectionCoord(maxY);
+            this.minSectionZ = SectionPos.blockToSectionCoord(minZ);
+            this.maxSectionZ = SectionPos.blockToSectionCoord(maxZ);
+            this.shellOrder = CompanionChunkSections.getShellOrder(radius, height);
+            this.pruneByDistance = !scoreByTarget && type != CompanionResourceType.LOG && distanceOrigin.equals(origin);
+            this.finished = minY > maxY;
         }
 
         private boolean matches(CompanionResourceType type, BlockPos origin) {
@@ -1336,22 +1524,26 @@ public final class CompanionGatheringController {
             return finished;
         }
 
-        private TargetSelection step(CompanionGatheringController controller, int budget) {
+        private TargetSelection step(ScanContext context, CompanionChunkSections.SectionLookup sections,
+                                     BooleanSupplier budget) {
             if (finished) {
                 return best;
             }
-            Vec3 eye = controller.owner.getEyePosition();
-            Vec3 look = controller.owner.getLookAngle().normalize();
+            Vec3 eye = context.eye;
+            Vec3 look = context.look;
             BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
-            int processed = 0;
-            while (processed < budget && !finished) {
-                int dx = xOffsets[ix];
-                int dy = yOffsets[iy];
-                int dz = zOffsets[iz];
-                pos.set(origin.getX() + dx, origin.getY() + dy, origin.getZ() + dz);
-                processed++;
-                BlockState state = controller.owner.level().getBlockState(pos);
-                TargetSelection selection = controller.resolveTargetSelection(type, pos.immutable(), state);
+            while (!finished && budget.getAsBoolean()) {
+                if (section == null && !enterSection(sections)) {
+                    advanceSection();
+                    continue;
+                }
+                if (pruneByDistance && best != null && distanceSqrToOrigin(x, y, z) >= bestScore) {
+                    advanceBlock();
+                    continue;
+                }
+                pos.set(x, y, z);
+                BlockState state = section.get(x & 15, y & 15, z & 15);
+                TargetSelection selection = resolveTargetSelection(context, type, pos.immutable(), state);
                 if (selection != null) {
                     Vec3 sightCenter = Vec3.atCenterOf(selection.sightPos);
                     Vec3 toTarget = sightCenter.subtract(eye);
@@ -1359,9 +1551,9 @@ public final class CompanionGatheringController {
                     if (distanceSqr <= maxDistanceSqr) {
                         double dot = look.dot(toTarget.normalize());
                         if (dot >= minDot) {
-                            TargetSelection raySelection = controller.resolveObstruction(selection.resourcePos, selection.sightPos);
+                            TargetSelection raySelection = resolveObstruction(context, selection.resourcePos, selection.sightPos);
                             if (raySelection != null && (!requireLineOfSight || raySelection.pendingResource == null)) {
-                                if (returnOnFirstMatch) {
+                                if (returnOnFirstMatch && !pruneByDistance) {
                                     best = raySelection;
                                     finished = true;
                                     return best;
@@ -1376,7 +1568,7 @@ public final class CompanionGatheringController {
                         }
                     }
                 }
-                advanceIndices();
+                advanceBlock();
             }
             if (finished) {
                 return best;
@@ -1384,19 +1576,77 @@ public final class CompanionGatheringController {
             return null;
         }
 
-        private void advanceIndices() {
-            iz++;
-            if (iz < zOffsets.length) {
+        private boolean enterSection(CompanionChunkSections.SectionLookup sections) {
+            int offset = shellIndex * CompanionChunkSections.SHELL_STRIDE;
+            if (pruneByDistance && best != null && shellOrder[offset + 3] >= bestScore) {
+                finished = true;
+                return false;
+            }
+            int sectionX = originSectionX + shellOrder[offset];
+            int sectionY = originSectionY + shellOrder[offset + 1];
+            int sectionZ = originSectionZ + shellOrder[offset + 2];
+            if (sectionX < minSectionX || sectionX > maxSectionX
+                    || sectionY < minSectionY || sectionY > maxSectionY
+                    || sectionZ < minSectionZ || sectionZ > maxSectionZ) {
+                return false;
+            }
+            PalettedContainer<BlockState> candidate = sections.getStates(sectionX, sectionY, sectionZ);
+            if (!CompanionChunkSections.mayContain(candidate, sectionFilter)) {
+                return false;
+            }
+            sectionMinX = Math.max(minX, SectionPos.sectionToBlockCoord(sectionX));
+            sectionMaxX = Math.min(maxX, SectionPos.sectionToBlockCoord(sectionX, 15));
+            sectionMinY = Math.max(minY, SectionPos.sectionToBlockCoord(sectionY));
+            sectionMaxY = Math.min(maxY, SectionPos.sectionToBlockCoord(sectionY, 15));
+            sectionMinZ = Math.max(minZ, SectionPos.sectionToBlockCoord(sectionZ));
+            sectionMaxZ = Math.min(maxZ, SectionPos.sectionToBlockCoord(sectionZ, 15));
+            if (pruneByDistance && best != null && distanceSqrToBox(sectionMinX, sectionMinY, sectionMinZ,
+                    sectionMaxX, sectionMaxY, sectionMaxZ) >= bestScore) {
+                return false;
+            }
+            section = candidate;
+            x = sectionMinX;
+            y = sectionMinY;
+            z = sectionMinZ;
+            return true;
+        }
+
+        private double distanceSqrToOrigin(int x, int y, int z) {
+            double dx = x - origin.getX();
+            double dy = y - origin.getY();
+            double dz = z - origin.getZ();
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        private double distanceSqrToBox(int boxMinX, int boxMinY, int boxMinZ, int boxMaxX, int boxMaxY, int boxMaxZ) {
+            int dx = Math.max(0, Math.max(boxMinX - origin.getX(), origin.getX() - boxMaxX));
+            int dy = Math.max(0, Math.max(boxMinY - origin.getY(), origin.getY() - boxMaxY));
+            int dz = Math.max(0, Math.max(boxMinZ - origin.getZ(), origin.getZ() - boxMaxZ));
+            return distanceSqrToOrigin(origin.getX() + dx, origin.getY() + dy, origin.getZ() + dz);
+        }
+
+        private void advanceBlock() {
+            z++;
+            if (z <= sectionMaxZ) {
                 return;
             }
-            iz = 0;
-            iy++;
-            if (iy < yOffsets.length) {
+            z = sectionMinZ;
+            y++;
+            if (y <= sectionMaxY) {
                 return;
             }
-            iy = 0;
-            ix++;
-            if (ix >= xOffsets.length) {
+            y = sectionMinY;
+            x++;
+            if (x <= sectionMaxX) {
+                return;
+            }
+            section = null;
+            advanceSection();
+        }
+
+        private void advanceSection() {
+            shellIndex++;
+            if (shellIndex * CompanionChunkSections.SHELL_STRIDE >= shellOrder.length) {
                 finished = true;
             }
         }
@@ -1424,13 +1674,12 @@ public final class CompanionGatheringController {
             return finished;
         }
 
-        private TargetSelection step(CompanionGatheringController controller, int budget) {
+        private TargetSelection step(CompanionGatheringController controller, CompanionScanScheduler.Slice slice) {
             if (finished) {
                 return null;
             }
             BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
-            int processed = 0;
-            while (processed < budget && !finished) {
+            while (!finished && slice.tryConsume()) {
                 int dx = xOffsets[ix];
                 int dz = zOffsets[iz];
                 int x = origin.getX() + dx;
@@ -1447,7 +1696,6 @@ public final class CompanionGatheringController {
                         }
                     }
                 }
-                processed++;
                 advanceIndices();
             }
             return null;
@@ -1466,6 +1714,37 @@ public final class CompanionGatheringController {
         }
     }
 
+    private static final class ScanContext {
+        private final BlockGetter level;
+        private final CompanionObstructionResolver obstructions;
+        private final Vec3 eye;
+        private final Vec3 look;
+        private final Predicate<BlockState> blockedOres;
+        private final boolean oreRequest;
+        private final int maxOccludedOreBlocks;
+
+        private ScanContext(BlockGetter level,
+                            CompanionObstructionResolver obstructions,
+                            Vec3 eye,
+                            Vec3 look,
+                            Predicate<BlockState> blockedOres,
+                            boolean oreRequest,
+                            int maxOccludedOreBlocks) {
+            this.level = level;
+            this.obstructions = obstructions;
+            this.eye = eye;
+            this.look = look;
+            this.blockedOres = blockedOres;
+            this.oreRequest = oreRequest;
+            this.maxOccludedOreBlocks = maxOccludedOreBlocks;
+        }
+
+        private ScanContext withSnapshot(CompanionBlockSnapshot snapshot) {
+            return new ScanContext(snapshot, new CompanionObstructionResolver(snapshot), eye, look, blockedOres,
+                    oreRequest, maxOccludedOreBlocks);
+        }
+    }
+
     private static final class TargetSelection {
         private final BlockPos target;
         private final BlockPos resourcePos;
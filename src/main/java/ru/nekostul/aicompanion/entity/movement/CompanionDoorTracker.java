@@ -0,0 +1,215 @@
+package ru.nekostul.aicompanion.entity.movement;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.DoorBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.DoubleBlockHalf;
+
+public final class CompanionDoorTracker {
+    public static final int SCAN_RADIUS = 2;
+    private static final double NEAR_DISTANCE_SQR = 9.0D;
+    private static final int CLOSE_DELAY_TICKS = 12;
+    private static final long NOT_SCHEDULED = Long.MAX_VALUE;
+
+    private final Mob owner;
+    private final Long2ObjectOpenHashMap<DoorPair> pairs = new Long2ObjectOpenHashMap<>();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private final BlockPos.MutableBlockPos probe = new BlockPos.MutableBlockPos();
+    private long lastScanPos = Long.MIN_VALUE;
+    private boolean dirty = true;
+    private int nearPairs;
+    private long nextCloseTick = NOT_SCHEDULED;
+
+    public CompanionDoorTracker(Mob owner) {
+        this.owner = owner;
+    }
+
+    public void markDirty() {
+        dirty = true;
+    }
+
+    public void tick(long gameTime) {
+        long feet = owner.blockPosition().asLong();
+        if (dirty || feet != lastScanPos) {
+            lastScanPos = feet;
+            dirty = false;
+            discoverPairs();
+            updateNearness(gameTime);
+        }
+        if (nearPairs > 0) {
+            syncNearPairs();
+        }
+        if (gameTime >= nextCloseTick) {
+            closeDuePairs(gameTime);
+        }
+    }
+
+    private void discoverPairs() {
+        Level level = owner.level();
+        BlockPos base = owner.blockPosition();
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -SCAN_RADIUS; dx <= SCAN_RADIUS; dx++) {
+                for (int dz = -SCAN_RADIUS; dz <= SCAN_RADIUS; dz++) {
+                    cursor.set(base.getX() + dx, base.getY() + dy, base.getZ() + dz);
+                    BlockState state = level.getBlockState(cursor);
+                    if (!isLowerDoorState(state)) {
+                        continue;
+                    }
+                    long packed = cursor.asLong();
+                    Direction facing = state.getValue(DoorBlock.FACING);
+                    Direction side = positiveSide(facing);
+                    tryAddPair(level, packed, BlockPos.offset(packed, side), facing);
+                    tryAddPair(level, BlockPos.offset(packed, side.getOpposite()), packed, facing);
+                }
+            }
+        }
+    }
+
+    private void tryAddPair(Level level, long anchor, long partner, Direction facing) {
+        if (pairs.containsKey(anchor)) {
+            return;
+        }
+        if (!isDoorFacing(level.getBlockState(probe.set(anchor)), facing)
+                || !isDoorFacing(level.getBlockState(probe.set(partner)), facing)) {
+            return;
+        }
+        pairs.put(anchor, new DoorPair(anchor, partner));
+    }
+
+    private void updateNearness(long gameTime) {
+        nearPairs = 0;
+        nextCloseTick = NOT_SCHEDULED;
+        BlockPos base = owner.blockPosition();
+        for (DoorPair pair : pairs.values()) {
+            if (isInScanBox(base, pair.first) || isInScanBox(base, pair.second)) {
+                pair.near = true;
+                pair.closeAtTick = NOT_SCHEDULED;
+                nearPairs++;
+                continue;
+            }
+            if (pair.near || pair.closeAtTick == NOT_SCHEDULED) {
+                pair.near = false;
+                pair.closeAtTick = gameTime + CLOSE_DELAY_TICKS;
+            }
+            nextCloseTick = Math.min(nextCloseTick, pair.closeAtTick);
+        }
+    }
+
+    private void syncNearPairs() {
+        Level level = owner.level();
+        ObjectIterator<DoorPair> iterator = pairs.values().iterator();
+        while (iterator.hasNext()) {
+            DoorPair pair = iterator.next();
+            if (!pair.near) {
+                continue;
+            }
+            BlockState first = level.getBlockState(cursor.set(pair.first));
+            BlockState second = level.getBlockState(cursor.set(pair.second));
+            if (!isLowerDoorState(first) || !isLowerDoorState(second)) {
+                iterator.remove();
+                nearPairs--;
+                continue;
+            }
+            boolean open = first.getValue(DoorBlock.OPEN) || second.getValue(DoorBlock.OPEN);
+            setDoorOpenState(pair.first, first, open);
+            setDoorOpenState(pair.second, second, open);
+        }
+    }
+
+    private void closeDuePairs(long gameTime) {
+        Level level = owner.level();
+        nextCloseTick = NOT_SCHEDULED;
+        ObjectIterator<DoorPair> iterator = pairs.values().iterator();
+        while (iterator.hasNext()) {
+            DoorPair pair = iterator.next();
+            if (pair.near) {
+                continue;
+            }
+            if (pair.closeAtTick <= gameTime && isNear(pair)) {
+                pair.closeAtTick = gameTime + CLOSE_DELAY_TICKS;
+            }
+            if (pair.closeAtTick > gameTime) {
+                nextCloseTick = Math.min(nextCloseTick, pair.closeAtTick);
+                continue;
+            }
+            iterator.remove();
+            BlockState first = level.getBlockState(cursor.set(pair.first));
+            BlockState second = level.getBlockState(cursor.set(pair.second));
+            if (!isLowerDoorState(first) || !isLowerDoorState(second)) {
+                continue;
+            }
+            setDoorOpenState(pair.first, first, false);
+            setDoorOpenState(pair.second, second, false);
+        }
+    }
+
+    private static boolean isInScanBox(BlockPos base, long packed) {
+        return Math.abs(BlockPos.getX(packed) - base.getX()) <= SCAN_RADIUS
+                && Math.abs(BlockPos.getY(packed) - base.getY()) <= 1
+                && Math.abs(BlockPos.getZ(packed) - base.getZ()) <= SCAN_RADIUS;
+    }
+
+    private boolean isNear(DoorPair pair) {
+        return distanceSqrTo(pair.first) <= NEAR_DISTANCE_SQR || distanceSqrTo(pair.second) <= NEAR_DISTANCE_SQR;
+    }
+
+    private double distanceSqrTo(long packed) {
+        return owner.distanceToSqr(BlockPos.getX(packed) + 0.5D, BlockPos.getY(packed),
+                BlockPos.getZ(packed) + 0.5D);
+    }
+
+    private void setDoorOpenState(long packed, BlockState lower, boolean open) {
+        if (lower.getValue(DoorBlock.OPEN) == open) {
+            return;
+        }
+        Level level = owner.level();
+        BlockPos lowerPos = BlockPos.of(packed);
+        level.setBlock(lowerPos, lower.setValue(DoorBlock.OPEN, open), 10);
+        BlockPos upperPos = lowerPos.above();
+        BlockState upper = level.getBlockState(upperPos);
+        if (!(upper.getBlock() instanceof DoorBlock)
+                || !upper.hasProperty(DoorBlock.HALF)
+                || upper.getValue(DoorBlock.HALF) != DoubleBlockHalf.UPPER
+                || !upper.hasProperty(DoorBlock.OPEN)) {
+            return;
+        }
+        level.setBlock(upperPos, upper.setValue(DoorBlock.OPEN, open), 10);
+    }
+
+    private static Direction positiveSide(Direction facing) {
+        Direction side = facing.getClockWise();
+        return side.getAxisDirection() == Direction.AxisDirection.POSITIVE ? side : side.getOpposite();
+    }
+
+    private static boolean isDoorFacing(BlockState state, Direction facing) {
+        return isLowerDoorState(state) && state.getValue(DoorBlock.FACING) == facing;
+    }
+
+    public static boolean isLowerDoorState(BlockState state) {
+        if (!(state.getBlock() instanceof DoorBlock)) {
+            return false;
+        }
+        if (!state.hasProperty(DoorBlock.HALF) || !state.hasProperty(DoorBlock.OPEN)
+                || !state.hasProperty(DoorBlock.FACING)) {
+            return false;
+        }
+        return state.getValue(DoorBlock.HALF) == DoubleBlockHalf.LOWER;
+    }
+
+    private static final class DoorPair {
+        private final long first;
+        private final long second;
+        private boolean near;
+        private long closeAtTick = NOT_SCHEDULED;
+
+        private DoorPair(long first, long second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ru.nekostul.aicompanion.entity.movement;
+
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.tags.FluidTags;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.DoorBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import ru.nekostul.aicompanion.entity.scan.CompanionScanScheduler;
+
+public final class CompanionReachabilityField {
+    public static final int UNREACHABLE = -1;
+
+    private static final byte CELL_UNKNOWN = 0;
+    private static final byte CELL_OPEN = 1;
+    private static final byte CELL_SOLID = 2;
+    private static final byte CELL_BLOCKED = 3;
+    private static final int MAX_DROP = 3;
+    private static final int NO_LANDING = Integer.MIN_VALUE;
+    private static final int[] STEP_X = {1, -1, 0, 0};
+    private static final int[] STEP_Z = {0, 0, 1, -1};
+
+    private final Level level;
+    private final BlockPos origin;
+    private final int radius;
+    private final int height;
+    private final int maxNodes;
+    private final Long2IntOpenHashMap distances = new Long2IntOpenHashMap();
+    private final Long2ByteOpenHashMap cells = new Long2ByteOpenHashMap();
+    private final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private boolean complete;
+
+    public CompanionReachabilityField(Level level, BlockPos origin, int radius, int height, int maxNodes) {
+        this.level = level;
+        this.origin = origin.immutable();
+        this.radius = radius;
+        this.height = height;
+        this.maxNodes = maxNodes;
+        this.distances.defaultReturnValue(UNREACHABLE);
+        this.cells.defaultReturnValue(CELL_UNKNOWN);
+        this.distances.put(this.origin.asLong(), 0);
+        this.queue.enqueue(this.origin.asLong());
+    }
+
+    public boolean matches(BlockPos origin) {
+        return this.origin.equals(origin);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean step(CompanionScanScheduler.Slice slice) {
+        while (!complete && slice.tryConsume()) {
+            if (queue.isEmpty()) {
+                complete = true;
+                break;
+            }
+            long packed = queue.dequeueLong();
+            int x = BlockPos.getX(packed);
+            int y = BlockPos.getY(packed);
+            int z = BlockPos.getZ(packed);
+            int distance = distances.get(packed);
+            for (int i = 0; i < STEP_X.length; i++) {
+                int nextX = x + STEP_X[i];
+                int nextZ = z + STEP_Z[i];
+                if (Math.abs(nextX - origin.getX()) > radius || Math.abs(nextZ - origin.getZ()) > radius) {
+                    continue;
+                }
+                int nextY = findLanding(x, y, z, nextX, nextZ);
+                if (nextY == NO_LANDING || Math.abs(nextY - origin.getY()) > height) {
+                    continue;
+                }
+                long next = BlockPos.asLong(nextX, nextY, nextZ);
+                if (distances.containsKey(next)) {
+                    continue;
+                }
+                if (distances.size() >= maxNodes) {
+                    complete = true;
+                    return true;
+                }
+                distances.put(next, distance + 1);
+                queue.enqueue(next);
+            }
+        }
+        return complete;
+    }
+
+    public int getDistance(BlockPos pos) {
+        return pos == null ? UNREACHABLE : distances.get(pos.asLong());
+    }
+
+    private int findLanding(int x, int y, int z, int nextX, int nextZ) {
+        if (canStandAt(nextX, y, nextZ)) {
+            return y;
+        }
+        if (isOpen(x, y + 2, z) && canStandAt(nextX, y + 1, nextZ)) {
+            return y + 1;
+        }
+        if (!isOpen(nextX, y, nextZ) || !isOpen(nextX, y + 1, nextZ)) {
+            return NO_LANDING;
+        }
+        for (int drop = 1; drop <= MAX_DROP; drop++) {
+            int nextY = y - drop;
+            if (canStandAt(nextX, nextY, nextZ)) {
+                return nextY;
+            }
+            if (!isOpen(nextX, nextY, nextZ)) {
+                return NO_LANDING;
+            }
+        }
+        return NO_LANDING;
+    }
+
+    private boolean canStandAt(int x, int y, int z) {
+        return isOpen(x, y, z) && isOpen(x, y + 1, z) && cellAt(x, y - 1, z) == CELL_SOLID;
+    }
+
+    private boolean isOpen(int x, int y, int z) {
+        return cellAt(x, y, z) == CELL_OPEN;
+    }
+
+    private byte cellAt(int x, int y, int z) {
+        long key = BlockPos.asLong(x, y, z);
+        byte cell = cells.get(key);
+        if (cell != CELL_UNKNOWN) {
+            return cell;
+        }
+        cursor.set(x, y, z);
+        if (!level.isLoaded(cursor) || level.isOutsideBuildHeight(cursor)) {
+            cell = CELL_BLOCKED;
+        } else {
+            BlockState state = level.getBlockState(cursor);
+            FluidState fluid = state.getFluidState();
+            if (!fluid.isEmpty() && !fluid.is(FluidTags.WATER)) {
+                cell = CELL_BLOCKED;
+            } else if (state.getBlock() instanceof DoorBlock && DoorBlock.isWoodenDoor(state)) {
+                cell = CELL_OPEN;
+            } else {
+                VoxelShape shape = state.getCollisionShape(level, cursor);
+                if (shape.isEmpty()) {
+                    cell = CELL_OPEN;
+                } else if (shape.max(Direction.Axis.Y) > 1.0D) {
+                    cell = CELL_BLOCKED;
+                } else {
+                    cell = CELL_SOLID;
+                }
+            }
+        }
+        cells.put(key, cell);
+        return cell;
+    }
+}
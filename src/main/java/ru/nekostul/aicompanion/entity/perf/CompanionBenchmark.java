@@ -0,0 +1,209 @@
+package ru.nekostul.aicompanion.entity.perf;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.MobSpawnType;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.levelgen.Heightmap;
+import org.slf4j.Logger;
+import ru.nekostul.aicompanion.entity.CompanionEntity;
+import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
+import ru.nekostul.aicompanion.registry.ModEntities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+public final class CompanionBenchmark {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final String REPORT_HEADER_KEY = "entity.aicompanion.companion.bench.report.header";
+    private static final String REPORT_BASELINE_KEY = "entity.aicompanion.companion.bench.report.baseline";
+    private static final String REPORT_LOADED_KEY = "entity.aicompanion.companion.bench.report.loaded";
+    private static final String REPORT_COST_KEY = "entity.aicompanion.companion.bench.report.cost";
+    private static final int BASELINE_TICKS = 100;
+    private static final int WARMUP_TICKS = 100;
+    private static final double SPAWN_MIN_RADIUS = 4.0D;
+    private static final double SPAWN_RADIUS_STEP = 1.5D;
+    private static final double GOLDEN_ANGLE = Math.PI * (3.0D - Math.sqrt(5.0D));
+    private static final int LOG_TASK_AMOUNT = 16;
+    private static final int STONE_TASK_AMOUNT = 32;
+
+    private static Run current;
+    private static long tickStartNanos = -1L;
+
+    private CompanionBenchmark() {
+    }
+
+    public static boolean start(ServerPlayer player, int count, int sampleTicks) {
+        if (player == null || current != null) {
+            return false;
+        }
+        current = new Run(player, count, sampleTicks);
+        return true;
+    }
+
+    public static boolean stop() {
+        if (current == null) {
+            return false;
+        }
+        current.discardCompanions();
+        current = null;
+        return true;
+    }
+
+    public static void onTickStart() {
+        tickStartNanos = current != null ? System.nanoTime() : -1L;
+    }
+
+    public static void onTickEnd(MinecraftServer server) {
+        if (current == null || tickStartNanos < 0L) {
+            return;
+        }
+        long elapsed = System.nanoTime() - tickStartNanos;
+        tickStartNanos = -1L;
+        if (current.onTick(server, elapsed)) {
+            current = null;
+        }
+    }
+
+    private static final class Run {
+        private final UUID playerId;
+        private final int count;
+        private final long[] baseline = new long[BASELINE_TICKS];
+        private final long[] loaded;
+        private final List<CompanionEntity> companions = new ArrayList<>();
+        private Phase phase = Phase.BASELINE;
+        private int cursor;
+
+        private Run(ServerPlayer player, int count, int sampleTicks) {
+            this.playerId = player.getUUID();
+            this.count = count;
+            this.loaded = new long[sampleTicks];
+        }
+
+        private boolean onTick(MinecraftServer server, long tickNanos) {
+            ServerPlayer player = server.getPlayerList().getPlayer(playerId);
+            if (player == null) {
+                discardCompanions();
+                return true;
+            }
+            switch (phase) {
+                case BASELINE -> {
+                    baseline[cursor++] = tickNanos;
+                    if (cursor >= baseline.length) {
+                        spawnCompanions(player);
+                        advance(Phase.WARMUP);
+                    }
+                }
+                case WARMUP -> {
+                    if (++cursor >= WARMUP_TICKS) {
+                        advance(Phase.SAMPLE);
+                    }
+                }
+                case SAMPLE -> {
+                    loaded[cursor++] = tickNanos;
+                    if (cursor >= loaded.length) {
+                        report(player);
+                        discardCompanions();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void advance(Phase next) {
+            phase = next;
+            cursor = 0;
+        }
+
+        private void spawnCompanions(ServerPlayer player) {
+            ServerLevel level = player.serverLevel();
+            for (int i = 0; i < count; i++) {
+                double angle = i * GOLDEN_ANGLE;
+                double radius = SPAWN_MIN_RADIUS + Math.sqrt(i) * SPAWN_RADIUS_STEP;
+                BlockPos column = BlockPos.containing(player.getX() + Math.cos(angle) * radius, player.getY(),
+                        player.getZ() + Math.sin(angle) * radius);
+                BlockPos spawnPos = level.getHeightmapPos(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, column);
+                CompanionEntity companion = ModEntities.COMPANION.get().spawn(level, (ItemStack) null, null,
+                        spawnPos, MobSpawnType.COMMAND, false, false);
+                if (companion == null) {
+                    continue;
+                }
+                companions.add(companion);
+                assignRole(companion, player, i);
+            }
+        }
+
+        private void assignRole(CompanionEntity companion, ServerPlayer player, int index) {
+            if (!companion.claimBy(player)) {
+                return;
+            }
+            switch (index & 3) {
+                case 0 -> companion.setMode(CompanionEntity.CompanionMode.FOLLOW);
+                case 1 -> companion.setMode(CompanionEntity.CompanionMode.AUTONOMOUS);
+                case 2 -> companion.startResourceTask(player, CompanionResourceType.LOG, LOG_TASK_AMOUNT);
+                default -> companion.startResourceTask(player, CompanionResourceType.STONE, STONE_TASK_AMOUNT);
+            }
+        }
+
+        private void discardCompanions() {
+            for (CompanionEntity companion : companions) {
+                if (!companion.isRemoved()) {
+                    companion.discard();
+                }
+            }
+            companions.clear();
+        }
+
+        private void report(ServerPlayer player) {
+            long[] baselineSorted = baseline.clone();
+            long[] loadedSorted = loaded.clone();
+            Arrays.sort(baselineSorted);
+            Arrays.sort(loadedSorted);
+            long baselineAvg = average(baseline);
+            long loadedAvg = average(loaded);
+            int alive = 0;
+            for (CompanionEntity companion : companions) {
+                if (companion.isAlive()) {
+                    alive++;
+                }
+            }
+            List<Component> lines = new ArrayList<>();
+            lines.add(Component.translatable(REPORT_HEADER_KEY, companions.size(), alive, loaded.length));
+            lines.add(Component.translatable(REPORT_BASELINE_KEY,
+                    CompanionTickProfiler.formatMillis(baselineAvg),
+                    CompanionTickProfiler.formatMillis(CompanionTickProfiler.percentile(baselineSorted, 0.95D)),
+                    CompanionTickProfiler.formatMillis(baselineSorted[baselineSorted.length - 1])));
+            lines.add(Component.translatable(REPORT_LOADED_KEY,
+                    CompanionTickProfiler.formatMillis(loadedAvg),
+                    CompanionTickProfiler.formatMillis(CompanionTickProfiler.percentile(loadedSorted, 0.95D)),
+                    CompanionTickProfiler.formatMillis(loadedSorted[loadedSorted.length - 1])));
+            lines.add(Component.translatable(REPORT_COST_KEY,
+                    CompanionTickProfiler.formatMillis((loadedAvg - baselineAvg) / Math.max(1, alive))));
+            for (Component line : lines) {
+                LOGGER.info(line.getString());
+                player.sendSystemMessage(line);
+            }
+        }
+
+        private static long average(long[] values) {
+            long sum = 0L;
+            for (long value : values) {
+                sum += value;
+            }
+            return values.length == 0 ? 0L : sum / values.length;
+        }
+    }
+
+    private enum Phase {
+        BASELINE,
+        WARMUP,
+        SAMPLE
+    }
+}
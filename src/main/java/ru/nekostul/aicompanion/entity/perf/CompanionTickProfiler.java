@@ -0,0 +1,150 @@
+package ru.nekostul.aicompanion.entity.perf;
+
+import net.minecraft.network.chat.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public final class CompanionTickProfiler {
+    public enum Section {
+        AI_STEP("aiStep"),
+        STATE("state"),
+        ITEM_PICKUP("itemPickup"),
+        INVENTORY_EXCHANGE("inventoryExchange"),
+        HOME_REQUESTS("homeRequests"),
+        OWNER_DEFENSE("ownerDefense"),
+        HOME_RETURN("homeReturn"),
+        AUTONOMOUS("autonomous"),
+        HUNGER("hunger"),
+        HOME_REGEN("homeRegen"),
+        AMBIENT_CHAT("ambientChat"),
+        BOAT("boat"),
+        DOORS("doors"),
+        TELEPORT("teleport"),
+        SCAN("phase.scan"),
+        PATH_CHECK("phase.pathCheck"),
+        MINING("phase.mining"),
+        PLACEMENT("phase.placement");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final String PERF_HEADER_KEY = "entity.aicompanion.companion.perf.header";
+    private static final String PERF_SECTION_KEY = "entity.aicompanion.companion.perf.section";
+    private static final String PERF_WORST_KEY = "entity.aicompanion.companion.perf.worst";
+    private static final String PERF_WORST_SECTION_KEY = "entity.aicompanion.companion.perf.worst.section";
+    private static final int WINDOW_TICKS = 1200;
+    private static final int WORST_TICK_TOP_SECTIONS = 5;
+    private static final Section[] SECTIONS = Section.values();
+
+    private static final long[] tickNanos = new long[SECTIONS.length];
+    private static final long[][] samples = new long[SECTIONS.length][WINDOW_TICKS];
+    private static final long[] worstTick = new long[SECTIONS.length];
+    private static int cursor;
+    private static int filled;
+    private static boolean recordedThisTick;
+    private static long worstTickNumber = -1L;
+
+    private CompanionTickProfiler() {
+    }
+
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static long lap(Section section, long startNanos) {
+        long now = System.nanoTime();
+        tickNanos[section.ordinal()] += now - startNanos;
+        recordedThisTick = true;
+        return now;
+    }
+
+    public static void end(Section section, long startNanos) {
+        lap(section, startNanos);
+    }
+
+    public static void onTickEnd(long tickNumber) {
+        if (!recordedThisTick) {
+            return;
+        }
+        recordedThisTick = false;
+        for (int i = 0; i < SECTIONS.length; i++) {
+            samples[i][cursor] = tickNanos[i];
+        }
+        int total = Section.AI_STEP.ordinal();
+        if (worstTickNumber < 0L || tickNanos[total] > worstTick[total]) {
+            System.arraycopy(tickNanos, 0, worstTick, 0, tickNanos.length);
+            worstTickNumber = tickNumber;
+        }
+        Arrays.fill(tickNanos, 0L);
+        cursor = (cursor + 1) % WINDOW_TICKS;
+        filled = Math.min(WINDOW_TICKS, filled + 1);
+    }
+
+    public static void reset() {
+        Arrays.fill(tickNanos, 0L);
+        Arrays.fill(worstTick, 0L);
+        for (long[] section : samples) {
+            Arrays.fill(section, 0L);
+        }
+        cursor = 0;
+        filled = 0;
+        recordedThisTick = false;
+        worstTickNumber = -1L;
+    }
+
+    public static List<Component> report() {
+        List<Component> lines = new ArrayList<>();
+        if (filled == 0) {
+            return lines;
+        }
+        lines.add(Component.translatable(PERF_HEADER_KEY, filled));
+        long[] sorted = new long[filled];
+        for (Section section : SECTIONS) {
+            System.arraycopy(samples[section.ordinal()], 0, sorted, 0, filled);
+            Arrays.sort(sorted);
+            long max = sorted[filled - 1];
+            if (max == 0L) {
+                continue;
+            }
+            lines.add(Component.translatable(PERF_SECTION_KEY, section.getLabel(),
+                    formatMillis(percentile(sorted, 0.50D)), formatMillis(percentile(sorted, 0.99D)),
+                    formatMillis(max)));
+        }
+        lines.add(Component.translatable(PERF_WORST_KEY, formatMillis(worstTick[Section.AI_STEP.ordinal()]),
+                worstTickNumber));
+        List<Section> worstSections = new ArrayList<>();
+        for (Section section : SECTIONS) {
+            if (section != Section.AI_STEP && worstTick[section.ordinal()] > 0L) {
+                worstSections.add(section);
+            }
+        }
+        worstSections.sort((first, second) -> Long.compare(worstTick[second.ordinal()],
+                worstTick[first.ordinal()]));
+        for (int i = 0; i < Math.min(WORST_TICK_TOP_SECTIONS, worstSections.size()); i++) {
+            Section section = worstSections.get(i);
+            lines.add(Component.translatable(PERF_WORST_SECTION_KEY, section.getLabel(),
+                    formatMillis(worstTick[section.ordinal()])));
+        }
+        return lines;
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0D);
+    }
+}
@@ -199,7 +199,42 @@ public final class CompanionBlockRegistry {
     private static final EnumMap<CompanionResourceType, ResourceEntry> BY_TYPE =
             new EnumMap<>(CompanionResourceType.class);
 
+    private static final CompanionResourceType[] TYPES = CompanionResourceType.values();
+    private static final int FLAG_SHIFT = 48;
+    private static final long LEAVES_FLAG = 1L << FLAG_SHIFT;
+    private static final long BASE_STONE_FLAG = 1L << (FLAG_SHIFT + 1);
+    private static final long STONE_BLOCK_FLAG = 1L << (FLAG_SHIFT + 2);
+    private static final long SHOVEL_MINEABLE_FLAG = 1L << (FLAG_SHIFT + 3);
+    private static final long PICKAXE_MINEABLE_FLAG = 1L << (FLAG_SHIFT + 4);
+    private static final long SHOVEL_RESOURCE_MASK = maskOf(
+            CompanionResourceType.DIRT,
+            CompanionResourceType.SAND,
+            CompanionResourceType.GRAVEL,
+            CompanionResourceType.CLAY
+    );
+    private static final long PICKAXE_RESOURCE_MASK = maskOf(
+            CompanionResourceType.STONE,
+            CompanionResourceType.ANDESITE,
+            CompanionResourceType.DIORITE,
+            CompanionResourceType.GRANITE,
+            CompanionResourceType.BASALT,
+            CompanionResourceType.ORE,
+            CompanionResourceType.COAL_ORE,
+            CompanionResourceType.IRON_ORE,
+            CompanionResourceType.COPPER_ORE,
+            CompanionResourceType.GOLD_ORE,
+            CompanionResourceType.REDSTONE_ORE,
+            CompanionResourceType.LAPIS_ORE,
+            CompanionResourceType.DIAMOND_ORE,
+            CompanionResourceType.EMERALD_ORE
+    );
+
+    private static volatile long[] stateMasks;
+
     static {
+        if (TYPES.length > FLAG_SHIFT) {
+            throw new IllegalStateException("Too many resource types for the block state mask table");
+        }
         for (ResourceEntry entry : ENTRIES) {
             BY_TYPE.put(entry.type, entry);
         }
@@ -221,8 +256,37 @@ public final class CompanionBlockRegistry {
     }
 
     public static boolean matchesBlock(CompanionResourceType type, BlockState state) {
-        ResourceEntry entry = BY_TYPE.get(type);
-        return entry != null && entry.blockPredicate.test(state);
+        if (type == null || state == null) {
+            return false;
+        }
+        return (getStateMask(state) & maskOf(type)) != 0L;
+    }
+
+    public static long getResourceMask(BlockState state) {
+        return state == null ? 0L : getStateMask(state) & ~(-1L << FLAG_SHIFT);
+    }
+
+    public static long maskOf(CompanionResourceType type) {
+        return 1L << type.ordinal();
+    }
+
+    public static long maskOf(CompanionResourceType... types) {
+        long mask = 0L;
+        for (CompanionResourceType type : types) {
+            mask |= maskOf(type);
+        }
+        return mask;
+    }
+
+    public static void rebuildStateMasks() {
+        long[] masks = new long[Block.BLOCK_STATE_REGISTRY.size()];
+        for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+            int id = Block.BLOCK_STATE_REGISTRY.getId(state);
+            if (id >= 0 && id < masks.length) {
+                masks[id] = computeStateMask(state);
+            }
+        }
+        stateMasks = masks;
     }
 
     public static boolean matchesItem(CompanionResourceType type, ItemStack stack) {
@@ -240,47 +304,68 @@ public final class CompanionBlockRegistry {
     }
 
     public static boolean isLeaves(BlockState state) {
-        return state.is(BlockTags.LEAVES);
+        return (getStateMask(state) & LEAVES_FLAG) != 0L;
     }
 
     public static boolean isBaseStone(BlockState state) {
-        return state.is(BlockTags.BASE_STONE_OVERWORLD);
+        return (getStateMask(state) & BASE_STONE_FLAG) != 0L;
     }
 
     public static boolean isStoneBlock(BlockState state) {
-        return state.is(Blocks.STONE);
+        return (getStateMask(state) & STONE_BLOCK_FLAG) != 0L;
     }
 
     public static boolean isShovelMineable(BlockState state) {
-        return state.is(BlockTags.MINEABLE_WITH_SHOVEL);
+        return (getStateMask(state) & SHOVEL_MINEABLE_FLAG) != 0L;
     }
 
     public static boolean isPickaxeMineable(BlockState state) {
-        return state.is(BlockTags.MINEABLE_WITH_PICKAXE);
+        return (getStateMask(state) & PICKAXE_MINEABLE_FLAG) != 0L;
     }
 
     public static boolean isShovelResource(BlockState state) {
-        return matchesBlock(CompanionResourceType.DIRT, state)
-                || matchesBlock(CompanionResourceType.SAND, state)
-                || matchesBlock(CompanionResourceType.GRAVEL, state)
-                || matchesBlock(CompanionResourceType.CLAY, state);
+        return (getStateMask(state) & SHOVEL_RESOURCE_MASK) != 0L;
     }
 
     public static boolean isPickaxeResource(BlockState state) {
-        return matchesBlock(CompanionResourceType.STONE, state)
-                || matchesBlock(CompanionResourceType.ANDESITE, state)
-                || matchesBlock(CompanionResourceType.DIORITE, state)
-                || matchesBlock(CompanionResourceType.GRANITE, state)
-                || matchesBlock(CompanionResourceType.BASALT, state)
-                || matchesBlock(CompanionResourceType.ORE, state)
-                || matchesBlock(CompanionResourceType.COAL_ORE, state)
-                || matchesBlock(CompanionResourceType.IRON_ORE, state)
-                || matchesBlock(CompanionResourceType.COPPER_ORE, state)
-                || matchesBlock(CompanionResourceType.GOLD_ORE, state)
-                || matchesBlock(CompanionResourceType.REDSTONE_ORE, state)
-                || matchesBlock(CompanionResourceType.LAPIS_ORE, state)
-                || matchesBlock(CompanionResourceType.DIAMOND_ORE, state)
-                || matchesBlock(CompanionResourceType.EMERALD_ORE, state);
+        return (getStateMask(state) & PICKAXE_RESOURCE_MASK) != 0L;
+    }
+
+    private static long getStateMask(BlockState state) {
+        long[] masks = stateMasks;
+        if (masks != null) {
+            int id = Block.BLOCK_STATE_REGISTRY.getId(state);
+            if (id >= 0 && id < masks.length) {
+                return masks[id];
+            }
+        }
+        return computeStateMask(state);
+    }
+
+    private static long computeStateMask(BlockState state) {
+        long mask = 0L;
+        for (CompanionResourceType type : TYPES) {
+            ResourceEntry entry = BY_TYPE.get(type);
+            if (entry != null && entry.blockPredicate.test(state)) {
+                mask |= maskOf(type);
+            }
+        }
+        if (state.is(BlockTags.LEAVES)) {
+            mask |= LEAVES_FLAG;
+        }
+        if (state.is(BlockTags.BASE_STONE_OVERWORLD)) {
+            mask |= BASE_STONE_FLAG;
+        }
+        if (state.is(Blocks.STONE)) {
+            mask |= STONE_BLOCK_FLAG;
+        }
+        if (state.is(BlockTags.MINEABLE_WITH_SHOVEL)) {
+            mask |= SHOVEL_MINEABLE_FLAG;
+        }
+        if (state.is(BlockTags.MINEABLE_WITH_PICKAXE)) {
+            mask |= PICKAXE_MINEABLE_FLAG;
+        }
+        return mask;
     }
 
     private static final class ResourceEntry {
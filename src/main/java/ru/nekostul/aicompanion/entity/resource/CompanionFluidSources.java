@@ -0,0 +1,366 @@
+package ru.nekostul.aicompanion.entity.resource;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import ru.nekostul.aicompanion.entity.scan.CompanionChunkSections;
+import ru.nekostul.aicompanion.entity.scan.CompanionScanScheduler;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CompanionFluidSources {
+    private static final int SURFACE_DEPTH = 4;
+    private static final int MAX_KNOWN_PER_CHUNK = 64;
+    private static final int MAX_SURFACE_COLUMNS_PER_TICK = 4096;
+    private static final int SURFACE_CLOCK_INTERVAL = 64;
+    private static final int MAX_SECTIONS_PER_TICK = 64;
+
+    private static final Map<ResourceKey<Level>, Long2ObjectOpenHashMap<ChunkSources>> LEVELS = new HashMap<>();
+
+    private CompanionFluidSources() {
+    }
+
+    public static Search start(ServerLevel level, CompanionResourceType type, BlockPos origin, int radius,
+                               int limit) {
+        return new Search(level, type, origin, radius, limit);
+    }
+
+    public static void onBlockChanged(ServerLevel level, BlockPos pos, BlockState state) {
+        if (level == null || pos == null) {
+            return;
+        }
+        Long2ObjectOpenHashMap<ChunkSources> chunks = LEVELS.get(level.dimension());
+        if (chunks == null) {
+            return;
+        }
+        ChunkSources sources = chunks.get(ChunkPos.asLong(
+                SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ())));
+        if (sources == null) {
+            return;
+        }
+        long packed = pos.asLong();
+        for (Map.Entry<CompanionResourceType, LongOpenHashSet> entry : sources.positions.entrySet()) {
+            if (!entry.getKey().matchesBlock(state)) {
+                entry.getValue().remove(packed);
+            }
+        }
+    }
+
+    public static void onChunkUnloaded(ServerLevel level, ChunkPos chunkPos) {
+        if (level == null || chunkPos == null) {
+            return;
+        }
+        Long2ObjectOpenHashMap<ChunkSources> chunks = LEVELS.get(level.dimension());
+        if (chunks != null) {
+            chunks.remove(chunkPos.toLong());
+        }
+    }
+
+    public static void onLevelUnloaded(ServerLevel level) {
+        if (level != null) {
+            LEVELS.remove(level.dimension());
+        }
+    }
+
+    public static void clear() {
+        LEVELS.clear();
+    }
+
+    private static void findKnown(ServerLevel level, CompanionResourceType type, Nearest nearest) {
+        Long2ObjectOpenHashMap<ChunkSources> chunks = LEVELS.get(level.dimension());
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        BlockPos origin = nearest.origin;
+        int minChunkX = SectionPos.blockToSectionCoord(origin.getX() - nearest.radius);
+        int maxChunkX = SectionPos.blockToSectionCoord(origin.getX() + nearest.radius);
+        int minChunkZ = SectionPos.blockToSectionCoord(origin.getZ() - nearest.radius);
+        int maxChunkZ = SectionPos.blockToSectionCoord(origin.getZ() + nearest.radius);
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                ChunkSources sources = chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+                LongOpenHashSet positions = sources == null ? null : sources.positions.get(type);
+                if (positions == null || positions.isEmpty()) {
+                    continue;
+                }
+                LongIterator iterator = positions.iterator();
+                while (iterator.hasNext()) {
+                    long packed = iterator.nextLong();
+                    pos.set(packed);
+                    if (!type.matchesBlock(level.getBlockState(pos))) {
+                        iterator.remove();
+                        continue;
+                    }
+                    nearest.offer(packed);
+                }
+            }
+        }
+    }
+
+    private static void remember(ServerLevel level, CompanionResourceType type, BlockPos pos) {
+        Long2ObjectOpenHashMap<ChunkSources> chunks = LEVELS.computeIfAbsent(level.dimension(),
+                key -> new Long2ObjectOpenHashMap<>());
+        long chunkKey = ChunkPos.asLong(SectionPos.blockToSectionCoord(pos.getX()),
+                SectionPos.blockToSectionCoord(pos.getZ()));
+        ChunkSources sources = chunks.get(chunkKey);
+        if (sources == null) {
+            sources = new ChunkSources();
+            chunks.put(chunkKey, sources);
+        }
+        LongOpenHashSet positions = sources.positions.computeIfAbsent(type, key -> new LongOpenHashSet());
+        if (positions.size() < MAX_KNOWN_PER_CHUNK) {
+            positions.add(pos.asLong());
+        }
+    }
+
+    public static final class Search {
+        private final ServerLevel level;
+        private final CompanionResourceType type;
+        private final Nearest nearest;
+        private Phase phase = Phase.KNOWN;
+        private int ring;
+        private int dx;
+        private int dz;
+        private int[] shellOrder;
+        private int shellIndex;
+        private List<BlockPos> result;
+
+        private Search(ServerLevel level, CompanionResourceType type, BlockPos origin, int radius, int limit) {
+            this.level = level;
+            this.type = type;
+            this.nearest = new Nearest(origin, radius, Math.max(1, limit));
+            if (level == null || type == null || origin == null || !type.isBucketResource() || limit <= 0) {
+                this.result = List.of();
+                this.phase = Phase.DONE;
+            }
+        }
+
+        public boolean matches(ServerLevel level, CompanionResourceType type) {
+            return this.level == level && this.type == type;
+        }
+
+        public boolean step() {
+            if (phase == Phase.KNOWN) {
+                findKnown(level, type, nearest);
+                phase = Phase.SURFACE;
+            }
+            if (phase == Phase.SURFACE) {
+                CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_SURFACE_COLUMNS_PER_TICK,
+                        SURFACE_CLOCK_INTERVAL);
+                boolean done = stepSurface(slice);
+                slice.finish();
+                if (done) {
+                    phase = nearest.isEmpty() ? Phase.SECTIONS : Phase.DONE;
+                }
+            }
+            if (phase == Phase.SECTIONS) {
+                CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_SECTIONS_PER_TICK, 1);
+                boolean done = stepSections(slice);
+                slice.finish();
+                if (done) {
+                    phase = Phase.DONE;
+                }
+            }
+            if (phase != Phase.DONE) {
+                return false;
+            }
+            if (result == null) {
+                result = nearest.toList();
+                for (BlockPos pos : result) {
+                    remember(level, type, pos);
+                }
+            }
+            return true;
+        }
+
+        public List<BlockPos> getResult() {
+            return result != null ? result : List.of();
+        }
+
+        private boolean stepSurface(CompanionScanScheduler.Slice slice) {
+            BlockPos origin = nearest.origin;
+            BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+            LevelChunk chunk = null;
+            while (true) {
+                if (dx == -ring && dz == -ring) {
+                    if (ring > nearest.radius) {
+                        return true;
+                    }
+                    if ((long) ring * ring > nearest.bestDistanceSqr()) {
+                        return true;
+                    }
+                }
+                if (!slice.tryConsume()) {
+                    return false;
+                }
+                int x = origin.getX() + dx;
+                int z = origin.getZ() + dz;
+                advanceColumn();
+                int chunkX = SectionPos.blockToSectionCoord(x);
+                int chunkZ = SectionPos.blockToSectionCoord(z);
+                if (chunk == null || chunk.getPos().x != chunkX || chunk.getPos().z != chunkZ) {
+                    chunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+                    if (chunk == null) {
+                        continue;
+                    }
+                }
+                int surface = chunk.getHeight(Heightmap.Types.WORLD_SURFACE, x & 15, z & 15);
+                int floor = chunk.getHeight(Heightmap.Types.OCEAN_FLOOR, x & 15, z & 15);
+                int bottom = Math.max(floor, surface - SURFACE_DEPTH);
+                for (int y = surface; y > bottom; y--) {
+                    pos.set(x, y, z);
+                    if (type.matchesBlock(chunk.getBlockState(pos))) {
+                        nearest.offer(pos.asLong());
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void advanceColumn() {
+            int step = Math.abs(dx) == ring ? 1 : ring * 2;
+            dz += Math.max(1, step);
+            if (dz <= ring) {
+                return;
+            }
+            dx++;
+            if (dx > ring) {
+                ring++;
+                dx = -ring;
+            }
+            dz = -ring;
+        }
+
+        private boolean stepSections(CompanionScanScheduler.Slice slice) {
+            BlockPos origin = nearest.origin;
+            if (shellOrder == null) {
+                shellOrder = CompanionChunkSections.getShellOrder(nearest.radius, nearest.radius);
+            }
+            int originSectionX = SectionPos.blockToSectionCoord(origin.getX());
+            int originSectionY = SectionPos.blockToSectionCoord(origin.getY());
+            int originSectionZ = SectionPos.blockToSectionCoord(origin.getZ());
+            BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+            while (shellIndex < shellOrder.length) {
+                int i = shellIndex;
+                if (shellOrder[i + 3] > nearest.bestDistanceSqr()) {
+                    return true;
+                }
+                if (!slice.tryConsume()) {
+                    return false;
+                }
+                shellIndex += CompanionChunkSections.SHELL_STRIDE;
+                int sectionX = originSectionX + shellOrder[i];
+                int sectionY = originSectionY + shellOrder[i + 1];
+                int sectionZ = originSectionZ + shellOrder[i + 2];
+                LevelChunkSection section = CompanionChunkSections.getLoadedSection(level, sectionX, sectionY,
+                        sectionZ);
+                if (!CompanionChunkSections.mayContain(section, type::matchesBlock)) {
+                    continue;
+                }
+                int baseX = SectionPos.sectionToBlockCoord(sectionX);
+                int baseY = SectionPos.sectionToBlockCoord(sectionY);
+                int baseZ = SectionPos.sectionToBlockCoord(sectionZ);
+                for (int x = 0; x < 16; x++) {
+                    for (int y = 0; y < 16; y++) {
+                        for (int z = 0; z < 16; z++) {
+                            if (type.matchesBlock(section.getBlockState(x, y, z))) {
+                                pos.set(baseX + x, baseY + y, baseZ + z);
+                                nearest.offer(pos.asLong());
+                            }
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private enum Phase {
+        KNOWN,
+        SURFACE,
+        SECTIONS,
+        DONE
+    }
+
+    private static final class ChunkSources {
+        private final EnumMap<CompanionResourceType, LongOpenHashSet> positions =
+                new EnumMap<>(CompanionResourceType.class);
+    }
+
+    private static final class Nearest {
+        private final BlockPos origin;
+        private final int radius;
+        private final long radiusSqr;
+        private final long[] positions;
+        private final long[] distances;
+        private int found;
+
+        private Nearest(BlockPos origin, int radius, int limit) {
+            this.origin = origin;
+            this.radius = radius;
+            this.radiusSqr = (long) radius * radius;
+            this.positions = new long[limit];
+            this.distances = new long[limit];
+        }
+
+        private boolean isEmpty() {
+            return found == 0;
+        }
+
+        private boolean isFull() {
+            return found >= positions.length;
+        }
+
+        private long bestDistanceSqr() {
+            return found == 0 ? Long.MAX_VALUE : distances[0];
+        }
+
+        private long worstDistanceSqr() {
+            return found == 0 ? Long.MAX_VALUE : distances[found - 1];
+        }
+
+        private void offer(long packed) {
+            long dx = BlockPos.getX(packed) - origin.getX();
+            long dy = BlockPos.getY(packed) - origin.getY();
+            long dz = BlockPos.getZ(packed) - origin.getZ();
+            long distanceSqr = dx * dx + dy * dy + dz * dz;
+            if (distanceSqr > radiusSqr || (isFull() && distanceSqr >= worstDistanceSqr())) {
+                return;
+            }
+            int insertAt = isFull() ? found - 1 : found;
+            while (insertAt > 0 && distances[insertAt - 1] > distanceSqr) {
+                distances[insertAt] = distances[insertAt - 1];
+                positions[insertAt] = positions[insertAt - 1];
+                insertAt--;
+            }
+            distances[insertAt] = distanceSqr;
+            positions[insertAt] = packed;
+            if (!isFull()) {
+                found++;
+            }
+        }
+
+        private List<BlockPos> toList() {
+            List<BlockPos> result = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                result.add(BlockPos.of(positions[i]));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package ru.nekostul.aicompanion.entity.resource;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import ru.nekostul.aicompanion.entity.scan.CompanionChunkSections;
+import ru.nekostul.aicompanion.entity.scan.CompanionScanScheduler;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+public final class CompanionResourceIndex {
+    private static final Set<CompanionResourceType> INDEXED_TYPES = EnumSet.of(
+            CompanionResourceType.LOG,
+            CompanionResourceType.ORE,
+            CompanionResourceType.COAL_ORE,
+            CompanionResourceType.IRON_ORE,
+            CompanionResourceType.COPPER_ORE,
+            CompanionResourceType.GOLD_ORE,
+            CompanionResourceType.REDSTONE_ORE,
+            CompanionResourceType.LAPIS_ORE,
+            CompanionResourceType.DIAMOND_ORE,
+            CompanionResourceType.EMERALD_ORE,
+            CompanionResourceType.LAVA
+    );
+    private static final CompanionResourceType[] INDEXED_TYPE_ARRAY =
+            INDEXED_TYPES.toArray(new CompanionResourceType[0]);
+    private static final long INDEXED_MASK = CompanionBlockRegistry.maskOf(INDEXED_TYPE_ARRAY);
+    private static final Predicate<BlockState> ANY_INDEXED = CompanionResourceIndex::matchesAnyIndexed;
+    private static final int MAX_CHUNKS_INDEXED_PER_QUERY = 16;
+
+    private static final Map<ResourceKey<Level>, LevelIndex> LEVELS = new HashMap<>();
+
+    private CompanionResourceIndex() {
+    }
+
+    public static boolean isIndexed(CompanionResourceType type) {
+        return type != null && INDEXED_TYPES.contains(type);
+    }
+
+    public static Lookup findNearest(ServerLevel level, CompanionResourceType type, BlockPos origin, int radius,
+                                     int limit) {
+        if (level == null || origin == null || !isIndexed(type) || limit <= 0) {
+            return Lookup.EMPTY_COMPLETE;
+        }
+        LevelIndex index = LEVELS.computeIfAbsent(level.dimension(), key -> new LevelIndex());
+        int minChunkX = SectionPos.blockToSectionCoord(origin.getX() - radius);
+        int maxChunkX = SectionPos.blockToSectionCoord(origin.getX() + radius);
+        int minChunkZ = SectionPos.blockToSectionCoord(origin.getZ() - radius);
+        int maxChunkZ = SectionPos.blockToSectionCoord(origin.getZ() + radius);
+        CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_CHUNKS_INDEXED_PER_QUERY, 1);
+        boolean complete = true;
+        List<ChunkRef> chunks = new ArrayList<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                long chunkKey = ChunkPos.asLong(chunkX, chunkZ);
+                ChunkEntry entry = index.chunks.get(chunkKey);
+                if (entry == null) {
+                    LevelChunk chunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+                    if (chunk == null) {
+                        continue;
+                    }
+                    if (!slice.tryConsume()) {
+                        complete = false;
+                        continue;
+                    }
+                    entry = indexChunk(level, chunk);
+                    index.chunks.put(chunkKey, entry);
+                }
+                LongOpenHashSet positions = entry.positions.get(type);
+                if (positions == null || positions.isEmpty()) {
+                    continue;
+                }
+                chunks.add(new ChunkRef(positions, minDistanceSqrToChunk(origin, chunkX, chunkZ)));
+            }
+        }
+        slice.finish();
+        if (!complete) {
+            return new Lookup(List.of(), false);
+        }
+        chunks.sort((first, second) -> Long.compare(first.minDistanceSqr, second.minDistanceSqr));
+        long[] bestPositions = new long[limit];
+        long[] bestDistances = new long[limit];
+        int found = 0;
+        long radiusSqr = (long) radius * radius;
+        for (ChunkRef chunk : chunks) {
+            if (found >= limit && chunk.minDistanceSqr > bestDistances[found - 1]) {
+                break;
+            }
+            LongIterator iterator = chunk.positions.iterator();
+            while (iterator.hasNext()) {
+                long packed = iterator.nextLong();
+                int dx = BlockPos.getX(packed) - origin.getX();
+                int dy = BlockPos.getY(packed) - origin.getY();
+                int dz = BlockPos.getZ(packed) - origin.getZ();
+                if (Math.abs(dx) > radius || Math.abs(dy) > radius || Math.abs(dz) > radius) {
+                    continue;
+                }
+                long distanceSqr = (long) dx * dx + (long) dy * dy + (long) dz * dz;
+                if (distanceSqr > radiusSqr) {
+                    continue;
+                }
+                if (found >= limit && distanceSqr >= bestDistances[found - 1]) {
+                    continue;
+                }
+                int insertAt = found < limit ? found : limit - 1;
+                while (insertAt > 0 && bestDistances[insertAt - 1] > distanceSqr) {
+                    bestDistances[insertAt] = bestDistances[insertAt - 1];
+                    bestPositions[insertAt] = bestPositions[insertAt - 1];
+                    insertAt--;
+                }
+                bestDistances[insertAt] = distanceSqr;
+                bestPositions[insertAt] = packed;
+                if (found < limit) {
+                    found++;
+                }
+            }
+        }
+        List<BlockPos> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            BlockPos pos = BlockPos.of(bestPositions[i]);
+            if (type.matchesBlock(level.getBlockState(pos))) {
+                result.add(pos);
+            } else {
+                onBlockChanged(level, pos, level.getBlockState(pos));
+            }
+        }
+        return new Lookup(result, true);
+    }
+
+    public static void onBlockChanged(ServerLevel level, BlockPos pos, BlockState state) {
+        if (level == null || pos == null) {
+            return;
+        }
+        LevelIndex index = LEVELS.get(level.dimension());
+        if (index == null) {
+            return;
+        }
+        ChunkEntry entry = index.chunks.get(ChunkPos.asLong(
+                SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ())));
+        if (entry == null) {
+            return;
+        }
+        long packed = pos.asLong();
+        long mask = CompanionBlockRegistry.getResourceMask(state);
+        for (CompanionResourceType type : INDEXED_TYPE_ARRAY) {
+            boolean matches = (mask & CompanionBlockRegistry.maskOf(type)) != 0L;
+            LongOpenHashSet positions = entry.positions.get(type);
+            if (matches) {
+                if (positions == null) {
+                    positions = new LongOpenHashSet();
+                    entry.positions.put(type, positions);
+                }
+                positions.add(packed);
+            } else if (positions != null) {
+                positions.remove(packed);
+            }
+        }
+    }
+
+    public static void onChunkLoaded(ServerLevel level, ChunkPos chunkPos) {
+        forgetChunk(level, chunkPos);
+    }
+
+    public static void onChunkUnloaded(ServerLevel level, ChunkPos chunkPos) {
+        forgetChunk(level, chunkPos);
+    }
+
+    public static void onLevelUnloaded(ServerLevel level) {
+        if (level != null) {
+            LEVELS.remove(level.dimension());
+        }
+    }
+
+    public static void clear() {
+        LEVELS.clear();
+    }
+
+    private static void forgetChunk(ServerLevel level, ChunkPos chunkPos) {
+        if (level == null || chunkPos == null) {
+            return;
+        }
+        LevelIndex index = LEVELS.get(level.dimension());
+        if (index != null) {
+            index.chunks.remove(chunkPos.toLong());
+        }
+    }
+
+    private static ChunkEntry indexChunk(ServerLevel level, LevelChunk chunk) {
+        ChunkEntry entry = new ChunkEntry();
+        LevelChunkSection[] sections = chunk.getSections();
+        int baseX = chunk.getPos().getMinBlockX();
+        int baseZ = chunk.getPos().getMinBlockZ();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int sectionIndex = 0; sectionIndex < sections.length; sectionIndex++) {
+            LevelChunkSection section = sections[sectionIndex];
+            if (!CompanionChunkSections.mayContain(section, ANY_INDEXED)) {
+                continue;
+            }
+            int baseY = SectionPos.sectionToBlockCoord(level.getSectionYFromSectionIndex(sectionIndex));
+            for (int x = 0; x < 16; x++) {
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        long mask = CompanionBlockRegistry.getResourceMask(section.getBlockState(x, y, z)) & INDEXED_MASK;
+                        if (mask == 0L) {
+                            continue;
+                        }
+                        for (CompanionResourceType type : INDEXED_TYPE_ARRAY) {
+                            if ((mask & CompanionBlockRegistry.maskOf(type)) == 0L) {
+                                continue;
+                            }
+                            pos.set(baseX + x, baseY + y, baseZ + z);
+                            entry.positions.computeIfAbsent(type, key -> new LongOpenHashSet()).add(pos.asLong());
+                        }
+                    }
+                }
+            }
+        }
+        return entry;
+    }
+
+    private static boolean matchesAnyIndexed(BlockState state) {
+        return (CompanionBlockRegistry.getResourceMask(state) & INDEXED_MASK) != 0L;
+    }
+
+    private static long minDistanceSqrToChunk(BlockPos origin, int chunkX, int chunkZ) {
+        int minX = SectionPos.sectionToBlockCoord(chunkX);
+        int minZ = SectionPos.sectionToBlockCoord(chunkZ);
+        long dx = Math.max(0, Math.max(minX - origin.getX(), origin.getX() - (minX + 15)));
+        long dz = Math.max(0, Math.max(minZ - origin.getZ(), origin.getZ() - (minZ + 15)));
+        return dx * dx + dz * dz;
+    }
+
+    public static final class Lookup {
+        private static final Lookup EMPTY_COMPLETE = new Lookup(List.of(), true);
+
+        private final List<BlockPos> positions;
+        private final boolean complete;
+
+        private Lookup(List<BlockPos> positions, boolean complete) {
+            this.positions = positions;
+            this.complete = complete;
+        }
+
+        public List<BlockPos> getPositions() {
+            return positions;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    private static final class LevelIndex {
+        private final Long2ObjectOpenHashMap<ChunkEntry> chunks = new Long2ObjectOpenHashMap<>();
+    }
+
+    private static final class ChunkEntry {
+        private final EnumMap<CompanionResourceType, LongOpenHashSet> positions =
+                new EnumMap<>(CompanionResourceType.class);
+    }
+
+    private static final class ChunkRef {
+        private final LongOpenHashSet positions;
+        private final long minDistanceSqr;
+
+        private ChunkRef(LongOpenHashSet positions, long minDistanceSqr) {
+            this.positions = positions;
+            this.minDistanceSqr = minDistanceSqr;
+        }
+    }
+}
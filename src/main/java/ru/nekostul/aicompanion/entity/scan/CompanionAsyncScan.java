@@ -0,0 +1,70 @@
+package ru.nekostul.aicompanion.entity.scan;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+public final class CompanionAsyncScan<T> {
+    private static final int MAX_CAPTURE_COLUMNS_PER_TICK = 64;
+
+    private final BlockPos origin;
+    private final CompanionBlockSnapshot.Capture capture;
+    private final Job<T> job;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private CompletableFuture<T> future;
+
+    private CompanionAsyncScan(Level level, BlockPos origin, int radius, int height, Job<T> job) {
+        this.origin = origin;
+        this.capture = CompanionBlockSnapshot.capture(level, origin, radius, height);
+        this.job = job;
+    }
+
+    public static <T> CompanionAsyncScan<T> start(Level level, BlockPos origin, int radius, int height, Job<T> job) {
+        return new CompanionAsyncScan<>(level, origin, radius, height, job);
+    }
+
+    public boolean matches(BlockPos origin) {
+        return this.origin.equals(origin);
+    }
+
+    public boolean tick() {
+        if (future == null) {
+            CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_CAPTURE_COLUMNS_PER_TICK, 1);
+            boolean captured = capture.step(slice);
+            slice.finish();
+            if (!captured) {
+                return false;
+            }
+            CompanionBlockSnapshot snapshot = capture.getSnapshot();
+            BooleanSupplier active = () -> !cancelled.get();
+            future = CompanionScanWorkers.submit(() -> job.run(snapshot, active));
+        }
+        return future.isDone();
+    }
+
+    public boolean isFailed() {
+        return future != null && future.isDone() && (future.isCompletedExceptionally() || future.isCancelled());
+    }
+
+    public T getResult() {
+        if (future == null || !future.isDone() || isFailed()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Job<T> {
+        T run(CompanionBlockSnapshot snapshot, BooleanSupplier active);
+    }
+}
@@ -0,0 +1,193 @@
+package ru.nekostul.aicompanion.entity.scan;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.material.FluidState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+public final class CompanionBlockSnapshot implements BlockGetter, CompanionChunkSections.SectionLookup {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final Long2ObjectOpenHashMap<PalettedContainer<BlockState>> sections;
+    private final int minBuildHeight;
+    private final int height;
+
+    private CompanionBlockSnapshot(Long2ObjectOpenHashMap<PalettedContainer<BlockState>> sections,
+                                   int minBuildHeight, int height) {
+        this.sections = sections;
+        this.minBuildHeight = minBuildHeight;
+        this.height = height;
+    }
+
+    public static Capture capture(Level level, BlockPos origin, int radius, int height) {
+        return new Capture(level, origin, radius, height);
+    }
+
+    @Override
+    public PalettedContainer<BlockState> getStates(int sectionX, int sectionY, int sectionZ) {
+        return sections.get(SectionPos.asLong(sectionX, sectionY, sectionZ));
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        PalettedContainer<BlockState> states = getStates(SectionPos.blockToSectionCoord(pos.getX()),
+                SectionPos.blockToSectionCoord(pos.getY()), SectionPos.blockToSectionCoord(pos.getZ()));
+        if (states == null) {
+            return AIR;
+        }
+        return states.get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getMinBuildHeight() {
+        return minBuildHeight;
+    }
+
+    public List<BlockPos> findNearest(BlockPos origin, int radius, Predicate<BlockState> filter, int limit,
+                                      BooleanSupplier active) {
+        List<BlockPos> result = new ArrayList<>();
+        if (origin == null || filter == null || limit <= 0) {
+            return result;
+        }
+        long[] bestDistances = new long[limit];
+        long[] bestPositions = new long[limit];
+        int found = 0;
+        long radiusSqr = (long) radius * radius;
+        int minSectionX = SectionPos.blockToSectionCoord(origin.getX() - radius);
+        int maxSectionX = SectionPos.blockToSectionCoord(origin.getX() + radius);
+        int minSectionY = SectionPos.blockToSectionCoord(Math.max(minBuildHeight, origin.getY() - radius));
+        int maxSectionY = SectionPos.blockToSectionCoord(Math.min(minBuildHeight + height - 1, origin.getY() + radius));
+        int minSectionZ = SectionPos.blockToSectionCoord(origin.getZ() - radius);
+        int maxSectionZ = SectionPos.blockToSectionCoord(origin.getZ() + radius);
+        for (int sectionX = minSectionX; sectionX <= maxSectionX; sectionX++) {
+            for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                for (int sectionZ = minSectionZ; sectionZ <= maxSectionZ; sectionZ++) {
+                    if (!active.getAsBoolean()) {
+                        return result;
+                    }
+                    PalettedContainer<BlockState> states = getStates(sectionX, sectionY, sectionZ);
+                    if (!CompanionChunkSections.mayContain(states, filter)) {
+                        continue;
+                    }
+                    int baseX = SectionPos.sectionToBlockCoord(sectionX);
+                    int baseY = SectionPos.sectionToBlockCoord(sectionY);
+                    int baseZ = SectionPos.sectionToBlockCoord(sectionZ);
+                    for (int x = 0; x < 16; x++) {
+                        for (int y = 0; y < 16; y++) {
+                            for (int z = 0; z < 16; z++) {
+                                long dx = baseX + x - origin.getX();
+                                long dy = baseY + y - origin.getY();
+                                long dz = baseZ + z - origin.getZ();
+                                long distanceSqr = dx * dx + dy * dy + dz * dz;
+                                if (distanceSqr > radiusSqr) {
+                                    continue;
+                                }
+                                if (found >= limit && distanceSqr >= bestDistances[found - 1]) {
+                                    continue;
+                                }
+                                if (!filter.test(states.get(x, y, z))) {
+                                    continue;
+                                }
+                                int insertAt = found < limit ? found : limit - 1;
+                                while (insertAt > 0 && bestDistances[insertAt - 1] > distanceSqr) {
+                                    bestDistances[insertAt] = bestDistances[insertAt - 1];
+                                    bestPositions[insertAt] = bestPositions[insertAt - 1];
+                                    insertAt--;
+                                }
+                                bestDistances[insertAt] = distanceSqr;
+                                bestPositions[insertAt] = BlockPos.asLong(baseX + x, baseY + y, baseZ + z);
+                                if (found < limit) {
+                                    found++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < found; i++) {
+            result.add(BlockPos.of(bestPositions[i]));
+        }
+        return result;
+    }
+
+    public static final class Capture {
+        private final Level level;
+        private final int minSectionX;
+        private final int maxSectionX;
+        private final int minSectionY;
+        private final int maxSectionY;
+        private final int minSectionZ;
+        private final int maxSectionZ;
+        private final Long2ObjectOpenHashMap<PalettedContainer<BlockState>> sections = new Long2ObjectOpenHashMap<>();
+        private int sectionX;
+        private int sectionZ;
+        private boolean finished;
+
+        private Capture(Level level, BlockPos origin, int radius, int height) {
+            this.level = level;
+            this.minSectionX = SectionPos.blockToSectionCoord(origin.getX() - radius);
+            this.maxSectionX = SectionPos.blockToSectionCoord(origin.getX() + radius);
+            this.minSectionY = Math.max(level.getMinSection(), SectionPos.blockToSectionCoord(origin.getY() - height));
+            this.maxSectionY = Math.min(level.getMaxSection() - 1, SectionPos.blockToSectionCoord(origin.getY() + height));
+            this.minSectionZ = SectionPos.blockToSectionCoord(origin.getZ() - radius);
+            this.maxSectionZ = SectionPos.blockToSectionCoord(origin.getZ() + radius);
+            this.sectionX = minSectionX;
+            this.sectionZ = minSectionZ;
+        }
+
+        public boolean step(CompanionScanScheduler.Slice slice) {
+            while (!finished && slice.tryConsume()) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(sectionX, sectionZ);
+                if (chunk != null) {
+                    for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                        LevelChunkSection section = chunk.getSection(level.getSectionIndexFromSectionY(sectionY));
+                        if (section.hasOnlyAir()) {
+                            continue;
+                        }
+                        sections.put(SectionPos.asLong(sectionX, sectionY, sectionZ), section.getStates().copy());
+                    }
+                }
+                sectionZ++;
+                if (sectionZ > maxSectionZ) {
+                    sectionZ = minSectionZ;
+                    sectionX++;
+                    finished = sectionX > maxSectionX;
+                }
+            }
+            return finished;
+        }
+
+        public CompanionBlockSnapshot getSnapshot() {
+            return finished ? new CompanionBlockSnapshot(sections, level.getMinBuildHeight(), level.getHeight()) : null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ru.nekostul.aicompanion.entity.scan;
+
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+public final class CompanionChunkSections {
+    public static final int SHELL_STRIDE = 4;
+    private static final Map<Long, int[]> SHELL_ORDERS = new ConcurrentHashMap<>();
+
+    private CompanionChunkSections() {
+    }
+
+    public static SectionLookup liveSections(Level level) {
+        return (sectionX, sectionY, sectionZ) -> {
+            LevelChunkSection section = getLoadedSection(level, sectionX, sectionY, sectionZ);
+            return section == null || section.hasOnlyAir() ? null : section.getStates();
+        };
+    }
+
+    public static LevelChunkSection getLoadedSection(Level level, int sectionX, int sectionY, int sectionZ) {
+        if (level == null || sectionY < level.getMinSection() || sectionY >= level.getMaxSection()) {
+            return null;
+        }
+        LevelChunk chunk = level.getChunkSource().getChunkNow(sectionX, sectionZ);
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.getSection(level.getSectionIndexFromSectionY(sectionY));
+    }
+
+    public static LevelChunkSection getLoadedSectionAt(Level level, int x, int y, int z) {
+        return getLoadedSection(level, SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(y),
+                SectionPos.blockToSectionCoord(z));
+    }
+
+    public static boolean mayContain(LevelChunkSection section, Predicate<BlockState> predicate) {
+        if (section == null || section.hasOnlyAir()) {
+            return false;
+        }
+        return predicate == null || section.maybeHas(predicate);
+    }
+
+    public static boolean mayContain(PalettedContainer<BlockState> states, Predicate<BlockState> predicate) {
+        if (states == null) {
+            return false;
+        }
+        return predicate == null || states.maybeHas(predicate);
+    }
+
+    public static int[] getShellOrder(int radius, int height) {
+        int sectionRadius = (Math.max(0, radius) + 15) >> 4;
+        int sectionHeight = (Math.max(0, height) + 15) >> 4;
+        long key = ((long) sectionRadius << 32) | sectionHeight;
+        return SHELL_ORDERS.computeIfAbsent(key, ignored -> buildShellOrder(sectionRadius, sectionHeight));
+    }
+
+    private static int[] buildShellOrder(int sectionRadius, int sectionHeight) {
+        List<int[]> entries = new ArrayList<>();
+        for (int dx = -sectionRadius; dx <= sectionRadius; dx++) {
+            for (int dy = -sectionHeight; dy <= sectionHeight; dy++) {
+                for (int dz = -sectionRadius; dz <= sectionRadius; dz++) {
+                    int bound = axisLowerBound(dx) * axisLowerBound(dx)
+                            + axisLowerBound(dy) * axisLowerBound(dy)
+                            + axisLowerBound(dz) * axisLowerBound(dz);
+                    entries.add(new int[]{dx, dy, dz, bound, dx * dx + dy * dy + dz * dz});
+                }
+            }
+        }
+        entries.sort(Comparator.<int[]>comparingInt(entry -> entry[3]).thenComparingInt(entry -> entry[4]));
+        int[] order = new int[entries.size() * SHELL_STRIDE];
+        int idx = 0;
+        for (int[] entry : entries) {
+            order[idx++] = entry[0];
+            order[idx++] = entry[1];
+            order[idx++] = entry[2];
+            order[idx++] = entry[3];
+        }
+        return order;
+    }
+
+    private static int axisLowerBound(int sectionOffset) {
+        return sectionOffset == 0 ? 0 : (Math.abs(sectionOffset) - 1) * 16 + 1;
+    }
+
+    @FunctionalInterface
+    public interface SectionLookup {
+        PalettedContainer<BlockState> getStates(int sectionX, int sectionY, int sectionZ);
+    }
+}
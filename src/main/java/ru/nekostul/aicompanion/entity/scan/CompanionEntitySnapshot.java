@@ -0,0 +1,125 @@
+package ru.nekostul.aicompanion.entity.scan;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CompanionEntitySnapshot {
+    private static final int CELL_SHIFT = 3;
+
+    private final Entity owner;
+    private final double radius;
+    private final Class<? extends Entity>[] types;
+    private final List<Long2ObjectOpenHashMap<List<Entity>>> buckets;
+    private AABB bounds;
+    private long capturedTick = Long.MIN_VALUE;
+
+    @SafeVarargs
+    public CompanionEntitySnapshot(Entity owner, double radius, Class<? extends Entity>... types) {
+        this.owner = owner;
+        this.radius = radius;
+        this.types = types;
+        this.buckets = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            this.buckets.add(new Long2ObjectOpenHashMap<>());
+        }
+    }
+
+    public <T extends Entity> List<T> getEntitiesOfClass(Class<T> type, AABB area) {
+        Level level = owner.level();
+        int typeIndex = indexOf(type);
+        if (typeIndex < 0 || area == null) {
+            return level.getEntitiesOfClass(type, area);
+        }
+        refresh(level);
+        if (!contains(bounds, area)) {
+            return level.getEntitiesOfClass(type, area);
+        }
+        Long2ObjectOpenHashMap<List<Entity>> cells = buckets.get(typeIndex);
+        List<T> result = new ArrayList<>();
+        if (cells.isEmpty()) {
+            return result;
+        }
+        int minX = cellCoord(area.minX) - 1;
+        int minY = cellCoord(area.minY) - 1;
+        int minZ = cellCoord(area.minZ) - 1;
+        int maxX = cellCoord(area.maxX) + 1;
+        int maxY = cellCoord(area.maxY) + 1;
+        int maxZ = cellCoord(area.maxZ) + 1;
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    List<Entity> cell = cells.get(BlockPos.asLong(x, y, z));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Entity entity : cell) {
+                        if (!entity.isRemoved() && entity.getBoundingBox().intersects(area)) {
+                            result.add(type.cast(entity));
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public void invalidate() {
+        capturedTick = Long.MIN_VALUE;
+    }
+
+    private void refresh(Level level) {
+        long gameTime = level.getGameTime();
+        if (capturedTick == gameTime && bounds != null) {
+            return;
+        }
+        capturedTick = gameTime;
+        for (Long2ObjectOpenHashMap<List<Entity>> cells : buckets) {
+            cells.clear();
+        }
+        bounds = owner.getBoundingBox().inflate(radius);
+        for (Entity entity : level.getEntities(owner, bounds, this::isTracked)) {
+            long key = BlockPos.asLong(cellCoord(entity.getX()), cellCoord(entity.getY()), cellCoord(entity.getZ()));
+            for (int i = 0; i < types.length; i++) {
+                if (types[i].isInstance(entity)) {
+                    buckets.get(i).computeIfAbsent(key, ignored -> new ArrayList<>()).add(entity);
+                }
+            }
+        }
+    }
+
+    private boolean isTracked(Entity entity) {
+        for (Class<? extends Entity> type : types) {
+            if (type.isInstance(entity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(Class<? extends Entity> type) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(AABB outer, AABB inner) {
+        return outer != null
+                && inner.minX >= outer.minX && inner.maxX <= outer.maxX
+                && inner.minY >= outer.minY && inner.maxY <= outer.maxY
+                && inner.minZ >= outer.minZ && inner.maxZ <= outer.maxZ;
+    }
+
+    private static int cellCoord(double coord) {
+        return Mth.floor(coord) >> CELL_SHIFT;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.nekostul.aicompanion.entity.scan;
+
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.Vec3;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+public final class CompanionObstructionResolver {
+    private static final byte CELL_UNKNOWN = 0;
+    private static final byte CELL_EMPTY = 1;
+    private static final byte CELL_FULL = 2;
+    private static final byte CELL_PARTIAL = 3;
+
+    private final BlockGetter level;
+    private final Long2ByteOpenHashMap cells = new Long2ByteOpenHashMap();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+    public CompanionObstructionResolver(BlockGetter level) {
+        this.level = level;
+        this.cells.defaultReturnValue(CELL_UNKNOWN);
+    }
+
+    public Result trace(Vec3 from, BlockPos target) {
+        Vec3 to = Vec3.atCenterOf(target);
+        double dx = to.x - from.x;
+        double dy = to.y - from.y;
+        double dz = to.z - from.z;
+        int x = Mth.floor(from.x);
+        int y = Mth.floor(from.y);
+        int z = Mth.floor(from.z);
+        int stepX = (int) Math.signum(dx);
+        int stepY = (int) Math.signum(dy);
+        int stepZ = (int) Math.signum(dz);
+        double deltaX = stepX == 0 ? Double.MAX_VALUE : 1.0D / Math.abs(dx);
+        double deltaY = stepY == 0 ? Double.MAX_VALUE : 1.0D / Math.abs(dy);
+        double deltaZ = stepZ == 0 ? Double.MAX_VALUE : 1.0D / Math.abs(dz);
+        double maxX = stepX == 0 ? Double.MAX_VALUE : deltaX * (stepX > 0 ? 1.0D - Mth.frac(from.x) : Mth.frac(from.x));
+        double maxY = stepY == 0 ? Double.MAX_VALUE : deltaY * (stepY > 0 ? 1.0D - Mth.frac(from.y) : Mth.frac(from.y));
+        double maxZ = stepZ == 0 ? Double.MAX_VALUE : deltaZ * (stepZ > 0 ? 1.0D - Mth.frac(from.z) : Mth.frac(from.z));
+        int remaining = Math.abs(target.getX() - x) + Math.abs(target.getY() - y) + Math.abs(target.getZ() - z) + 1;
+        BlockPos firstBlocker = null;
+        int depth = 0;
+        while (remaining-- > 0) {
+            if (x == target.getX() && y == target.getY() && z == target.getZ()) {
+                return firstBlocker == null ? new Result(target.immutable(), 0) : new Result(firstBlocker, depth);
+            }
+            if (blocks(x, y, z, from, to)) {
+                if (firstBlocker == null) {
+                    firstBlocker = new BlockPos(x, y, z);
+                }
+                depth++;
+            }
+            if (maxX < maxY && maxX < maxZ) {
+                if (maxX > 1.0D) {
+                    break;
+                }
+                x += stepX;
+                maxX += deltaX;
+            } else if (maxY < maxZ) {
+                if (maxY > 1.0D) {
+                    break;
+                }
+                y += stepY;
+                maxY += deltaY;
+            } else {
+                if (maxZ > 1.0D) {
+                    break;
+                }
+                z += stepZ;
+                maxZ += deltaZ;
+            }
+        }
+        return firstBlocker == null ? Result.CLEAR : new Result(firstBlocker, depth);
+    }
+
+    private boolean blocks(int x, int y, int z, Vec3 from, Vec3 to) {
+        long key = BlockPos.asLong(x, y, z);
+        byte cell = cells.get(key);
+        if (cell == CELL_UNKNOWN) {
+            cursor.set(x, y, z);
+            BlockState state = level.getBlockState(cursor);
+            VoxelShape shape = state.getCollisionShape(level, cursor);
+            if (shape.isEmpty()) {
+                cell = CELL_EMPTY;
+            } else if (state.isCollisionShapeFullBlock(level, cursor)) {
+                cell = CELL_FULL;
+            } else {
+                cell = CELL_PARTIAL;
+            }
+            cells.put(key, cell);
+        }
+        if (cell != CELL_PARTIAL) {
+            return cell == CELL_FULL;
+        }
+        cursor.set(x, y, z);
+        VoxelShape shape = level.getBlockState(cursor).getCollisionShape(level, cursor);
+        return shape.clip(from, to, cursor) != null;
+    }
+
+    public static final class Result {
+        private static final Result CLEAR = new Result(null, 0);
+
+        private final BlockPos blockPos;
+        private final int occludedDepth;
+
+        private Result(BlockPos blockPos, int occludedDepth) {
+            this.blockPos = blockPos;
+            this.occludedDepth = occludedDepth;
+        }
+
+        public boolean isClear() {
+            return blockPos == null;
+        }
+
+        public BlockPos getBlockPos() {
+            return blockPos;
+        }
+
+        public int getOccludedDepth() {
+            return occludedDepth;
+        }
+    }
+}
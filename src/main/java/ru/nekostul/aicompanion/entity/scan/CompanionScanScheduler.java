@@ -0,0 +1,99 @@
+package ru.nekostul.aicompanion.entity.scan;
+
+public final class CompanionScanScheduler {
+    private static final long TICK_NANOS = 50_000_000L;
+    private static final long RESERVED_TICK_NANOS = 10_000_000L;
+    private static final long MIN_TICK_BUDGET_NANOS = 500_000L;
+    private static final long MAX_TICK_BUDGET_NANOS = 10_000_000L;
+    private static final long MIN_SLICE_NANOS = 100_000L;
+    private static final double BASELINE_SMOOTHING = 0.1D;
+
+    private static long tickStartNanos = -1L;
+    private static long spentThisTick;
+    private static int slicesThisTick;
+    private static int slicesLastTick = 1;
+    private static double baselineTickNanos = TICK_NANOS / 2.0D;
+    private static long tickBudgetNanos = MIN_TICK_BUDGET_NANOS;
+
+    private CompanionScanScheduler() {
+    }
+
+    public static void onTickStart() {
+        tickStartNanos = System.nanoTime();
+        slicesLastTick = Math.max(1, slicesThisTick);
+        slicesThisTick = 0;
+        spentThisTick = 0L;
+    }
+
+    public static void onTickEnd() {
+        if (tickStartNanos < 0L) {
+            return;
+        }
+        long tickNanos = System.nanoTime() - tickStartNanos;
+        long baseline = Math.max(0L, tickNanos - spentThisTick);
+        baselineTickNanos += (baseline - baselineTickNanos) * BASELINE_SMOOTHING;
+        long headroom = TICK_NANOS - RESERVED_TICK_NANOS - (long) baselineTickNanos;
+        tickBudgetNanos = Math.max(MIN_TICK_BUDGET_NANOS, Math.min(MAX_TICK_BUDGET_NANOS, headroom));
+        tickStartNanos = -1L;
+    }
+
+    public static Slice begin(int maxUnits, int clockInterval) {
+        slicesThisTick++;
+        long remaining = tickBudgetNanos - spentThisTick;
+        if (remaining <= 0L) {
+            return new Slice(System.nanoTime(), 0L, 0, 1);
+        }
+        long fairShare = tickBudgetNanos / Math.max(slicesLastTick, slicesThisTick);
+        long sliceNanos = Math.max(MIN_SLICE_NANOS, Math.min(remaining, fairShare));
+        return new Slice(System.nanoTime(), sliceNanos, maxUnits, Math.max(1, clockInterval));
+    }
+
+    public static long getTickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    public static long getBaselineTickNanos() {
+        return (long) baselineTickNanos;
+    }
+
+    public static final class Slice {
+        private final long startNanos;
+        private final long deadlineNanos;
+        private final int maxUnits;
+        private final int clockInterval;
+        private int units;
+        private boolean expired;
+        private boolean finished;
+
+        private Slice(long startNanos, long sliceNanos, int maxUnits, int clockInterval) {
+            this.startNanos = startNanos;
+            this.deadlineNanos = startNanos + sliceNanos;
+            this.maxUnits = maxUnits;
+            this.clockInterval = clockInterval;
+        }
+
+        public boolean tryConsume() {
+            if (expired || units >= maxUnits) {
+                return false;
+            }
+            if (units > 0 && units % clockInterval == 0 && System.nanoTime() >= deadlineNanos) {
+                expired = true;
+                return false;
+            }
+            units++;
+            return true;
+        }
+
+        public int getUnits() {
+            return units;
+        }
+
+        public void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            spentThisTick += System.nanoTime() - startNanos;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.nekostul.aicompanion.entity.timer;
+
+import java.util.function.IntConsumer;
+
+public final class CompanionCountdown {
+    private static final int TICKS_PER_SECOND = 20;
+
+    private final long endTick;
+    private final IntConsumer onSecond;
+    private final Runnable onExpire;
+    private CompanionTimerWheel.Timer timer;
+    private boolean active = true;
+
+    private CompanionCountdown(long durationTicks, IntConsumer onSecond, Runnable onExpire) {
+        this.endTick = CompanionTimerWheel.now() + Math.max(0L, durationTicks);
+        this.onSecond = onSecond;
+        this.onExpire = onExpire;
+    }
+
+    public static CompanionCountdown start(long durationTicks, IntConsumer onSecond, Runnable onExpire) {
+        CompanionCountdown countdown = new CompanionCountdown(durationTicks, onSecond, onExpire);
+        countdown.scheduleNext();
+        return countdown;
+    }
+
+    public static void cancel(CompanionCountdown countdown) {
+        if (countdown != null) {
+            countdown.cancel();
+        }
+    }
+
+    public int getSecondsLeft() {
+        long remaining = Math.max(0L, endTick - CompanionTimerWheel.now());
+        return (int) ((remaining + TICKS_PER_SECOND - 1) / TICKS_PER_SECOND);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void cancel() {
+        active = false;
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    private void scheduleNext() {
+        long remaining = endTick - CompanionTimerWheel.now();
+        if (remaining <= 0L) {
+            timer = CompanionTimerWheel.schedule(1L, this::fire);
+            return;
+        }
+        int secondsLeft = getSecondsLeft();
+        timer = CompanionTimerWheel.schedule(remaining - (long) (secondsLeft - 1) * TICKS_PER_SECOND, this::fire);
+    }
+
+    private void fire() {
+        timer = null;
+        if (!active) {
+            return;
+        }
+        if (CompanionTimerWheel.now() >= endTick) {
+            active = false;
+            if (onExpire != null) {
+                onExpire.run();
+            }
+            return;
+        }
+        if (onSecond != null) {
+            onSecond.accept(getSecondsLeft());
+        }
+        if (active) {
+            scheduleNext();
+        }
+    }
+}
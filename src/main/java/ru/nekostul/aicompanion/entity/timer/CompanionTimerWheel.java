@@ -0,0 +1,104 @@
+package ru.nekostul.aicompanion.entity.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CompanionTimerWheel {
+    private static final int SLOT_COUNT = 256;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+
+    private static final List<List<Timer>> SLOTS = createSlots();
+    private static long currentTick;
+    private static int scheduled;
+
+    private CompanionTimerWheel() {
+    }
+
+    public static Timer schedule(long delayTicks, Runnable task) {
+        Timer timer = new Timer(currentTick + Math.max(1L, delayTicks), task);
+        SLOTS.get(slotIndex(timer.deadline)).add(timer);
+        scheduled++;
+        return timer;
+    }
+
+    public static long now() {
+        return currentTick;
+    }
+
+    public static void advance() {
+        currentTick++;
+        if (scheduled == 0) {
+            return;
+        }
+        List<Timer> slot = SLOTS.get(slotIndex(currentTick));
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timer> due = null;
+        int kept = 0;
+        for (int i = 0; i < slot.size(); i++) {
+            Timer timer = slot.get(i);
+            if (timer.cancelled) {
+                scheduled--;
+                continue;
+            }
+            if (timer.deadline <= currentTick) {
+                scheduled--;
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.add(timer);
+                continue;
+            }
+            slot.set(kept++, timer);
+        }
+        slot.subList(kept, slot.size()).clear();
+        if (due == null) {
+            return;
+        }
+        for (Timer timer : due) {
+            if (!timer.cancelled) {
+                timer.cancelled = true;
+                timer.task.run();
+            }
+        }
+    }
+
+    public static void clear() {
+        for (List<Timer> slot : SLOTS) {
+            for (Timer timer : slot) {
+                timer.cancelled = true;
+            }
+            slot.clear();
+        }
+        scheduled = 0;
+        currentTick = 0L;
+    }
+
+    private static int slotIndex(long tick) {
+        return (int) (tick & SLOT_MASK);
+    }
+
+    private static List<List<Timer>> createSlots() {
+        List<List<Timer>> slots = new ArrayList<>(SLOT_COUNT);
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slots.add(new ArrayList<>());
+        }
+        return slots;
+    }
+
+    public static final class Timer {
+        private final long deadline;
+        private final Runnable task;
+        private boolean cancelled;
+
+        private Timer(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
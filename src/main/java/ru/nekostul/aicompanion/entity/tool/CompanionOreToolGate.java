@@ -10,6 +10,8 @@ import ru.nekostul.aicompanion.entity.CompanionEntity;
 import ru.nekostul.aicompanion.entity.inventory.CompanionInventory;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
 
+import java.util.function.Predicate;
+
 public final class CompanionOreToolGate {
     private enum Requirement {
         NONE,
@@ -41,6 +43,15 @@ public final class CompanionOreToolGate {
     }
 
     public boolean isBlockBlocked(BlockState state) {
+        return isBlockBlocked(state, bestPickaxeTier());
+    }
+
+    public Predicate<BlockState> snapshotBlockFilter() {
+        int pickaxeTier = bestPickaxeTier();
+        return state -> isBlockBlocked(state, pickaxeTier);
+    }
+
+    private boolean isBlockBlocked(BlockState state, int pickaxeTier) {
         CompanionResourceType type = findOreType(state);
         if (type == null) {
             return false;
@@ -49,7 +60,7 @@ public final class CompanionOreToolGate {
         if (requirement == Requirement.NONE) {
             return false;
         }
-        return !hasRequiredTool(requirement);
+        return pickaxeTier < requiredTier(requirement);
     }
 
     private Requirement requirementFor(CompanionResourceType type) {
@@ -82,12 +93,15 @@ public final class CompanionOreToolGate {
     }
 
     private boolean hasRequiredTool(Requirement requirement) {
-        int requiredTier = switch (requirement) {
+        return bestPickaxeTier() >= requiredTier(requirement);
+    }
+
+    private int requiredTier(Requirement requirement) {
+        return switch (requirement) {
             case STONE -> 1;
             case IRON -> 2;
             default -> 0;
         };
-        return bestPickaxeTier() >= requiredTier;
     }
 
     private int bestPickaxeTier() {
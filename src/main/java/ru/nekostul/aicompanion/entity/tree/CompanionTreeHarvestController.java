@@ -1,6 +1,7 @@
 package ru.nekostul.aicompanion.entity.tree;
 
 import com.mojang.authlib.GameProfile;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
@@ -15,13 +16,10 @@ import net.minecraft.world.item.BlockItem;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
-import net.minecraft.world.level.ClipContext;
 import net.minecraft.world.level.GameType;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.phys.BlockHitResult;
-import net.minecraft.world.phys.HitResult;
 import net.minecraft.world.phys.AABB;
 import net.minecraft.world.phys.Vec3;
 import net.minecraftforge.common.util.FakePlayer;
@@ -30,6 +28,7 @@ import net.minecraftforge.fml.ModList;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -44,10 +43,16 @@ import ru.nekostul.aicompanion.entity.CompanionEntity;
 import ru.nekostul.aicompanion.entity.inventory.CompanionEquipment;
 import ru.nekostul.aicompanion.entity.inventory.CompanionInventory;
 import ru.nekostul.aicompanion.entity.movement.CompanionMovementSpeed;
+import ru.nekostul.aicompanion.entity.movement.CompanionReachabilityField;
 import ru.nekostul.aicompanion.entity.mining.CompanionMiningAnimator;
 import ru.nekostul.aicompanion.entity.mining.CompanionMiningReach;
+import ru.nekostul.aicompanion.entity.perf.CompanionTickProfiler;
+import ru.nekostul.aicompanion.entity.resource.CompanionResourceIndex;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceRequest;
 import ru.nekostul.aicompanion.entity.resource.CompanionResourceType;
+import ru.nekostul.aicompanion.entity.scan.CompanionAsyncScan;
+import ru.nekostul.aicompanion.entity.scan.CompanionObstructionResolver;
+import ru.nekostul.aicompanion.entity.scan.CompanionScanScheduler;
 import ru.nekostul.aicompanion.entity.tool.CompanionToolHandler;
 import ru.nekostul.aicompanion.entity.tool.CompanionToolWear;
 
@@ -67,8 +72,15 @@ public final class CompanionTreeHarvestController {
     private static final float RESOURCE_FOV_DOT = -1.0F;
     private static final int MAX_SCAN_BLOCKS_PER_TICK = 200000;
     private static final int MAX_PATH_CANDIDATES = 24;
-    private static final int MAX_PATH_CHECKS_PER_TICK = 2;
+    private static final int MAX_PATH_CHECKS_PER_TICK = 8;
+    private static final int SCAN_CLOCK_INTERVAL = 256;
+    private static final int INDEX_LOG_LIMIT = 128;
     private static final double PATH_DETOUR_MULTIPLIER = 2.0D;
+    private static final int REACHABILITY_RADIUS = RESOURCE_SCAN_RADIUS + 2;
+    private static final int REACHABILITY_HEIGHT = 32;
+    private static final int MAX_REACHABILITY_NODES = 32768;
+    private static final int MAX_REACHABILITY_NODES_PER_TICK = 4096;
+    private static final int REACHABILITY_CLOCK_INTERVAL = 64;
     private static final int TREE_SEARCH_TIMEOUT_TICKS = 500;
     private static final int TREE_CHOP_WAIT_TIMEOUT_TICKS = 3 * 20;
     private static final int NEAR_SCAN_RADIUS = 24;
@@ -142,10 +154,17 @@ public final class CompanionTreeHarvestController {
     private final Map<Item, Integer> collectedDrops = new HashMap<>();
     private final Map<Item, Integer> treeChopBaseline = new HashMap<>();
     private final Set<BlockPos> manualTreeLogs = new HashSet<>();
+    private final Long2ObjectOpenHashMap<TreeCluster> treeClusters = new Long2ObjectOpenHashMap<>();
     private ScanState scanState;
     private PathCheckState pathCheckState;
     private ScanState nearScanState;
     private PathCheckState nearPathCheckState;
+    private CompanionAsyncScan<List<BlockPos>> asyncScan;
+    private CompanionAsyncScan<List<BlockPos>> nearAsyncScan;
+    private BlockPos nearAsyncScannedOrigin;
+    private CompanionReachabilityField reachabilityField;
+    private CompanionObstructionResolver obstructionResolver;
+    private long obstructionResolverTick = -1L;
 
     public CompanionTreeHarvestController(CompanionEntity owner,
                                           CompanionInventory inventory,
@@ -272,7 +291,10 @@ public final class CompanionTreeHarvestController {
             applySelection(selection);
             resetMiningProgress();
         }
-        return finalizeResult(tickMining(gameTime), gameTime);
+        long miningStart = CompanionTickProfiler.begin();
+        Result result = tickMining(gameTime);
+        CompanionTickProfiler.end(CompanionTickProfiler.Section.MINING, miningStart);
+        return finalizeResult(result, gameTime);
     }
 
     public boolean isTreeChopInProgress() {
@@ -363,7 +385,8 @@ public final class CompanionTreeHarvestController {
     }
 
     private boolean isScanInProgress() {
-        return scanState != null || pathCheckState != null || nearScanState != null || nearPathCheckState != null;
+        return scanState != null || pathCheckState != null || asyncScan != null || nearScanState != null
+                || nearPathCheckState != null || nearAsyncScan != null;
     }
 
     private int computeProgressHash() {
@@ -703,8 +726,8 @@ public final class CompanionTreeHarvestController {
                 return locked;
             }
         }
-        if (gameTime < nextScanTick && scanState == null && pathCheckState == null
-                && nearScanState == null && nearPathCheckState == null) {
+        if (gameTime < nextScanTick && scanState == null && pathCheckState == null && asyncScan == null
+                && nearScanState == null && nearPathCheckState == null && nearAsyncScan == null) {
             return null;
         }
         if (searchStartTick < 0L) {
@@ -720,8 +743,9 @@ public final class CompanionTreeHarvestController {
         if (gameTime < nextScanTick && cachedTarget != null) {
             BlockState cached = owner.level().getBlockState(cachedTarget);
             if (CompanionBlockRegistry.isLog(cached)) {
-                BlockPos base = findTreeBase(cachedTarget);
-                if (base != null && !isValidTreeBase(base)) {
+                TreeCluster cluster = resolveTreeCluster(cachedTarget);
+                BlockPos base = cluster.base;
+                if (base != null && !cluster.valid) {
                     resetScanCache();
                     return null;
                 }
@@ -736,24 +760,66 @@ public final class CompanionTreeHarvestController {
             }
             resetScanCache();
         }
-        if (nearScanState != null || nearPathCheckState != null) {
+        if (nearScanState != null || nearPathCheckState != null || nearAsyncScan != null) {
             if (searchStartTick >= 0L && gameTime - searchStartTick >= TREE_SEARCH_TIMEOUT_TICKS) {
                 finishScan(null, gameTime, false);
             }
             return null;
         }
-        if (pathCheckState == null) {
+        if (pathCheckState == null && scanState == null && asyncScan == null
+                && owner.level() instanceof ServerLevel serverLevel) {
+            long indexStart = CompanionTickProfiler.begin();
+            CompanionResourceIndex.Lookup lookup = CompanionResourceIndex.findNearest(serverLevel,
+                    CompanionResourceType.LOG, origin, RESOURCE_SCAN_RADIUS, INDEX_LOG_LIMIT);
+            List<Candidate> indexed = lookup.isComplete()
+                    ? collectIndexedCandidates(origin, lookup.getPositions())
+                    : List.of();
+            CompanionTickProfiler.end(CompanionTickProfiler.Section.SCAN, indexStart);
+            if (!lookup.isComplete()) {
+                if (searchStartTick >= 0L && gameTime - searchStartTick >= TREE_SEARCH_TIMEOUT_TICKS) {
+                    finishScan(null, gameTime, false);
+                }
+                return null;
+            }
+            if (!indexed.isEmpty()) {
+                pathCheckState = new PathCheckState(indexed);
+            }
+        }
+        if (pathCheckState == null && scanState == null && isAsyncScanAvailable()) {
+            long asyncStart = CompanionTickProfiler.begin();
+            if (asyncScan == null) {
+                startAsyncScan(origin);
+            }
+            List<Candidate> candidates = null;
+            if (asyncScan.tick()) {
+                boolean failed = asyncScan.isFailed();
+                List<BlockPos> logs = asyncScan.getResult();
+                asyncScan = null;
+                if (!failed) {
+                    candidates = collectIndexedCandidates(origin, logs);
+                }
+            }
+            CompanionTickProfiler.end(CompanionTickProfiler.Section.SCAN, asyncStart);
+            if (candidates != null) {
+                if (candidates.isEmpty()) {
+                    finishScan(null, gameTime, false);
+                    return null;
+                }
+                pathCheckState = new PathCheckState(candidates);
+            }
+        }
+        if (pathCheckState == null && asyncScan == null) {
             if (scanState == null || !scanState.matches(origin)) {
                 scanState = new ScanState(origin, owner.getEyePosition(), owner.getLookAngle().normalize(),
                         RESOURCE_SCAN_RADIUS, false);
             }
-            scanState.step(this, MAX_SCAN_BLOCKS_PER_TICK);
+            stepScan(scanState);
             if (!scanState.getCandidates().isEmpty()) {
                 pathCheckState = new PathCheckState(new ArrayList<>(scanState.getCandidates()));
             }
         }
         if (pathCheckState != null) {
-            TargetSelection selection = pathCheckState.step(this, MAX_PATH_CHECKS_PER_TICK);
+            TargetSelection selection = stepPathCheck(pathCheckState);
             if (selection != null) {
                 finishScan(selection, gameTime, true);
                 return selection;
@@ -779,12 +845,73 @@ public final class CompanionTreeHarvestController {
         return null;
     }
 
+    private void stepScan(ScanState state) {
+        long scanStart = CompanionTickProfiler.begin();
+        CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_SCAN_BLOCKS_PER_TICK, SCAN_CLOCK_INTERVAL);
+        state.step(this, slice);
+        slice.finish();
+        CompanionTickProfiler.end(CompanionTickProfiler.Section.SCAN, scanStart);
+    }
+
+    private TargetSelection stepPathCheck(PathCheckState state) {
+        long pathCheckStart = CompanionTickProfiler.begin();
+        TargetSelection selection = null;
+        if (stepReachabilityField()) {
+            CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_PATH_CHECKS_PER_TICK, 1);
+            selection = state.step(this, slice);
+            slice.finish();
+        }
+        CompanionTickProfiler.end(CompanionTickProfiler.Section.PATH_CHECK, pathCheckStart);
+        return selection;
+    }
+
+    private boolean stepReachabilityField() {
+        if (reachabilityField == null) {
+            reachabilityField = new CompanionReachabilityField(owner.level(), owner.blockPosition(),
+                    REACHABILITY_RADIUS, REACHABILITY_HEIGHT, MAX_REACHABILITY_NODES);
+        }
+        if (reachabilityField.isComplete()) {
+            return true;
+        }
+        CompanionScanScheduler.Slice slice = CompanionScanScheduler.begin(MAX_REACHABILITY_NODES_PER_TICK,
+                REACHABILITY_CLOCK_INTERVAL);
+        boolean complete = reachabilityField.step(slice);
+        slice.finish();
+        return complete;
+    }
+
+    private List<Candidate> collectIndexedCandidates(BlockPos origin, List<BlockPos> logPositions) {
+        List<Candidate> candidates = new ArrayList<>();
+        Set<BlockPos> seenBases = new HashSet<>();
+        Vec3 eye = owner.getEyePosition();
+        for (BlockPos logPos : logPositions) {
+            if (candidates.size() >= MAX_PATH_CANDIDATES) {
+                break;
+            }
+            TargetSelection selection = resolveTreeSelection(logPos, owner.level().getBlockState(logPos));
+            if (selection == null || !seenBases.add(selection.treeBase)) {
+                continue;
+            }
+            noteScanCandidate();
+            TargetSelection resolved = resolveTreeObstruction(selection);
+            if (resolved == null || (resolved.pendingResource != null && !isTreeObstacle(resolved))) {
+                continue;
+            }
+            if (Vec3.atCenterOf(selection.sightPos).distanceTo(eye) > RESOURCE_SCAN_RADIUS) {
+                continue;
+            }
+            candidates.add(new Candidate(resolved, origin.distSqr(resolved.treeBase)));
+        }
+        candidates.sort(Comparator.comparingDouble(candidate -> candidate.distanceSqr));
+        return candidates;
+    }
+
     private TargetSelection stepNearScan(BlockPos origin) {
         if (origin == null) {
             return null;
         }
         if (nearPathCheckState != null) {
-            TargetSelection selection = nearPathCheckState.step(this, MAX_PATH_CHECKS_PER_TICK);
+            TargetSelection selection = stepPathCheck(nearPathCheckState);
             if (selection != null) {
                 return selection;
             }
@@ -799,11 +926,41 @@ public final class CompanionTreeHarvestController {
             }
             return null;
         }
+        if (isAsyncScanAvailable() && nearScanState == null) {
+            if (origin.equals(nearAsyncScannedOrigin)) {
+                return null;
+            }
+            long asyncStart = CompanionTickProfiler.begin();
+            if (nearAsyncScan == null || !nearAsyncScan.matches(origin)) {
+                startNearAsyncScan(origin);
+            }
+            List<Candidate> candidates = null;
+            boolean done = nearAsyncScan.tick();
+            if (done) {
+                boolean failed = nearAsyncScan.isFailed();
+                List<BlockPos> logs = nearAsyncScan.getResult();
+                nearAsyncScan = null;
+                if (!failed) {
+                    nearAsyncScannedOrigin = origin;
+                    candidates = collectIndexedCandidates(origin, logs);
+                }
+            }
+            CompanionTickProfiler.end(CompanionTickProfiler.Section.SCAN, asyncStart);
+            if (!done) {
+                return null;
+            }
+            if (candidates != null) {
+                if (!candidates.isEmpty()) {
+                    nearPathCheckState = new PathCheckState(candidates);
+                }
+                return null;
+            }
+        }
         if (nearScanState == null || !nearScanState.matches(origin)) {
             nearScanState = new ScanState(origin, owner.getEyePosition(), owner.getLookAngle().normalize(),
                     NEAR_SCAN_RADIUS, false);
         }
-        nearScanState.step(this, MAX_SCAN_BLOCKS_PER_TICK);
+        stepScan(nearScanState);
         if (nearScanState.isFinished()) {
             if (nearPathCheckState == null && !nearScanState.getCandidates().isEmpty()) {
                 nearPathCheckState = new PathCheckState(new ArrayList<>(nearScanState.getCandidates()));
@@ -815,11 +972,45 @@ public final class CompanionTreeHarvestController {
         return null;
     }
 
+    private boolean isAsyncScanAvailable() {
+        return CompanionConfig.isAsyncResourceScanEnabled() && owner.level() instanceof ServerLevel;
+    }
+
+    private void startAsyncScan(BlockPos origin) {
+        cancelAsyncScan();
+        asyncScan = CompanionAsyncScan.start(owner.level(), origin, RESOURCE_SCAN_RADIUS, RESOURCE_SCAN_RADIUS,
+                (snapshot, active) -> snapshot.findNearest(origin, RESOURCE_SCAN_RADIUS, CompanionBlockRegistry::isLog,
+                        INDEX_LOG_LIMIT, active));
+    }
+
+    private void cancelAsyncScan() {
+        if (asyncScan != null) {
+            asyncScan.cancel();
+            asyncScan = null;
+        }
+    }
+
+    private void startNearAsyncScan(BlockPos origin) {
+        cancelNearAsyncScan();
+        nearAsyncScan = CompanionAsyncScan.start(owner.level(), origin, NEAR_SCAN_RADIUS, NEAR_SCAN_RADIUS,
+                (snapshot, active) -> snapshot.findNearest(origin, NEAR_SCAN_RADIUS, CompanionBlockRegistry::isLog,
+                        INDEX_LOG_LIMIT, active));
+    }
+
+    private void cancelNearAsyncScan() {
+        nearAsyncScannedOrigin = null;
+        if (nearAsyncScan != null) {
+            nearAsyncScan.cancel();
+            nearAsyncScan = null;
+        }
+    }
+
     private TargetSelection resolveTreeSelection(BlockPos pos, BlockState state) {
         if (CompanionBlockRegistry.isLog(state)) {
-            BlockPos base = findTreeBase(pos);
+            TreeCluster cluster = resolveTreeCluster(pos);
+            BlockPos base = cluster.base;
             if (base != null) {
-                if (!isValidTreeBase(base)) {
+                if (!cluster.valid) {
                     return null;
                 }
                 BlockPos sight = isTreeChopActive() ? base : pos;
@@ -830,9 +1021,10 @@ public final class CompanionTreeHarvestController {
         if (CompanionBlockRegistry.isLeaves(state)) {
             BlockPos logPos = resolveLogFromLeaves(pos);
             if (logPos != null) {
-                BlockPos base = findTreeBase(logPos);
+                TreeCluster cluster = resolveTreeCluster(logPos);
+                BlockPos base = cluster.base;
                 if (base != null) {
-                    if (!isValidTreeBase(base)) {
+                    if (!cluster.valid) {
                         return null;
                     }
                     BlockPos sight = isTreeChopActive() ? base : pos;
@@ -845,16 +1037,10 @@ public final class CompanionTreeHarvestController {
     }
 
     private TargetSelection resolveObstruction(BlockPos resourcePos, BlockPos sightPos) {
-        Vec3 eye = owner.getEyePosition();
-        Vec3 targetCenter = Vec3.atCenterOf(resourcePos);
-        BlockHitResult hit = owner.level().clip(new ClipContext(eye, targetCenter, ClipContext.Block.COLLIDER,
-                ClipContext.Fluid.NONE, owner));
-        if (hit.getType() == HitResult.Type.MISS) {
+        CompanionObstructionResolver.Result hit = obstructionResolver().trace(owner.getEyePosition(), resourcePos);
+        if (hit.isClear()) {
             return new TargetSelection(resourcePos, resourcePos, sightPos);
         }
-        if (hit.getType() != HitResult.Type.BLOCK) {
-            return null;
-        }
         BlockPos hitPos = hit.getBlockPos();
         if (hitPos.equals(resourcePos)) {
             return new TargetSelection(resourcePos, resourcePos, sightPos);
@@ -872,6 +1058,15 @@ public final class CompanionTreeHarvestController {
         return new TargetSelection(hitPos, resourcePos, sightPos, resourcePos, sightPos);
     }
 
+    private CompanionObstructionResolver obstructionResolver() {
+        long gameTime = owner.level().getGameTime();
+        if (obstructionResolver == null || obstructionResolverTick != gameTime) {
+            obstructionResolver = new CompanionObstructionResolver(owner.level());
+            obstructionResolverTick = gameTime;
+        }
+        return obstructionResolver;
+    }
+
     private TargetSelection resolveTreeObstruction(TargetSelection selection) {
         if (selection == null || selection.treeBase == null) {
             return selection;
@@ -1043,7 +1238,22 @@ public final class CompanionTreeHarvestController {
         }
     }
 
-    private BlockPos findTreeBase(BlockPos start) {
+    private TreeCluster resolveTreeCluster(BlockPos logPos) {
+        TreeCluster cached = treeClusters.get(logPos.asLong());
+        if (cached != null && (cached.base == null || CompanionBlockRegistry.isLog(owner.level().getBlockState(cached.base)))) {
+            return cached;
+        }
+        List<BlockPos> clusterLogs = new ArrayList<>();
+        BlockPos base = findTreeBase(logPos, clusterLogs);
+        TreeCluster cluster = new TreeCluster(base, base != null && isValidTreeBase(base));
+        treeClusters.put(logPos.asLong(), cluster);
+        for (BlockPos clusterLog : clusterLogs) {
+            treeClusters.put(clusterLog.asLong(), cluster);
+        }
+        return cluster;
+    }
+
+    private BlockPos findTreeBase(BlockPos start, List<BlockPos> clusterLogs) {
         if (start == null) {
             return null;
         }
@@ -1073,6 +1283,7 @@ public final class CompanionTreeHarvestController {
             if (!CompanionBlockRegistry.isLog(state)) {
                 continue;
             }
+            clusterLogs.add(pos);
             BlockState belowState = owner.level().getBlockState(pos.below());
             boolean belowIsLog = CompanionBlockRegistry.isLog(belowState);
             boolean belowIsLeaves = CompanionBlockRegistry.isLeaves(belowState);
@@ -1380,7 +1591,7 @@ public final class CompanionTreeHarvestController {
         }
         int vertical = TREE_MAX_RADIUS * 2 + LOG_FROM_LEAVES_MAX_DEPTH;
         AABB range = new AABB(base).inflate(TREE_MAX_RADIUS, vertical, TREE_MAX_RADIUS);
-        List<ItemEntity> drops = owner.level().getEntitiesOfClass(ItemEntity.class, range);
+        List<ItemEntity> drops = owner.getEntitySnapshot().getEntitiesOfClass(ItemEntity.class, range);
         for (ItemEntity itemEntity : drops) {
             if (!itemEntity.isAlive()) {
                 continue;
@@ -1642,6 +1853,10 @@ public final class CompanionTreeHarvestController {
         pathCheckState = null;
         nearScanState = null;
         nearPathCheckState = null;
+        cancelAsyncScan();
+        cancelNearAsyncScan();
+        treeClusters.clear();
+        reachabilityField = null;
     }
 
     private void resetStuckTracking() {
@@ -1666,6 +1881,10 @@ public final class CompanionTreeHarvestController {
         pathCheckState = null;
         nearScanState = null;
         nearPathCheckState = null;
+        cancelAsyncScan();
+        cancelNearAsyncScan();
+        treeClusters.clear();
+        reachabilityField = null;
     }
 
     private boolean isPathAcceptable(TargetSelection selection, double distanceSqr) {
@@ -1690,6 +1909,9 @@ public final class CompanionTreeHarvestController {
     }
 
     private int findBestPathNodes(BlockPos base) {
+        CompanionReachabilityField field = reachabilityField != null && reachabilityField.isComplete()
+                ? reachabilityField
+                : null;
         int bestNodes = Integer.MAX_VALUE;
         BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
         for (int dy = 0; dy <= 1; dy++) {
@@ -1703,6 +1925,13 @@ public final class CompanionTreeHarvestController {
                     if (!isPassable(pos)) {
                         continue;
                     }
+                    if (field != null) {
+                        int distance = field.getDistance(pos);
+                        if (distance != CompanionReachabilityField.UNREACHABLE) {
+                            bestNodes = Math.min(bestNodes, distance + 1);
+                            continue;
+                        }
+                    }
                     net.minecraft.world.level.pathfinder.Path path = owner.getNavigation().createPath(pos, 1);
                     if (path == null || !path.canReach()) {
                         continue;
@@ -1717,6 +1946,24 @@ public final class CompanionTreeHarvestController {
         return bestNodes == Integer.MAX_VALUE ? -1 : bestNodes;
     }
 
+    private int getTravelCost(BlockPos base) {
+        if (base == null || reachabilityField == null || !reachabilityField.isComplete()) {
+            return Integer.MAX_VALUE;
+        }
+        int bestCost = Integer.MAX_VALUE;
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int dy = 0; dy <= 1; dy++) {
+            for (Direction direction : Direction.Plane.HORIZONTAL) {
+                pos.set(base.getX() + direction.getStepX(), base.getY() + dy, base.getZ() + direction.getStepZ());
+                int distance = reachabilityField.getDistance(pos);
+                if (distance != CompanionReachabilityField.UNREACHABLE && distance < bestCost) {
+                    bestCost = distance;
+                }
+            }
+        }
+        return bestCost;
+    }
+
     private boolean isPassable(BlockPos pos) {
         BlockState state = owner.level().getBlockState(pos);
         if (state.isAir()) {
@@ -1763,6 +2010,13 @@ public final class CompanionTreeHarvestController {
     }
 
     private boolean tryPlaceStepBlock(long gameTime) {
+        long placementStart = CompanionTickProfiler.begin();
+        boolean placed = placeStepBlock(gameTime);
+        CompanionTickProfiler.end(CompanionTickProfiler.Section.PLACEMENT, placementStart);
+        return placed;
+    }
+
+    private boolean placeStepBlock(long gameTime) {
         if (!(owner.level() instanceof ServerLevel serverLevel)) {
             return false;
         }
@@ -2207,18 +2461,16 @@ public final class CompanionTreeHarvestController {
             candidates.clear();
         }
 
-        private TargetSelection step(CompanionTreeHarvestController controller, int budget) {
+        private TargetSelection step(CompanionTreeHarvestController controller, CompanionScanScheduler.Slice slice) {
             if (finished) {
                 return null;
             }
             BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
-            int processed = 0;
-            while (processed < budget && !finished) {
+            while (!finished && slice.tryConsume()) {
                 int dx = xOffsets[ix];
                 int dy = yOffsets[iy];
                 int dz = zOffsets[iz];
                 pos.set(origin.getX() + dx, origin.getY() + dy, origin.getZ() + dz);
-                processed++;
                 BlockState state = controller.owner.level().getBlockState(pos);
                 TargetSelection selection = controller.resolveTreeSelection(pos.immutable(), state);
                 if (selection != null) {
@@ -2280,6 +2532,16 @@ public final class CompanionTreeHarvestController {
         }
     }
 
+    private static final class TreeCluster {
+        private final BlockPos base;
+        private final boolean valid;
+
+        private TreeCluster(BlockPos base, boolean valid) {
+            this.base = base;
+            this.valid = valid;
+        }
+    }
+
     private static final class Candidate {
         private final TargetSelection selection;
         private final double distanceSqr;
@@ -2293,21 +2555,28 @@ public final class CompanionTreeHarvestController {
     private static final class PathCheckState {
         private final List<Candidate> candidates;
         private int index;
+        private boolean ranked;
         private boolean finished;
 
         private PathCheckState(List<Candidate> candidates) {
-            this.candidates = candidates == null ? List.of() : candidates;
+            this.candidates = candidates == null ? new ArrayList<>() : new ArrayList<>(candidates);
         }
 
         private boolean isFinished() {
             return finished;
         }
 
-        private TargetSelection step(CompanionTreeHarvestController controller, int budget) {
-            int processed = 0;
-            while (index < candidates.size() && processed < budget) {
+        private TargetSelection step(CompanionTreeHarvestController controller, CompanionScanScheduler.Slice slice) {
+            if (!ranked) {
+                ranked = true;
+                Map<Candidate, Integer> costs = new HashMap<>();
+                for (Candidate candidate : candidates) {
+                    costs.put(candidate, controller.getTravelCost(candidate.selection.treeBase));
+                }
+                candidates.sort(Comparator.comparingInt(costs::get));
+            }
+            while (index < candidates.size() && slice.tryConsume()) {
                 Candidate candidate = candidates.get(index++);
-                processed++;
                 if (controller.isPathAcceptable(candidate.selection, candidate.distanceSqr)) {
                     finished = true;
                     return candidate.selection;
@@ -0,0 +1,18 @@
+package ru.nekostul.aicompanion.events;
+
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import ru.nekostul.aicompanion.AiCompanionMod;
+import ru.nekostul.aicompanion.entity.resource.CompanionBlockRegistry;
+
+@Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class CompanionBlockRegistryEvents {
+    private CompanionBlockRegistryEvents() {
+    }
+
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        CompanionBlockRegistry.rebuildStateMasks();
+    }
+}
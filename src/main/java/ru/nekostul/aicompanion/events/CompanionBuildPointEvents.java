@@ -7,7 +7,7 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import ru.nekostul.aicompanion.AiCompanionMod;
 import ru.nekostul.aicompanion.entity.CompanionEntity;
-import ru.nekostul.aicompanion.entity.CompanionSingleNpcManager;
+import ru.nekostul.aicompanion.entity.CompanionManager;
 
 @Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public final class CompanionBuildPointEvents {
@@ -22,7 +22,7 @@ public final class CompanionBuildPointEvents {
         if (!(event.getEntity() instanceof ServerPlayer player) || player.isSpectator()) {
             return;
         }
-        CompanionEntity companion = CompanionSingleNpcManager.getActive(player);
+        CompanionEntity companion = CompanionManager.getActive(player);
         if (companion == null) {
             return;
         }
@@ -2,7 +2,6 @@ package ru.nekostul.aicompanion.events;
 
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.phys.AABB;
 import net.minecraftforge.event.ServerChatEvent;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -11,7 +10,8 @@ import net.minecraftforge.server.ServerLifecycleHooks;
 
 import ru.nekostul.aicompanion.AiCompanionMod;
 import ru.nekostul.aicompanion.entity.CompanionEntity;
-import ru.nekostul.aicompanion.entity.CompanionSingleNpcManager;
+import ru.nekostul.aicompanion.entity.CompanionRegistry;
+import ru.nekostul.aicompanion.entity.CompanionManager;
 
 import java.util.Locale;
 import java.util.Queue;
@@ -62,7 +62,7 @@ public final class CompanionChatEvents {
         }
 
         if (isWhereCommand(message)) {
-            CompanionEntity active = CompanionSingleNpcManager.getActive(player);
+            CompanionEntity active = CompanionManager.getActive(player);
             if (active != null) {
                 return active.handleWhereCommand(player);
             }
@@ -122,17 +122,7 @@ public final class CompanionChatEvents {
     }
 
     private static CompanionEntity findNearestCompanion(ServerPlayer player) {
-        AABB range = player.getBoundingBox().inflate(COMMAND_RANGE);
-        CompanionEntity nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
-        for (CompanionEntity companion : player.level().getEntitiesOfClass(CompanionEntity.class, range)) {
-            double distance = player.distanceToSqr(companion);
-            if (distance < nearestDistance) {
-                nearestDistance = distance;
-                nearest = companion;
-            }
-        }
-        return nearest;
+        return CompanionRegistry.findNearestInRange(player, COMMAND_RANGE);
     }
 
     private static CompanionEntity.CompanionMode parseMode(String message) {
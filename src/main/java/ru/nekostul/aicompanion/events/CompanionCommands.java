@@ -1,6 +1,7 @@
 package ru.nekostul.aicompanion.events;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
@@ -19,18 +20,33 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.network.NetworkHooks;
 
+import java.util.List;
+
 import ru.nekostul.aicompanion.AiCompanionMod;
+import ru.nekostul.aicompanion.aiproviders.yandexgpt.AiRequestScheduler;
 import ru.nekostul.aicompanion.CompanionConfig;
 import ru.nekostul.aicompanion.bugreport.BugReportService;
 import ru.nekostul.aicompanion.client.gui.CompanionEquipmentMenu;
 import ru.nekostul.aicompanion.entity.CompanionEntity;
-import ru.nekostul.aicompanion.entity.CompanionSingleNpcManager;
+import ru.nekostul.aicompanion.entity.CompanionManager;
+import ru.nekostul.aicompanion.entity.command.CompanionCommandCache;
+import ru.nekostul.aicompanion.entity.perf.CompanionBenchmark;
+import ru.nekostul.aicompanion.entity.perf.CompanionTickProfiler;
 import ru.nekostul.aicompanion.registry.ModEntities;
 
 @Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public final class CompanionCommands {
     private static final String TREECHOP_ENABLED_KEY = "entity.aicompanion.companion.treechop.enabled";
     private static final String TREECHOP_DISABLED_KEY = "entity.aicompanion.companion.treechop.disabled";
+    private static final String PERF_EMPTY_KEY = "entity.aicompanion.companion.perf.empty";
+    private static final String PERF_RESET_KEY = "entity.aicompanion.companion.perf.reset";
+    private static final String BENCH_STARTED_KEY = "entity.aicompanion.companion.bench.started";
+    private static final String BENCH_RUNNING_KEY = "entity.aicompanion.companion.bench.running";
+    private static final String BENCH_STOPPED_KEY = "entity.aicompanion.companion.bench.stopped";
+    private static final String BENCH_IDLE_KEY = "entity.aicompanion.companion.bench.idle";
+    private static final int BENCH_MAX_COMPANIONS = 500;
+    private static final int BENCH_DEFAULT_TICKS = 600;
+    private static final int BENCH_MAX_TICKS = 12000;
 
     private CompanionCommands() {
     }
@@ -79,6 +95,21 @@ public final class CompanionCommands {
                                         .executes(context -> handleTreeChop(context, true)))
                                 .then(Commands.literal("off")
                                         .executes(context -> handleTreeChop(context, false))))
+                        .then(Commands.literal("perf")
+                                .requires(source -> source.hasPermission(2))
+                                .executes(CompanionCommands::handlePerf)
+                                .then(Commands.literal("reset")
+                                        .executes(CompanionCommands::handlePerfReset)))
+                        .then(Commands.literal("bench")
+                                .requires(source -> source.hasPermission(2))
+                                .then(Commands.literal("stop")
+                                        .executes(CompanionCommands::handleBenchStop))
+                                .then(Commands.argument("count", IntegerArgumentType.integer(1, BENCH_MAX_COMPANIONS))
+                                        .executes(context -> handleBench(context, BENCH_DEFAULT_TICKS))
+                                        .then(Commands.argument("ticks",
+                                                        IntegerArgumentType.integer(20, BENCH_MAX_TICKS))
+                                                .executes(context -> handleBench(context,
+                                                        IntegerArgumentType.getInteger(context, "ticks"))))))
                         .then(Commands.literal("spawn")
                                 .requires(source -> source.hasPermission(2))
                                 .executes(CompanionCommands::handleSpawn))
@@ -115,7 +146,7 @@ public final class CompanionCommands {
             throws CommandSyntaxException {
         ServerPlayer owner = context.getSource().getPlayerOrException();
         ServerPlayer target = EntityArgument.getPlayer(context, "player");
-        CompanionEntity companion = CompanionSingleNpcManager.getActive(owner);
+        CompanionEntity companion = CompanionManager.getActive(owner);
         if (companion == null || !companion.canManageParty(owner)) {
             return 0;
         }
@@ -127,7 +158,7 @@ public final class CompanionCommands {
 
     private static int handleGui(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         ServerPlayer player = context.getSource().getPlayerOrException();
-        CompanionEntity companion = CompanionSingleNpcManager.getActive(player);
+        CompanionEntity companion = CompanionManager.getActive(player);
         if (companion == null || !companion.canPlayerControl(player)) {
             return 0;
         }
@@ -142,7 +173,7 @@ public final class CompanionCommands {
 
     private static int handleInventory(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         ServerPlayer player = context.getSource().getPlayerOrException();
-        CompanionEntity companion = CompanionSingleNpcManager.getActive(player);
+        CompanionEntity companion = CompanionManager.getActive(player);
         if (companion == null || !companion.canPlayerControl(player)) {
             return 0;
         }
@@ -158,7 +189,7 @@ public final class CompanionCommands {
 
     private static int handleSetHome(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         ServerPlayer player = context.getSource().getPlayerOrException();
-        CompanionEntity companion = CompanionSingleNpcManager.getActiveIncludingDead(player);
+        CompanionEntity companion = CompanionManager.getActiveIncludingDead(player);
         if (companion == null || !companion.canPlayerControl(player)) {
             return 0;
         }
@@ -168,7 +199,7 @@ public final class CompanionCommands {
     private static int handleHomeConfirm(CommandContext<CommandSourceStack> context, boolean accepted)
             throws CommandSyntaxException {
         ServerPlayer player = context.getSource().getPlayerOrException();
-        CompanionEntity companion = CompanionSingleNpcManager.getActive(player);
+        CompanionEntity companion = CompanionManager.getActive(player);
         if (companion == null || !companion.canPlayerControl(player)) {
             return 0;
         }
@@ -178,7 +209,7 @@ public final class CompanionCommands {
     private static int handleTreeChop(CommandContext<CommandSourceStack> context, boolean enabled)
             throws CommandSyntaxException {
         ServerPlayer player = context.getSource().getPlayerOrException();
-        CompanionEntity companion = CompanionSingleNpcManager.getActive(player);
+        CompanionEntity companion = CompanionManager.getActive(player);
         if (companion != null && !companion.canPlayerControl(player)) {
             return 0;
         }
@@ -195,13 +226,60 @@ public final class CompanionCommands {
     private static int handleBoatConfirm(CommandContext<CommandSourceStack> context, boolean accepted)
             throws CommandSyntaxException {
         ServerPlayer player = context.getSource().getPlayerOrException();
-        CompanionEntity companion = CompanionSingleNpcManager.getActive(player);
+        CompanionEntity companion = CompanionManager.getActive(player);
         if (companion == null || !companion.canPlayerControl(player)) {
             return 0;
         }
         return companion.handleBoatRideConfirmation(player, accepted) ? 1 : 0;
     }
 
+    private static int handlePerf(CommandContext<CommandSourceStack> context) {
+        List<Component> lines = CompanionTickProfiler.report();
+        CompanionCommandCache commandCache = CompanionCommandCache.get(context.getSource().getServer());
+        if (commandCache != null) {
+            Component cacheLine = commandCache.describe();
+            context.getSource().sendSuccess(() -> cacheLine, false);
+        }
+        for (Component line : AiRequestScheduler.report()) {
+            context.getSource().sendSuccess(() -> line, false);
+        }
+        if (lines.isEmpty()) {
+            context.getSource().sendSuccess(() -> Component.translatable(PERF_EMPTY_KEY), false);
+            return 0;
+        }
+        for (Component line : lines) {
+            context.getSource().sendSuccess(() -> line, false);
+        }
+        return 1;
+    }
+
+    private static int handlePerfReset(CommandContext<CommandSourceStack> context) {
+        CompanionTickProfiler.reset();
+        context.getSource().sendSuccess(() -> Component.translatable(PERF_RESET_KEY), false);
+        return 1;
+    }
+
+    private static int handleBench(CommandContext<CommandSourceStack> context, int ticks)
+            throws CommandSyntaxException {
+        ServerPlayer player = context.getSource().getPlayerOrException();
+        int count = IntegerArgumentType.getInteger(context, "count");
+        if (!CompanionBenchmark.start(player, count, ticks)) {
+            context.getSource().sendFailure(Component.translatable(BENCH_RUNNING_KEY));
+            return 0;
+        }
+        context.getSource().sendSuccess(() -> Component.translatable(BENCH_STARTED_KEY, count, ticks), false);
+        return 1;
+    }
+
+    private static int handleBenchStop(CommandContext<CommandSourceStack> context) {
+        if (!CompanionBenchmark.stop()) {
+            context.getSource().sendFailure(Component.translatable(BENCH_IDLE_KEY));
+            return 0;
+        }
+        context.getSource().sendSuccess(() -> Component.translatable(BENCH_STOPPED_KEY), false);
+        return 1;
+    }
+
     private static int handleSpawn(CommandContext<CommandSourceStack> context) throws CommandSyntaxException {
         ServerPlayer player = context.getSource().getPlayerOrException();
         CompanionEntity companion = spawnCompanionNear(player);
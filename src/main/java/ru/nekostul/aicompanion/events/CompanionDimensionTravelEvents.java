@@ -13,7 +13,7 @@ import net.minecraftforge.fml.common.Mod;
 
 import ru.nekostul.aicompanion.AiCompanionMod;
 import ru.nekostul.aicompanion.entity.CompanionEntity;
-import ru.nekostul.aicompanion.entity.CompanionSingleNpcManager;
+import ru.nekostul.aicompanion.entity.CompanionManager;
 
 import java.util.UUID;
 
@@ -27,13 +27,14 @@ public final class CompanionDimensionTravelEvents {
         if (event == null || !(event.getEntity() instanceof ServerPlayer player) || player.server == null) {
             return;
         }
-        CompanionSingleNpcManager.ensureLoaded(player.server);
-        CompanionEntity companion = CompanionSingleNpcManager.getActiveIncludingDead(player);
-        if (companion == null) {
-            UUID companionId = CompanionSingleNpcManager.getActiveId();
-            ResourceKey<Level> levelKey = CompanionSingleNpcManager.getActiveDimension();
-            BlockPos lastPos = CompanionSingleNpcManager.getLastKnownPos();
-            if (companionId != null && levelKey != null && lastPos != null) {
+        CompanionManager.ensureLoaded(player.server);
+        CompanionEntity companion = CompanionManager.getActiveIncludingDead(player);
+        CompanionManager.Tracked tracked = companion == null ? CompanionManager.getTrackedFor(player) : null;
+        if (tracked != null) {
+            UUID companionId = tracked.getCompanionId();
+            ResourceKey<Level> levelKey = tracked.getDimension();
+            BlockPos lastPos = tracked.getLastKnownPos();
+            if (levelKey != null && lastPos != null) {
                 ServerLevel companionLevel = player.server.getLevel(levelKey);
                 if (companionLevel != null) {
                     companionLevel.getChunkSource().getChunk(lastPos.getX() >> 4, lastPos.getZ() >> 4,
@@ -0,0 +1,30 @@
+package ru.nekostul.aicompanion.events;
+
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.phys.AABB;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import ru.nekostul.aicompanion.AiCompanionMod;
+import ru.nekostul.aicompanion.entity.CompanionEntity;
+import ru.nekostul.aicompanion.entity.movement.CompanionDoorTracker;
+
+@Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class CompanionDoorEvents {
+    private static final double DOOR_NOTIFY_RANGE = CompanionDoorTracker.SCAN_RADIUS + 2.0D;
+
+    private CompanionDoorEvents() {
+    }
+
+    @SubscribeEvent
+    public static void onBlockChanged(BlockEvent.NeighborNotifyEvent event) {
+        if (!(event.getLevel() instanceof ServerLevel serverLevel)
+                || !CompanionDoorTracker.isLowerDoorState(event.getState())) {
+            return;
+        }
+        AABB range = new AABB(event.getPos()).inflate(DOOR_NOTIFY_RANGE);
+        for (CompanionEntity companion : serverLevel.getEntitiesOfClass(CompanionEntity.class, range)) {
+            companion.onNearbyDoorChanged();
+        }
+    }
+}
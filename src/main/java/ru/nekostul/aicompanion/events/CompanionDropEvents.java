@@ -1,5 +1,8 @@
 package ru.nekostul.aicompanion.events;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.SectionPos;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.item.ItemEntity;
@@ -7,7 +10,9 @@ import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.item.BlockItem;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.network.chat.Component;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.phys.AABB;
+import net.minecraftforge.event.entity.EntityJoinLevelEvent;
 import net.minecraftforge.event.entity.item.ItemTossEvent;
 import net.minecraftforge.event.entity.living.LivingDropsEvent;
 import net.minecraftforge.event.level.BlockEvent;
@@ -34,11 +39,10 @@ import java.util.UUID;
 
 @Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public final class CompanionDropEvents {
-    private static final int BLOCK_DROP_MARK_DELAY_TICKS = 1;
-    private static final int BLOCK_DROP_MARK_LIFETIME_TICKS = 40;
+    private static final int BLOCK_DROP_MARK_LIFETIME_TICKS = 41;
     private static final double BLOCK_DROP_MARK_RADIUS_XZ = 28.0D;
     private static final double BLOCK_DROP_MARK_RADIUS_Y = 12.0D;
-    private static final int BLOCK_DROP_MAX_AGE_TICKS = 40;
+    private static final int BLOCK_DROP_MARK_CHUNK_REACH = (int) Math.ceil(BLOCK_DROP_MARK_RADIUS_XZ / 16.0D);
     private static final double OWNER_TOSS_DIRECT_ACCEPT_RADIUS = 48.0D;
     private static final double OWNER_TOSS_FALLBACK_ACCEPT_RADIUS = 128.0D;
     private static final int OWNER_TOSS_RETRY_INTERVAL_TICKS = 2;
@@ -49,27 +53,46 @@ public final class CompanionDropEvents {
     private static final long OWNER_BLOCK_TOSS_DEBUG_WINDOW_TICKS = 60L;
     private static final long OWNER_BLOCK_TOSS_DEBUG_STALE_TICKS = 200L;
 
-    private static final List<PendingPlayerBlockDropMark> PENDING_BLOCK_DROP_MARKS = new ArrayList<>();
+    private static final Map<net.minecraft.resources.ResourceKey<net.minecraft.world.level.Level>,
+            Long2ObjectOpenHashMap<List<PlayerBlockDropMark>>> BLOCK_DROP_MARKS = new HashMap<>();
     private static final Map<UUID, OwnerBlockTossDebugWindow> OWNER_BLOCK_TOSS_DEBUG = new HashMap<>();
 
-    private static final class PendingPlayerBlockDropMark {
+    private static final class PlayerBlockDropMark {
         private final UUID playerId;
-        private final net.minecraft.resources.ResourceKey<net.minecraft.world.level.Level> dimension;
-        private final net.minecraft.core.BlockPos center;
-        private final long readyTick;
-        private final long expireTick;
+        private int minX;
+        private int minY;
+        private int minZ;
+        private int maxX;
+        private int maxY;
+        private int maxZ;
+        private long expireTick;
 
-        private PendingPlayerBlockDropMark(UUID playerId,
-                                           net.minecraft.resources.ResourceKey<net.minecraft.world.level.Level> dimension,
-                                           net.minecraft.core.BlockPos center,
-                                           long readyTick,
-                                           long expireTick) {
+        private PlayerBlockDropMark(UUID playerId, net.minecraft.core.BlockPos center, long expireTick) {
             this.playerId = playerId;
-            this.dimension = dimension;
-            this.center = center;
-            this.readyTick = readyTick;
+            this.minX = center.getX();
+            this.minY = center.getY();
+            this.minZ = center.getZ();
+            this.maxX = center.getX();
+            this.maxY = center.getY();
+            this.maxZ = center.getZ();
             this.expireTick = expireTick;
         }
+
+        private void include(net.minecraft.core.BlockPos center, long expireTick) {
+            minX = Math.min(minX, center.getX());
+            minY = Math.min(minY, center.getY());
+            minZ = Math.min(minZ, center.getZ());
+            maxX = Math.max(maxX, center.getX());
+            maxY = Math.max(maxY, center.getY());
+            maxZ = Math.max(maxZ, center.getZ());
+            this.expireTick = Math.max(this.expireTick, expireTick);
+        }
+
+        private boolean contains(double x, double y, double z) {
+            return x >= minX - BLOCK_DROP_MARK_RADIUS_XZ && x <= maxX + 1.0D + BLOCK_DROP_MARK_RADIUS_XZ
+                    && y >= minY - BLOCK_DROP_MARK_RADIUS_Y && y <= maxY + 1.0D + BLOCK_DROP_MARK_RADIUS_Y
+                    && z >= minZ - BLOCK_DROP_MARK_RADIUS_XZ && z <= maxZ + 1.0D + BLOCK_DROP_MARK_RADIUS_XZ;
+        }
     }
 
     private static final class OwnerBlockTossDebugWindow {
@@ -158,59 +181,86 @@ public final class CompanionDropEvents {
         if (!(event.getLevel() instanceof ServerLevel serverLevel)) {
             return;
         }
-        long now = serverLevel.getGameTime();
-        PENDING_BLOCK_DROP_MARKS.add(new PendingPlayerBlockDropMark(
-                player.getUUID(),
-                serverLevel.dimension(),
-                event.getPos().immutable(),
-                now + BLOCK_DROP_MARK_DELAY_TICKS,
-                now + BLOCK_DROP_MARK_DELAY_TICKS + BLOCK_DROP_MARK_LIFETIME_TICKS
-        ));
+        long expireTick = serverLevel.getGameTime() + BLOCK_DROP_MARK_LIFETIME_TICKS;
+        net.minecraft.core.BlockPos pos = event.getPos();
+        Long2ObjectOpenHashMap<List<PlayerBlockDropMark>> chunks = BLOCK_DROP_MARKS.computeIfAbsent(
+                serverLevel.dimension(), key -> new Long2ObjectOpenHashMap<>());
+        long chunkKey = ChunkPos.asLong(SectionPos.blockToSectionCoord(pos.getX()),
+                SectionPos.blockToSectionCoord(pos.getZ()));
+        List<PlayerBlockDropMark> marks = chunks.get(chunkKey);
+        if (marks == null) {
+            marks = new ArrayList<>(1);
+            chunks.put(chunkKey, marks);
+        }
+        for (PlayerBlockDropMark mark : marks) {
+            if (mark.playerId.equals(player.getUUID())) {
+                mark.include(pos, expireTick);
+                return;
+            }
+        }
+        marks.add(new PlayerBlockDropMark(player.getUUID(), pos.immutable(), expireTick));
     }
 
     @SubscribeEvent
-    public static void onLevelTick(TickEvent.LevelTickEvent event) {
-        if (event == null || event.phase != TickEvent.Phase.END) {
+    public static void onEntityJoin(EntityJoinLevelEvent event) {
+        if (event == null || event.loadedFromDisk() || !(event.getEntity() instanceof ItemEntity item)) {
             return;
         }
-        if (!(event.level instanceof ServerLevel serverLevel)) {
+        if (!(event.getLevel() instanceof ServerLevel serverLevel)) {
+            return;
+        }
+        Long2ObjectOpenHashMap<List<PlayerBlockDropMark>> chunks = BLOCK_DROP_MARKS.get(serverLevel.dimension());
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        if (CompanionDropTracker.isPlayerTossDrop(item)) {
             return;
         }
         long now = serverLevel.getGameTime();
-        Iterator<PendingPlayerBlockDropMark> iterator = PENDING_BLOCK_DROP_MARKS.iterator();
-        while (iterator.hasNext()) {
-            PendingPlayerBlockDropMark pending = iterator.next();
-            if (!pending.dimension.equals(serverLevel.dimension())) {
-                continue;
-            }
-            if (now >= pending.readyTick) {
-                AABB range = new AABB(pending.center).inflate(
-                        BLOCK_DROP_MARK_RADIUS_XZ,
-                        BLOCK_DROP_MARK_RADIUS_Y,
-                        BLOCK_DROP_MARK_RADIUS_XZ
-                );
-                List<ItemEntity> drops = serverLevel.getEntitiesOfClass(ItemEntity.class, range);
-                for (ItemEntity item : drops) {
-                    if (!item.isAlive() || item.tickCount > BLOCK_DROP_MAX_AGE_TICKS) {
-                        continue;
-                    }
-                    UUID trackedDropper = CompanionDropTracker.getPlayerDropper(item);
-                    if (trackedDropper != null && !pending.playerId.equals(trackedDropper)) {
-                        continue;
-                    }
-                    UUID vanillaDropper = CompanionDropTracker.getVanillaDropper(item);
-                    if (vanillaDropper != null && !pending.playerId.equals(vanillaDropper)) {
+        int itemChunkX = SectionPos.blockToSectionCoord(item.getBlockX());
+        int itemChunkZ = SectionPos.blockToSectionCoord(item.getBlockZ());
+        for (int chunkX = itemChunkX - BLOCK_DROP_MARK_CHUNK_REACH;
+             chunkX <= itemChunkX + BLOCK_DROP_MARK_CHUNK_REACH; chunkX++) {
+            for (int chunkZ = itemChunkZ - BLOCK_DROP_MARK_CHUNK_REACH;
+                 chunkZ <= itemChunkZ + BLOCK_DROP_MARK_CHUNK_REACH; chunkZ++) {
+                List<PlayerBlockDropMark> marks = chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+                if (marks == null) {
+                    continue;
+                }
+                for (PlayerBlockDropMark mark : marks) {
+                    if (now > mark.expireTick || !mark.contains(item.getX(), item.getY(), item.getZ())) {
                         continue;
                     }
-                    if (CompanionDropTracker.isPlayerTossDrop(item)) {
+                    if (isForeignDrop(item, mark.playerId)) {
                         continue;
                     }
-                    CompanionDropTracker.markPlayerBlockDrop(item, pending.playerId);
+                    CompanionDropTracker.markPlayerBlockDrop(item, mark.playerId);
+                    return;
                 }
             }
-            if (now >= pending.expireTick) {
-                iterator.remove();
-            }
+        }
+    }
+
+    private static boolean isForeignDrop(ItemEntity item, UUID playerId) {
+        UUID trackedDropper = CompanionDropTracker.getPlayerDropper(item);
+        if (trackedDropper != null && !playerId.equals(trackedDropper)) {
+            return true;
+        }
+        UUID vanillaDropper = CompanionDropTracker.getVanillaDropper(item);
+        return vanillaDropper != null && !playerId.equals(vanillaDropper);
+    }
+
+    @SubscribeEvent
+    public static void onLevelTick(TickEvent.LevelTickEvent event) {
+        if (event == null || event.phase != TickEvent.Phase.END) {
+            return;
+        }
+        if (!(event.level instanceof ServerLevel serverLevel)) {
+            return;
+        }
+        long now = serverLevel.getGameTime();
+        if (now % BLOCK_DROP_MARK_LIFETIME_TICKS == 0L) {
+            pruneBlockDropMarks(serverLevel, now);
         }
         if (!OWNER_TOSS_GROUND_PICKUP_ONLY && now % OWNER_TOSS_RETRY_INTERVAL_TICKS == 0L) {
             tickOwnerTossRetry(serverLevel);
@@ -218,6 +268,24 @@ public final class CompanionDropEvents {
         tickOwnerBlockTossDebug(serverLevel, now);
     }
 
+    private static void pruneBlockDropMarks(ServerLevel serverLevel, long now) {
+        Long2ObjectOpenHashMap<List<PlayerBlockDropMark>> chunks = BLOCK_DROP_MARKS.get(serverLevel.dimension());
+        if (chunks == null) {
+            return;
+        }
+        ObjectIterator<List<PlayerBlockDropMark>> iterator = chunks.values().iterator();
+        while (iterator.hasNext()) {
+            List<PlayerBlockDropMark> marks = iterator.next();
+            marks.removeIf(mark -> now > mark.expireTick);
+            if (marks.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        if (chunks.isEmpty()) {
+            BLOCK_DROP_MARKS.remove(serverLevel.dimension());
+        }
+    }
+
     private static void recordOwnerBlockTossDebug(ServerLevel serverLevel, Player player, CompanionEntity companion,
                                                   int tossedItems, int acceptedItems) {
         if (serverLevel == null || player == null || tossedItems <= 0) {
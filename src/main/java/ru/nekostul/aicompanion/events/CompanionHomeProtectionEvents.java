@@ -1,15 +1,12 @@
 package ru.nekostul.aicompanion.events;
 
-import net.minecraft.core.BlockPos;
-import net.minecraft.resources.ResourceKey;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.level.Level;
 import net.minecraftforge.event.level.BlockEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import ru.nekostul.aicompanion.AiCompanionMod;
-import ru.nekostul.aicompanion.entity.CompanionSingleNpcManager;
+import ru.nekostul.aicompanion.entity.CompanionManager;
 
 @Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public final class CompanionHomeProtectionEvents {
@@ -28,18 +25,9 @@ public final class CompanionHomeProtectionEvents {
         if (server == null) {
             return;
         }
-        CompanionSingleNpcManager.ensureLoaded(server);
-        BlockPos homePos = CompanionSingleNpcManager.getLastHomePos();
-        ResourceKey<Level> homeDimension = CompanionSingleNpcManager.getLastHomeDimension();
-        if (homePos == null || homeDimension == null) {
-            return;
-        }
-        if (!player.serverLevel().dimension().equals(homeDimension)) {
-            return;
-        }
-        if (!event.getPos().equals(homePos)) {
-            return;
+        CompanionManager.ensureLoaded(server);
+        if (CompanionManager.isHomePos(player.serverLevel().dimension(), event.getPos())) {
+            event.setCanceled(true);
         }
-        event.setCanceled(true);
     }
 }
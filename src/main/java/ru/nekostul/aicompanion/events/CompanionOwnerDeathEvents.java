@@ -9,7 +9,7 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import ru.nekostul.aicompanion.AiCompanionMod;
 import ru.nekostul.aicompanion.entity.CompanionEntity;
-import ru.nekostul.aicompanion.entity.CompanionSingleNpcManager;
+import ru.nekostul.aicompanion.entity.CompanionManager;
 
 @Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public final class CompanionOwnerDeathEvents {
@@ -21,8 +21,8 @@ public final class CompanionOwnerDeathEvents {
         if (event == null || !(event.getEntity() instanceof ServerPlayer player) || player.server == null) {
             return;
         }
-        CompanionSingleNpcManager.ensureLoaded(player.server);
-        CompanionEntity companion = CompanionSingleNpcManager.getActiveIncludingDead(player);
+        CompanionManager.ensureLoaded(player.server);
+        CompanionEntity companion = CompanionManager.getActiveIncludingDead(player);
         if (companion == null || !companion.isAlive() || !companion.isOwnedBy(player)) {
             return;
         }
@@ -0,0 +1,42 @@
+package ru.nekostul.aicompanion.events;
+
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import ru.nekostul.aicompanion.AiCompanionMod;
+import ru.nekostul.aicompanion.entity.perf.CompanionBenchmark;
+import ru.nekostul.aicompanion.entity.perf.CompanionTickProfiler;
+
+@Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class CompanionPerfEvents {
+    private CompanionPerfEvents() {
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public static void onServerTickStart(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            CompanionBenchmark.onTickStart();
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onServerTickEnd(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            CompanionTickProfiler.onTickEnd(event.getServer().getTickCount());
+            CompanionBenchmark.onTickEnd(event.getServer());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        CompanionBenchmark.stop();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        CompanionTickProfiler.reset();
+    }
+}
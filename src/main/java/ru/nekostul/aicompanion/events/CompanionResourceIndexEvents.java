@@ -0,0 +1,73 @@
+package ru.nekostul.aicompanion.events;
+
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import ru.nekostul.aicompanion.AiCompanionMod;
+import ru.nekostul.aicompanion.entity.resource.CompanionFluidSources;
+import ru.nekostul.aicompanion.entity.resource.CompanionResourceIndex;
+
+@Mod.EventBusSubscriber(modid = AiCompanionMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class CompanionResourceIndexEvents {
+    private CompanionResourceIndexEvents() {
+    }
+
+    @SubscribeEvent
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (!(event.getLevel() instanceof ServerLevel serverLevel) || !(event.getChunk() instanceof LevelChunk chunk)) {
+            return;
+        }
+        if (!serverLevel.getServer().isSameThread()) {
+            return;
+        }
+        CompanionResourceIndex.onChunkLoaded(serverLevel, chunk.getPos());
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (!(event.getLevel() instanceof ServerLevel serverLevel)) {
+            return;
+        }
+        if (!serverLevel.getServer().isSameThread()) {
+            return;
+        }
+        CompanionResourceIndex.onChunkUnloaded(serverLevel, event.getChunk().getPos());
+        CompanionFluidSources.onChunkUnloaded(serverLevel, event.getChunk().getPos());
+    }
+
+    @SubscribeEvent
+    public static void onBlockChanged(BlockEvent.NeighborNotifyEvent event) {
+        if (!(event.getLevel() instanceof ServerLevel serverLevel)) {
+            return;
+        }
+        CompanionResourceIndex.onBlockChanged(serverLevel, event.getPos(), event.getState());
+        CompanionFluidSources.onBlockChanged(serverLevel, event.getPos(), event.getState());
+    }
+
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            CompanionResourceIndex.onLevelUnloaded(serverLevel);
+            CompanionFluidSources.onLevelUnloaded(serverLevel);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event) {
+        if (event.getUpdateCause() == TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+            CompanionResourceIndex.clear();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        CompanionResourceIndex.clear();
+        CompanionFluidSources.clear();
+    }
+}
@@ -0,0 +1,126 @@
+package ru.nekostul.aicompanion.aiproviders.yandexgpt;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YandexGptCompletionStreamTest {
+    private static final long CHUNK_WAIT_SECONDS = 5L;
+    private static final long RESPONSE_WAIT_SECONDS = 10L;
+
+    private HttpServer server;
+    private URI endpoint;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.start();
+        endpoint = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/completion");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void deliversEachSentenceBeforeTheNextChunkArrives() throws Exception {
+        BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+        List<String> seenByServer = new CopyOnWriteArrayList<>();
+        server.createContext("/completion", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                writeLine(out, "Hello there. How");
+                seenByServer.add(awaitChunk(delivered));
+                writeLine(out, "Hello there. How are you? I am");
+                seenByServer.add(awaitChunk(delivered));
+                writeLine(out, "Hello there. How are you? I am fine");
+            }
+        });
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        YandexGptCompletionStream stream = new YandexGptCompletionStream(chunk -> {
+            chunks.add(chunk);
+            delivered.add(chunk);
+        }, 256);
+
+        HttpResponse<Void> response = post(stream);
+        stream.deliverRemainder();
+
+        assertEquals(200, response.statusCode());
+        assertEquals(List.of("Hello there.", "How are you?"), seenByServer);
+        assertEquals(List.of("Hello there.", "How are you?", "I am fine"), chunks);
+        assertEquals("Hello there. How are you? I am fine", stream.text());
+    }
+
+    @Test
+    void flushesUnterminatedTailOnCompletion() throws Exception {
+        server.createContext("/completion", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("\n".getBytes(StandardCharsets.UTF_8));
+                out.write("not json\n".getBytes(StandardCharsets.UTF_8));
+                writeLine(out, "Still");
+                writeLine(out, "Still thinking");
+            }
+        });
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        YandexGptCompletionStream stream = new YandexGptCompletionStream(chunks::add, 256);
+
+        post(stream);
+        assertTrue(chunks.isEmpty());
+        stream.deliverRemainder();
+        stream.deliverRemainder();
+
+        assertEquals(List.of("Still thinking"), chunks);
+    }
+
+    private HttpResponse<Void> post(YandexGptCompletionStream stream) throws Exception {
+        return YandexGptTransport.postLines(endpoint, "test-key", new JsonObject(), 1000, 5000, stream)
+                .get(RESPONSE_WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static String awaitChunk(BlockingQueue<String> delivered) {
+        try {
+            return delivered.poll(CHUNK_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void writeLine(OutputStream out, String text) throws IOException {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "assistant");
+        message.addProperty("text", text);
+        JsonObject alternative = new JsonObject();
+        alternative.add("message", message);
+        alternative.addProperty("status", "ALTERNATIVE_STATUS_PARTIAL");
+        JsonArray alternatives = new JsonArray();
+        alternatives.add(alternative);
+        JsonObject result = new JsonObject();
+        result.add("alternatives", alternatives);
+        JsonObject root = new JsonObject();
+        root.add("result", result);
+        out.write((root + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
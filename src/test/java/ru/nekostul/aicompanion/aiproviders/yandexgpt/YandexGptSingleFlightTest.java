@@ -0,0 +1,80 @@
+package ru.nekostul.aicompanion.aiproviders.yandexgpt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class YandexGptSingleFlightTest {
+    private static final int MAX_TOKENS = 256;
+
+    @Test
+    void identicalCommandsFromTwoPlayersShareOneUpstreamCall() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        String systemPrompt = YandexGptPrompts.commandSystemPrompt();
+
+        CompletableFuture<String> first = YandexGptSingleFlight.run(
+                YandexGptSingleFlight.key(YandexGptSingleFlight.Kind.COMMAND, systemPrompt, "Mine 16 stone",
+                        MAX_TOKENS),
+                () -> {
+                    calls.incrementAndGet();
+                    return upstream;
+                });
+        CompletableFuture<String> second = YandexGptSingleFlight.run(
+                YandexGptSingleFlight.key(YandexGptSingleFlight.Kind.COMMAND, systemPrompt, "  mine 16   stone ",
+                        MAX_TOKENS),
+                () -> {
+                    calls.incrementAndGet();
+                    return new CompletableFuture<>();
+                });
+
+        assertEquals(1, calls.get());
+        assertFalse(first.isDone());
+        upstream.complete("gather stone 16");
+        assertEquals("gather stone 16", first.join());
+        assertEquals("gather stone 16", second.join());
+    }
+
+    @Test
+    void finishedRequestIsNotReused() {
+        AtomicInteger calls = new AtomicInteger();
+        YandexGptSingleFlight.Key key = YandexGptSingleFlight.key(YandexGptSingleFlight.Kind.HOME_REVIEW,
+                YandexGptPrompts.homeReviewSystemPrompt(), "{\"rooms\":2}", MAX_TOKENS);
+
+        String firstAnswer = YandexGptSingleFlight.run(key, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("cozy");
+        }).join();
+        String secondAnswer = YandexGptSingleFlight.run(key, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("still cozy");
+        }).join();
+
+        assertEquals(2, calls.get());
+        assertEquals("cozy", firstAnswer);
+        assertEquals("still cozy", secondAnswer);
+    }
+
+    @Test
+    void requestsWithoutKeyAreNeverMerged() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = YandexGptSingleFlight.run(null, () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        YandexGptSingleFlight.run(null, () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(2, calls.get());
+        assertSame(pending, first);
+    }
+}